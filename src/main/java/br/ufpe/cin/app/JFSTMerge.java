@@ -11,10 +11,14 @@ import br.ufpe.cin.files.FilesTuple;
 import br.ufpe.cin.logging.LoggerFactory;
 import br.ufpe.cin.mergers.SemistructuredMerge;
 import br.ufpe.cin.mergers.TextualMerge;
-import br.ufpe.cin.mergers.util.MergeConflict;
+import br.ufpe.cin.mergers.util.CompilationSession;
+import br.ufpe.cin.mergers.util.DiffAlgorithmType;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
 import br.ufpe.cin.mergers.util.MergeScenario;
 import br.ufpe.cin.mergers.util.RenamingStrategy;
+import br.ufpe.cin.mergers.util.StageExecutor;
+import br.ufpe.cin.mergers.util.converters.DiffAlgorithmTypeConverter;
 import br.ufpe.cin.mergers.util.converters.RenamingStrategyConverter;
 import br.ufpe.cin.printers.Prettyprinter;
 import br.ufpe.cin.statistics.Statistics;
@@ -25,12 +29,18 @@ import com.beust.jcommander.converters.FileConverter;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -51,9 +61,21 @@ public class JFSTMerge {
 	//indicator of conflicting merge
 	private static int conflictState = 0;
 
+	//console and statistics log files are shared by all merges, including the ones running in parallel
+	private static final Object SHARED_OUTPUT_LOCK = new Object();
+
+	//when running inside the merge server, errors must not terminate the hosting JVM
+	private boolean quitOnSevereException = true;
+
 	// EncrypterDecrypter
 	private FileEncrypterDecrypter fileEncrypterDecrypter = new FileEncrypterDecrypter();
 
+	//compilations of the files of the directories being merged, made once all of them are merged
+	private CompilationSession compilationSession;
+
+	//statistics left for finishStatistics(), or null to compute them as part of each merge
+	private List<Runnable> deferredStatistics;
+
 	//command line options
 	@Parameter(arity = 3, description = "MinePath BasePath YoursPath", required = true, listConverter = FileConverter.class)
 	List<File> files = new ArrayList<>();
@@ -121,6 +143,30 @@ public class JFSTMerge {
 	@Parameter(names = {"--show-base", "--diff3-style"}, description = "Outputs base's contribution in merge conflicts.")
 	public static boolean showBase = false;
 
+	@Parameter(names = {"--parallel", "-par"}, description = "Merges the files of the given directories in parallel, using all available processors.")
+	public static boolean isParallel = false;
+
+	@Parameter(names = {"--persist-parse-trees", "-ppt"}, description = "Stores the parse trees of the merged files in the .jfstmerge directory,"
+			+ " so files already parsed in previous executions are not parsed again.")
+	public static boolean isParseTreeCachePersisted = false;
+
+	@Parameter(names = {"--single-pass-superimposition", "-sps"}, description = "Matches the left, base and right trees in a single pass,"
+			+ " instead of superimposing left and base first, and then right.")
+	public static boolean isSinglePassSuperimpositionEnabled = false;
+
+	@Parameter(names = {"--parallel-handlers", "-parh"}, description = "Runs the conflict handlers that do not read or change what the others change"
+			+ " in parallel, with the same result as running them one after another.")
+	public static boolean isParallelHandlersEnabled = false;
+
+	@Parameter(names = {"--diff-algorithm", "-da"}, description = "Diff algorithm textual merge matches the lines of the revisions with"
+			+ " (myers or histogram).", converter = DiffAlgorithmTypeConverter.class)
+	public static DiffAlgorithmType diffAlgorithm = DiffAlgorithmType.HISTOGRAM;
+
+	@Parameter(names = {"--batch-compilations", "-bc"}, description = "Compiles the merged files of the same project together, in batches,"
+			+ " when merging directories. Faster, but a file's compilation problems, and the duplicated declaration statistics"
+			+ " counted from them, then depend on the other merged files of its batch.")
+	public static boolean isBatchCompilationEnabled = false;
+
 	/**
 	 * Merges merge scenarios, indicated by .revisions files.
 	 * This is mainly used for evaluation purposes.
@@ -177,27 +223,79 @@ public class JFSTMerge {
 	 */
 	public List<FilesTuple> mergeDirectories(String leftDirPath, String baseDirPath, String rightDirPath, String outputDirPath) {
 		List<FilesTuple> filesTuple = FilesManager.fillFilesTuples(leftDirPath, baseDirPath, rightDirPath, outputDirPath, new ArrayList<String>());
-		for (FilesTuple tuple : filesTuple) {
-			File left = tuple.getLeftFile();
-			File base = tuple.getBaseFile();
-			File right = tuple.getRightFile();
-
-			//merging the file tuple
-			MergeContext context = mergeFiles(left, base, right, null);
-			tuple.setContext(context);
-
-			//printing the resulting merged code
-			if (outputDirPath != null) {
-				try {
-					Prettyprinter.generateMergedTuple(tuple);
-				} catch (PrintException pe) {
-					logSevereExceptionAndQuit(pe);
+		//each merged file is compiled on its own unless batches are asked for, see CompilationSession
+		CompilationSession session = isBatchCompilationEnabled ? new CompilationSession() : null;
+		compilationSession = session;
+		try {
+			if (isParallel) {
+				mergeTuplesInParallel(filesTuple, outputDirPath);
+			} else {
+				for (FilesTuple tuple : filesTuple) {
+					mergeTuple(tuple, outputDirPath);
 				}
 			}
+		} finally {
+			compilationSession = null;
+		}
+
+		//the merged files of the same project are compiled together, and their statistics computed afterwards
+		if (session != null) {
+			computeStatisticsLater(session::finish);
 		}
 		return filesTuple;
 	}
 
+	private void mergeTuple(FilesTuple tuple, String outputDirPath) {
+		File left = tuple.getLeftFile();
+		File base = tuple.getBaseFile();
+		File right = tuple.getRightFile();
+
+		//merging the file tuple
+		MergeContext context = mergeFiles(left, base, right, null);
+		tuple.setContext(context);
+
+		//printing the resulting merged code
+		if (outputDirPath != null) {
+			try {
+				Prettyprinter.generateMergedTuple(tuple);
+			} catch (PrintException pe) {
+				logSevereExceptionAndQuit(pe);
+			}
+		}
+	}
+
+	/**
+	 * Merges the given tuples with one worker per available processor.
+	 * Tuples are scheduled from the largest to the smallest, so that the longest merges do not start last
+	 * and delay the end of the whole merge. Each tuple receives its own context, as in the serial merge,
+	 * and the order of the given list is preserved.
+	 */
+	private void mergeTuplesInParallel(List<FilesTuple> filesTuple, String outputDirPath) {
+		List<FilesTuple> schedule = new ArrayList<>(filesTuple);
+		schedule.sort(Comparator.comparingLong(FilesManager::sizeOf).reversed());
+
+		ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		try {
+			List<Future<?>> merges = new ArrayList<>();
+			for (FilesTuple tuple : schedule) {
+				merges.add(executor.submit(() -> mergeTuple(tuple, outputDirPath)));
+			}
+			for (Future<?> merge : merges) {
+				merge.get();
+			}
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			logSevereExceptionAndQuit(ie);
+		} catch (ExecutionException ee) {
+			if (ee.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) ee.getCause();
+			}
+			logSevereExceptionAndQuit(ee);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
 	/**
 	 * Three-way semistructured merge of the given .java files.
 	 * @param left (mine) version of the file, or <b>null</b> in case of intentional empty file.
@@ -207,32 +305,58 @@ public class JFSTMerge {
 	 * @return context with relevant information gathered during the merging process.
 	 */
 	public MergeContext mergeFiles(File left, File base, File right, String outputFilePath) {
+		return mergeFiles(left, base, right, outputFilePath, MergeOptions.fromCommandLine());
+	}
+
+	/**
+	 * Three-way semistructured merge of the given .java files, with the given settings instead of the command line ones.
+	 * @param left (mine) version of the file, or <b>null</b> in case of intentional empty file.
+	 * @param base (older) version of the file, or <b>null</b> in case of intentional empty file.
+	 * @param right (yours) version of the file, or <b>null</b> in case of intentional empty file.
+	 * @param outputFilePath of the merged file. Can be <b>null</b>, in this case, the output will only be printed in the console.
+	 * @param options settings of this merge.
+	 * @return context with relevant information gathered during the merging process.
+	 * @throws UncheckedIOException if any of the given files does not exist or cannot be read.
+	 */
+	public MergeContext mergeFiles(File left, File base, File right, String outputFilePath, MergeOptions options) {
 		FilesManager.validateFiles(left, base, right);
 
-		if(filesEncoding.isEmpty()) {
-			FilesEncoding.analyseFiles(left, base, right);
-		} else {
-			FilesEncoding.setFilesEncoding(left, base, right, filesEncoding);
-		}
+		MergeContext context;
+		try {
+			if(filesEncoding.isEmpty()) {
+				FilesEncoding.analyseFiles(left, base, right);
+			} else {
+				FilesEncoding.setFilesEncoding(left, base, right, filesEncoding);
+			}
 
-		if (!isGit) {
-			System.out.println("MERGING FILES: \n" + ((left != null) ? left.getAbsolutePath() : "<empty left>") + "\n" + ((base != null) ? base.getAbsolutePath() : "<empty base>") + "\n" + ((right != null) ? right.getAbsolutePath() : "<empty right>"));
-		}
+			if (!options.isGit()) {
+				System.out.println("MERGING FILES: \n" + ((left != null) ? left.getAbsolutePath() : "<empty left>") + "\n" + ((base != null) ? base.getAbsolutePath() : "<empty base>") + "\n" + ((right != null) ? right.getAbsolutePath() : "<empty right>"));
+			}
 
-		MergeContext context = new MergeContext(left, base, right, outputFilePath);
+			context = new MergeContext(left, base, right, outputFilePath, options);
+		} finally {
+			//the snapshots of the context keep the encodings of the files, which are then no longer needed
+			FilesEncoding.discardEncodings(left, base, right);
+		}
+		context.setCompilationSession(compilationSession);
 
 		//there is no need to call specific merge algorithms in equal or consistenly changes files (fast-forward merge)
+		Future<Void> statisticsHandlers = null;
 		if (FilesManager.areFilesDifferent(left, base, right, outputFilePath, context)) {
 			long t0 = System.nanoTime();
 			try {
-				//running unstructured merge first is necessary due to future steps.
-				context.unstructuredOutput = TextualMerge.merge(left, base, right, false);
+				//the files are parsed in background while the unstructured merge runs, as its output is necessary for future steps.
+				SemistructuredMerge.ParsedFiles parsedFiles = SemistructuredMerge.parse(left, base, right, context);
+				context.unstructuredOutput = TextualMerge.merge(context.getLeftSnapshot(), context.getBaseSnapshot(), context.getRightSnapshot(), false, options);
 				context.unstructuredMergeTime = System.nanoTime() - t0;
 
-				context.semistructuredOutput = SemistructuredMerge.merge(left, base, right, context);
+				//handlers producing statistics only need the unstructured output, so they run alongside the semistructured merge
+				statisticsHandlers = SemistructuredMerge.handleStatistics(context);
+
+				context.semistructuredOutput = SemistructuredMerge.merge(parsedFiles, context);
 				context.semistructuredMergeTime = context.semistructuredMergeTime + (System.nanoTime() - t0);
 
-				conflictState = checkConflictState(context);
+				recordConflictState(checkConflictState(context));
 			} catch (TextualMergeException tme) { //textual merge must work even when semistructured not, so this exception precedes others
 				logSevereExceptionAndQuit(tme);
 			} catch (SemistructuredMergeException sme) {
@@ -240,39 +364,94 @@ public class JFSTMerge {
 				context.semistructuredOutput = context.unstructuredOutput;
 				context.semistructuredMergeTime = System.nanoTime() - t0;
 
-				conflictState = checkConflictState(context);
+				recordConflictState(checkConflictState(context));
 			}
+			//the remaining steps only need the decoded contents
+			context.releaseFileBytes();
 		}
 
 		//printing the resulting merged code
 		try {
-			if(!isGit){
-				Prettyprinter.printOnScreenMergedCode(context);
+			if(!options.isGit()){
+				synchronized (SHARED_OUTPUT_LOCK) {
+					Prettyprinter.printOnScreenMergedCode(context);
+				}
 			}
 			Prettyprinter.generateMergedFile(context, outputFilePath);
 		} catch (PrintException pe) {
 			logSevereExceptionAndQuit(pe);
 		}
 
-		//computing statistics
-		try {
-			decryptLogFiles();
-			Statistics.compute(context);
-			if(isCryptographed) {
-				encryptLogFiles();
+		//computing statistics, once the handlers and compilations they depend on are done
+		Future<Void> pendingHandlers = statisticsHandlers;
+		computeStatisticsLater(() -> {
+			if (pendingHandlers != null) {
+				try {
+					StageExecutor.join(pendingHandlers);
+				} catch (Exception e) {
+					LOGGER.log(Level.WARNING, "", e);
+				}
 			}
-		} catch (Exception e) {
-			logSevereExceptionAndQuit(e);
-		}
+			if (context.getCompilationSession() != null) {
+				context.getCompilationSession().afterCompilations(() -> computeStatistics(context));
+			} else {
+				computeStatistics(context);
+			}
+		});
 
 		System.out.println("Merge files finished.");
 		return context;
 	}
 
+	/**
+	 * Makes the merges of this merger leave their statistics for {@link #finishStatistics()}, instead of computing them
+	 * before returning, so their results can be reported first.
+	 */
+	void deferStatistics() {
+		deferredStatistics = new ArrayList<>();
+	}
+
+	/**
+	 * Computes the statistics left by the merges since {@link #deferStatistics()}, in the order the merges finished.
+	 */
+	void finishStatistics() {
+		List<Runnable> pendingStatistics;
+		synchronized (deferredStatistics) {
+			pendingStatistics = new ArrayList<>(deferredStatistics);
+			deferredStatistics.clear();
+		}
+		for (Runnable statistics : pendingStatistics) {
+			statistics.run();
+		}
+	}
+
+	private void computeStatisticsLater(Runnable statistics) {
+		if (deferredStatistics == null) {
+			statistics.run();
+		} else {
+			synchronized (deferredStatistics) {
+				deferredStatistics.add(statistics);
+			}
+		}
+	}
+
+	private void computeStatistics(MergeContext context) {
+		synchronized (SHARED_OUTPUT_LOCK) {
+			try {
+				decryptLogFiles();
+				Statistics.compute(context);
+				if(isCryptographed) {
+					encryptLogFiles();
+				}
+			} catch (Exception e) {
+				logSevereExceptionAndQuit(e);
+			}
+		}
+	}
+
 	public static void main(String[] args) {
 		JFSTMerge merger = new JFSTMerge();
-		merger.run(args);
-		System.exit(conflictState);
+		System.exit(merger.run(args));
 
 		/*		new JFSTMerge().mergeFiles(
 						new File("C:/Users/Guilherme/Desktop/test/projects/sisbol/revisions/rev_0533511_8d296b5/rev_left_0533511/sisbol-core/src/main/java/br/mil/eb/cds/sisbol/boletim/util/Messages.java"),
@@ -295,10 +474,25 @@ public class JFSTMerge {
 
 	}
 
-	private void run(String[] args) {
+	private int run(String[] args) {
+		return run(args, null);
+	}
+
+	/**
+	 * Parses the given command line arguments and performs the requested merge.
+	 * @param args command line arguments, as received by {@link #main(String[])}
+	 * @param workingDirectory directory against which relative paths are resolved, or <b>null</b>
+	 * to resolve them against the current directory.
+	 * @return exit status of the merge: 0 when there are no conflicts, 1 otherwise, or -1 in case of errors.
+	 */
+	int run(String[] args, File workingDirectory) {
+		conflictState = 0;
 		JCommander commandLineOptions = new JCommander(this);
 		try {
 			commandLineOptions.parse(args);
+			if (workingDirectory != null) {
+				resolvePaths(workingDirectory);
+			}
 			CommandLineValidator.validateCommandLineOptions(this);
 
 			if(areDirectories(files)) {
@@ -310,6 +504,22 @@ public class JFSTMerge {
 			System.err.println(pe.getMessage());
 			commandLineOptions.setProgramName("JFSTMerge");
 			commandLineOptions.usage();
+			return -1;
+		} catch (UncheckedIOException e) {
+			System.err.println(e.getMessage());
+			return -1;
+		}
+		return conflictState;
+	}
+
+	private void resolvePaths(File workingDirectory) {
+		List<File> resolvedFiles = new ArrayList<>();
+		for (File file : files) {
+			resolvedFiles.add(file.isAbsolute() ? file : new File(workingDirectory, file.getPath()));
+		}
+		files = resolvedFiles;
+		if (!outputpath.isEmpty() && !new File(outputpath).isAbsolute()) {
+			outputpath = new File(workingDirectory, outputpath).getPath();
 		}
 	}
 
@@ -341,9 +551,12 @@ public class JFSTMerge {
 		return files.stream().allMatch(File::isDirectory);
 	}
 
+	private static synchronized void recordConflictState(int state) {
+		conflictState = Math.max(conflictState, state);
+	}
+
 	private int checkConflictState(MergeContext context) {
-		List<MergeConflict> conflictList = FilesManager.extractMergeConflicts(context.semistructuredOutput);
-		if (conflictList.size() > 0) {
+		if (context.getSemistructuredConflicts().size() > 0) {
 			return 1;
 		} else {
 			return 0;
@@ -365,10 +578,18 @@ public class JFSTMerge {
 		this.filesEncoding = filesEncoding;
 	}
 
+	void quitOnSevereException(boolean quitOnSevereException) {
+		this.quitOnSevereException = quitOnSevereException;
+	}
+
 	private void logSevereExceptionAndQuit(Exception e) {
 		System.err.println("An error occurred. See " + LoggerFactory.logFile() + " file for more details.\n Send the log to gjcc@cin.ufpe.br for analysis if preferable.");
 		LOGGER.log(Level.SEVERE, "", e);
-		System.exit(-1);
+		if (quitOnSevereException) {
+			System.exit(-1);
+		} else {
+			throw new IllegalStateException(e);
+		}
 	}
 
 }
@@ -0,0 +1,123 @@
+package br.ufpe.cin.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ProcessBuilder.Redirect;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Thin git merge driver delegating the merge to a {@link MergeServer}, so each conflicting file
+ * does not pay the startup of a new fully loaded JVM.
+ * It accepts the same arguments of {@link JFSTMerge#main(String[])} and exits with the same status.
+ * When no server is running, the client starts one in the background for the next invocations,
+ * and performs the current merge by itself, as it does when the server cannot be reached.
+ * Example of git configuration (<i>.gitconfig</i>):
+ * <pre>
+ * [merge "s3m"]
+ *     name = semi_structured_merge
+ *     driver = java -cp pathTo/jFSTMerge.jar br.ufpe.cin.app.MergeClient %A %O %B -o %A -g
+ * </pre>
+ */
+public final class MergeClient {
+
+	//the server is local, so it must answer promptly
+	private static final int CONNECTION_TIMEOUT = 1000;
+
+	//longest wait for the result of a merge, so a hung server does not hold up git forever
+	private static final int READ_TIMEOUT = 10 * 60 * 1000;
+
+	private static final File SERVER_LOG_FILE = MergeServer.DEFAULT_DIRECTORY_PATH.resolve("server.log").toFile();
+
+	public static void main(String[] args) {
+		Integer exitStatus = requestMerge(args);
+		if (exitStatus == null) {
+			startServer();
+			JFSTMerge.main(args);
+		} else {
+			System.exit(exitStatus);
+		}
+	}
+
+	/**
+	 * Sends a merge request to the server running in the default directory.
+	 * @param args the arguments of the merge, as accepted by {@link JFSTMerge#main(String[])}
+	 * @return the exit status of the merge, or null if the merge is to be performed locally, see {@link #requestMerge(String[], Path)}.
+	 */
+	public static Integer requestMerge(String[] args) {
+		return requestMerge(args, MergeServer.DEFAULT_DIRECTORY_PATH);
+	}
+
+	/**
+	 * Sends a merge request to the server running in the given directory.
+	 * @param args the arguments of the merge, as accepted by {@link JFSTMerge#main(String[])}
+	 * @param serverDirectory where the server publishes its port and token
+	 * @return the exit status of the merge, or null if there is no server able to receive the request.
+	 * Once the request is sent, a server that refuses it, answers something else than an exit status, or does not answer
+	 * within {@link #READ_TIMEOUT} milliseconds makes the merge fail (status -1) instead, as the output file, which is
+	 * usually one of the merged files, might already have been partially written.
+	 */
+	public static Integer requestMerge(String[] args, Path serverDirectory) {
+		List<String> published;
+		try {
+			published = Files.readAllLines(MergeServer.serverFileOf(serverDirectory), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return null;
+		}
+		if (published.size() != 2) {
+			return null;
+		}
+
+		try (Socket socket = new Socket()) {
+			int port = Integer.parseInt(published.get(0));
+			socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECTION_TIMEOUT);
+			socket.setSoTimeout(READ_TIMEOUT);
+
+			Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+			writer.write(published.get(1) + "\n");
+			writer.write(new File("").getAbsolutePath() + "\n");
+			writer.write(args.length + "\n");
+			for (String arg : args) {
+				writer.write(arg + "\n");
+			}
+			writer.flush();
+
+			//from now on the server might be writing the output, so the merge must not be performed locally too
+			BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			try {
+				return Integer.valueOf(reader.readLine());
+			} catch (IOException | NumberFormatException e) { //a refused request is closed without an answer
+				return -1;
+			}
+		} catch (IOException | NumberFormatException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Starts a server in the background, in a new JVM with the same classpath of the client.
+	 * The server itself gives up if there is another one already running.
+	 */
+	private static void startServer() {
+		try {
+			SERVER_LOG_FILE.getParentFile().mkdirs();
+			String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+			ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), MergeServer.class.getName());
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(Redirect.appendTo(SERVER_LOG_FILE));
+			builder.start();
+		} catch (IOException | SecurityException e) {
+			//the merge goes on without the server
+		}
+	}
+}
@@ -0,0 +1,286 @@
+package br.ufpe.cin.app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermission;
+import java.security.SecureRandom;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.beust.jcommander.Parameter;
+
+import br.ufpe.cin.logging.LoggerFactory;
+
+/**
+ * Long-lived merge process serving the requests of {@link MergeClient}.
+ * When used as a git merge driver, every conflicting file of a <i>git merge</i> would start a new JVM,
+ * loading the parser, JGit and JDT each time. The server keeps these classes loaded and JIT-compiled
+ * across invocations, so only the first merge pays the startup cost.
+ * The server listens on the loopback interface only, and accepts requests carrying the secret token it
+ * publishes, together with its port, in the <i>server.port</i> file of its directory (<i>.jfstmerge</i> by default).
+ * Requests are served one at a time, in arrival order. The server shuts itself down after
+ * {@link #IDLE_TIMEOUT} milliseconds without requests.
+ */
+public final class MergeServer implements AutoCloseable {
+
+	//log of activities
+	private static final Logger LOGGER = LoggerFactory.make();
+
+	public static final Path DEFAULT_DIRECTORY_PATH = Paths.get(System.getProperty("user.home"), ".jfstmerge");
+
+	static final int IDLE_TIMEOUT = 30 * 60 * 1000;
+
+	//classes whose loading and static initialization dominate the startup of a merge
+	private static final String[] WARM_UP_CLASSES = {
+			"br.ufpe.cin.generated.Java18MergeParser",
+			"br.ufpe.cin.generated.SimplePrintVisitor",
+			"org.eclipse.jgit.merge.MergeAlgorithm",
+			"org.eclipse.jgit.merge.MergeFormatter",
+			"org.eclipse.jdt.core.dom.ASTParser",
+			"com.github.javaparser.JavaParser"
+	};
+
+	private final Path directory;
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private final ServerSocket serverSocket;
+	private final String token;
+
+	//command line options are bound to static fields, so their defaults are restored before each request
+	private final Map<Field, Object> defaultOptions;
+
+	/**
+	 * Starts listening for merge requests and publishes the server's port and token in the default directory.
+	 * @throws IOException if there is already a server running, or the server socket cannot be created.
+	 */
+	public MergeServer() throws IOException {
+		this(DEFAULT_DIRECTORY_PATH);
+	}
+
+	/**
+	 * Starts listening for merge requests and publishes the server's port and token in the given directory.
+	 * @param directory where the server publishes its port and token, and holds its lock
+	 * @throws IOException if there is already a server running in the directory, or the server socket cannot be created.
+	 */
+	public MergeServer(Path directory) throws IOException {
+		this.directory = directory;
+		Files.createDirectories(directory);
+		this.lockChannel = FileChannel.open(directory.resolve("server.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		this.lock = lockChannel.tryLock();
+		if (lock == null) {
+			lockChannel.close();
+			throw new IOException("There is already a merge server running.");
+		}
+
+		this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+		this.serverSocket.setSoTimeout(IDLE_TIMEOUT);
+		this.token = generateToken();
+		this.defaultOptions = collectOptions();
+		publish();
+	}
+
+	public static void main(String[] args) {
+		//merges print their progress on the standard output, which nobody reads from a background process
+		System.setOut(new PrintStream(new OutputStream() {
+			public void write(int b) {}
+		}));
+
+		try (MergeServer server = new MergeServer()) {
+			server.warmUp();
+			server.serve();
+		} catch (IOException e) {
+			LOGGER.log(Level.SEVERE, "", e);
+			System.exit(-1);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Serves merge requests until the server is closed or stays idle for {@link #IDLE_TIMEOUT} milliseconds.
+	 */
+	public void serve() {
+		while (!serverSocket.isClosed()) {
+			try (Socket socket = serverSocket.accept()) {
+				handle(socket);
+			} catch (SocketTimeoutException e) {
+				break;
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					LOGGER.log(Level.WARNING, "", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the heaviest classes involved in a merge, so the first request does not wait for them.
+	 */
+	public void warmUp() {
+		for (String className : WARM_UP_CLASSES) {
+			try {
+				Class.forName(className, true, MergeServer.class.getClassLoader());
+			} catch (ClassNotFoundException | LinkageError e) {
+				LOGGER.log(Level.WARNING, "", e);
+			}
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stops listening for requests, and removes the published port file if it still belongs to this server.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			serverSocket.close();
+			Path serverFile = serverFileOf(directory);
+			List<String> published = Files.exists(serverFile) ? Files.readAllLines(serverFile, StandardCharsets.UTF_8) : null;
+			if (published != null && published.size() == 2 && published.get(1).equals(token)) {
+				Files.deleteIfExists(serverFile);
+			}
+		} finally {
+			lock.release();
+			lockChannel.close();
+		}
+	}
+
+	/**
+	 * Reads a request, merges the requested files and answers the exit status of the merge.
+	 * A request is composed by the following lines: the token, the client's working directory,
+	 * the number of arguments, and the arguments themselves (the same accepted by {@link JFSTMerge#main(String[])}).
+	 */
+	private void handle(Socket socket) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+		Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+		if (!token.equals(reader.readLine())) {
+			LOGGER.log(Level.WARNING, "Merge request refused: invalid token.");
+			return;
+		}
+
+		try {
+			File workingDirectory = new File(reader.readLine());
+			String[] args = new String[Integer.parseInt(reader.readLine())];
+			for (int i = 0; i < args.length; i++) {
+				args[i] = reader.readLine();
+			}
+
+			//the client is answered as soon as the output is written, and the statistics are computed afterwards
+			JFSTMerge merger = newMerger();
+			writer.write(merge(merger, args, workingDirectory) + "\n");
+			writer.flush();
+			finishStatistics(merger);
+		} catch (NullPointerException | NumberFormatException e) { //malformed request
+			LOGGER.log(Level.WARNING, "Merge request refused: malformed request.", e);
+		}
+	}
+
+	private JFSTMerge newMerger() {
+		restoreOptions();
+		JFSTMerge merger = new JFSTMerge();
+		merger.quitOnSevereException(false);
+		merger.deferStatistics();
+		return merger;
+	}
+
+	private static int merge(JFSTMerge merger, String[] args, File workingDirectory) {
+		try {
+			return merger.run(args, workingDirectory);
+		} catch (RuntimeException e) { //the merger already logged the cause
+			return -1;
+		}
+	}
+
+	private static void finishStatistics(JFSTMerge merger) {
+		try {
+			merger.finishStatistics();
+		} catch (RuntimeException e) { //only the statistics are lost, the merge is already answered
+			LOGGER.log(Level.WARNING, "", e);
+		}
+	}
+
+	/**
+	 * @param directory of a server
+	 * @return file where the server of the given directory publishes its port and token
+	 */
+	static Path serverFileOf(Path directory) {
+		return directory.resolve("server.port");
+	}
+
+	private static Map<Field, Object> collectOptions() {
+		Map<Field, Object> options = new HashMap<>();
+		for (Field field : JFSTMerge.class.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.isAnnotationPresent(Parameter.class)) {
+				try {
+					field.setAccessible(true);
+					options.put(field, field.get(null));
+				} catch (IllegalAccessException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		}
+		return options;
+	}
+
+	private void restoreOptions() {
+		for (Map.Entry<Field, Object> option : defaultOptions.entrySet()) {
+			try {
+				option.getKey().set(null, option.getValue());
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+	private static String generateToken() {
+		byte[] bytes = new byte[24];
+		new SecureRandom().nextBytes(bytes);
+		StringBuilder token = new StringBuilder();
+		for (byte b : bytes) {
+			token.append(String.format("%02x", b));
+		}
+		return token.toString();
+	}
+
+	/**
+	 * Writes the port and the token in the server file, readable only by the current user.
+	 */
+	private void publish() throws IOException {
+		Path temporaryFile = Files.createTempFile(directory, "server", ".tmp");
+		try {
+			Files.setPosixFilePermissions(temporaryFile, EnumSet.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE));
+		} catch (UnsupportedOperationException e) { //non-POSIX file systems
+			File file = temporaryFile.toFile();
+			file.setReadable(false, false);
+			file.setReadable(true, true);
+		}
+		Files.write(temporaryFile, (getPort() + "\n" + token + "\n").getBytes(StandardCharsets.UTF_8));
+		Files.move(temporaryFile, serverFileOf(directory), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+}
@@ -1,6 +1,5 @@
 package br.ufpe.cin.exceptions;
 
-import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.util.MergeContext;
 
 /**
@@ -35,9 +34,9 @@ public class SemistructuredMergeException extends Exception {
 		messageBuilder.append(((context.getLeft() != null)?context.getLeft().getAbsolutePath() :"<empty left>") + ";");
 		messageBuilder.append(((context.getBase() != null)?context.getBase().getAbsolutePath() :"<empty base>") + ";");
 		messageBuilder.append(((context.getRight()!= null)?context.getRight().getAbsolutePath():"<empty right>"));
-		messageBuilder.append("\nLEFT FILE CONTENT:\n" + ((context.getLeft() != null)?FilesManager.readFileContent(context.getLeft()):"<empty left>"));
-		messageBuilder.append("\nBASE FILE CONTENT:\n" + ((context.getBase() != null)?FilesManager.readFileContent(context.getBase()):"<empty base>"));
-		messageBuilder.append("\nRIGHT FILE CONTENT:\n"+ ((context.getRight()!= null)?FilesManager.readFileContent(context.getRight()):"<empty right>"));
+		messageBuilder.append("\nLEFT FILE CONTENT:\n" + ((context.getLeft() != null)?context.getSnapshot(context.getLeft()).getContent():"<empty left>"));
+		messageBuilder.append("\nBASE FILE CONTENT:\n" + ((context.getBase() != null)?context.getSnapshot(context.getBase()).getContent():"<empty base>"));
+		messageBuilder.append("\nRIGHT FILE CONTENT:\n"+ ((context.getRight()!= null)?context.getSnapshot(context.getRight()).getContent():"<empty right>"));
 		messageBuilder.append("\nFallback merge strategy: call textual merge");
 		return messageBuilder.toString();
 	}
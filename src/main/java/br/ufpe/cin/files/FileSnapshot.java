@@ -0,0 +1,183 @@
+package br.ufpe.cin.files;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Content of a file involved in a merge, read from disk only once.
+ * The same snapshot is shared by every step of the merge of the file (parsing, textual merge,
+ * handlers, statistics), instead of each step reading the file again.
+ * The raw bytes are only needed to parse and textually merge the file, so they are dropped
+ * afterwards with {@link #releaseBytes()}, keeping only the decoded content for the later steps.
+ * @author Guilherme
+ */
+public final class FileSnapshot {
+
+	private static final byte[] NO_BYTES = new byte[0];
+
+	private final File file;
+	//null once released
+	private volatile byte[] bytes;
+	private final String encoding;
+	private final String content;
+
+	//whether the raw bytes are already the UTF-8 encoding of the content, except for the last line terminator
+	private final boolean rawBytesEncodeContent;
+
+	//computed on first use
+	private volatile Long hashIgnoringSpacing;
+
+	private FileSnapshot(File file, byte[] bytes, String encoding) {
+		this.file = file;
+		this.bytes = bytes;
+		this.encoding = encoding;
+
+		Charset charset = Charset.forName(encoding);
+		String decoded = decode(bytes, charset);
+		boolean wellEncoded = decoded != null;
+		if (!wellEncoded) { //the file is encoded with an unsupported text encoding, so we read characters
+			decoded = new String(bytes, StandardCharsets.UTF_8);
+		}
+		this.content = joinLines(decoded);
+		this.rawBytesEncodeContent = wellEncoded && isUtf8Compatible(charset) && !containsCarriageReturn(bytes);
+	}
+
+	/**
+	 * Reads the given file, decoding it with the encoding registered for it in {@link FilesEncoding}.
+	 * @param file to be read, or <b>null</b> in case of intentional empty file.
+	 * @return snapshot of the file; empty in case the file is null or does not exist.
+	 * @throws UncheckedIOException in case the file cannot be read.
+	 */
+	public static FileSnapshot read(File file) {
+		String encoding = FilesEncoding.retrieveEncoding(file);
+		if (file == null || !file.exists()) {
+			return new FileSnapshot(file, NO_BYTES, encoding);
+		}
+
+		try {
+			return new FileSnapshot(file, Files.readAllBytes(file.toPath()), encoding);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Error at reading file " + file.getAbsolutePath(), e);
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * @return raw bytes of the file, or the content encoded with the file's encoding once the bytes are released.
+	 * The array might be shared, and must not be modified.
+	 */
+	public byte[] getBytes() {
+		byte[] raw = bytes;
+		return (raw != null) ? raw : content.getBytes(Charset.forName(encoding));
+	}
+
+	/**
+	 * Drops the raw bytes of the file, once parsing and textual merge are done with them.
+	 */
+	public void releaseBytes() {
+		bytes = null;
+	}
+
+	public String getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * @return decoded content of the file, with lines separated by <i>\n</i>, as in {@link FilesManager#readFileContent(File)}.
+	 */
+	public String getContent() {
+		return content;
+	}
+
+	/**
+	 * Returns the UTF-8 encoding of {@link #getContent()}. When the file is already UTF-8 encoded
+	 * with <i>\n</i> line terminators, the buffer is a view of the raw bytes, leaving out the last
+	 * line terminator, instead of encoding the content again.
+	 * @return buffer from its position to its limit over the bytes of the content. The backing array
+	 * might be shared, and must not be modified.
+	 */
+	public ByteBuffer getContentBuffer() {
+		byte[] raw = bytes;
+		if (!rawBytesEncodeContent || raw == null) {
+			return ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+		}
+		int length = raw.length;
+		return ByteBuffer.wrap(raw, 0, (length > 0 && raw[length - 1] == '\n') ? length - 1 : length);
+	}
+
+	/**
+	 * @return hash of the content ignoring spacing, as computed by {@link FilesManager#hashIgnoringSpacing(String)}.
+	 */
+	public long getHashIgnoringSpacing() {
+		Long hash = hashIgnoringSpacing;
+		if (hash == null) {
+			hash = FilesManager.hashIgnoringSpacing(content);
+			hashIgnoringSpacing = hash;
+		}
+		return hash;
+	}
+
+	public boolean isEmpty() {
+		return content.isEmpty();
+	}
+
+	/**
+	 * @return a reader over the raw content of the file, decoded with the file's encoding,
+	 * or over the decoded content once the bytes are released.
+	 */
+	public Reader openReader() {
+		byte[] raw = bytes;
+		if (raw == null) {
+			return new StringReader(content);
+		}
+		return new InputStreamReader(new ByteArrayInputStream(raw), Charset.forName(encoding));
+	}
+
+	/*
+	 * Returns null in case the bytes are not valid in the given charset.
+	 */
+	private static String decode(byte[] bytes, Charset charset) {
+		try {
+			return charset.newDecoder()
+					.onMalformedInput(CodingErrorAction.REPORT)
+					.onUnmappableCharacter(CodingErrorAction.REPORT)
+					.decode(ByteBuffer.wrap(bytes)).toString();
+		} catch (CharacterCodingException e) {
+			return null;
+		}
+	}
+
+	private static boolean isUtf8Compatible(Charset charset) {
+		return charset.equals(StandardCharsets.UTF_8) || charset.equals(StandardCharsets.US_ASCII);
+	}
+
+	private static boolean containsCarriageReturn(byte[] bytes) {
+		for (byte b : bytes) {
+			if (b == '\r') return true;
+		}
+		return false;
+	}
+
+	/*
+	 * Mirrors reading the content line by line and joining the lines with "\n": any line terminator
+	 * becomes "\n", and the terminator of the last line is dropped.
+	 */
+	private static String joinLines(String text) {
+		String joined = text.replace("\r\n", "\n").replace('\r', '\n');
+		return joined.endsWith("\n") ? joined.substring(0, joined.length() - 1) : joined;
+	}
+}
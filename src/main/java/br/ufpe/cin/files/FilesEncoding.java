@@ -3,41 +3,66 @@ package br.ufpe.cin.files;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 import org.mozilla.universalchardet.UniversalDetector;
 
+import br.ufpe.cin.mergers.util.StageExecutor;
+
 /**
  * A class to handle encoding of files involved in a merge.
  * @author João Victor
  */
 public class FilesEncoding {
 
-    private static Map<File, String> encodings = new HashMap<File, String>();
+    private static Map<File, String> encodings = Collections.synchronizedMap(new HashMap<File, String>());
     private static final String DEFAULT_ENCODING = "UTF-8";
-    private static String baseEncoding;
+
+    //a merge runs entirely in one thread, so each thread keeps the base encoding of its current merge
+    private static final ThreadLocal<String> baseEncoding = new ThreadLocal<String>();
     
     public static void analyseFiles(File left, File base, File right) {
 
         try {
+            //the encodings of the three files are detected at the same time
+            Future<String> leftEncoding = detectEncodingInBackground(left);
+            Future<String> rightEncoding = detectEncodingInBackground(right);
+            String detectedBaseEncoding = (base != null) ? detectEncoding(base) : null;
+
             if (left != null)
-                encodings.put(left, detectEncoding(left));
+                encodings.put(left, joinDetection(leftEncoding));
 
             if (base != null) {
-                baseEncoding = detectEncoding(base);
-                encodings.put(base, baseEncoding);
+                baseEncoding.set(detectedBaseEncoding);
+                encodings.put(base, baseEncoding.get());
             }
 
             if (right != null)
-                encodings.put(right, detectEncoding(right));
+                encodings.put(right, joinDetection(rightEncoding));
 
         } catch (IOException e) {
-            System.err.println("An error occurred while opening files for encoding detection. Shutting down.");
-            System.exit(1);
+            throw new UncheckedIOException("An error occurred while opening files for encoding detection.", e);
+        }
+    }
+
+    /**
+     * Forgets the encodings of the given files, once their snapshots are read with them, so a long-running
+     * process such as the merge server does not keep the encodings of every file it has merged.
+     * @param left
+     * @param base
+     * @param right
+     */
+    public static void discardEncodings(File left, File base, File right) {
+        for (File file : new File[] {left, base, right}) {
+            if (file != null)
+                encodings.remove(file);
         }
     }
 
@@ -46,18 +71,34 @@ public class FilesEncoding {
     }
 
     static String retrieveBaseEncoding() {
-        return baseEncoding;
+        //threads not running a merge of their own, such as the handlers' threads, know no base encoding
+        String encoding = baseEncoding.get();
+        return (encoding != null) ? encoding : DEFAULT_ENCODING;
+    }
+
+    private static Future<String> detectEncodingInBackground(File file) {
+        return (file != null) ? StageExecutor.submit(() -> detectEncoding(file)) : null;
+    }
+
+    private static String joinDetection(Future<String> encoding) throws IOException {
+        try {
+            return StageExecutor.join(encoding);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) { //detection throws no other checked exception
+            throw new IllegalStateException(e);
+        }
     }
 
     private static String detectEncoding(File file) throws IOException {
-        InputStream reader = Files.newInputStream(Paths.get(file.getAbsolutePath()));
         UniversalDetector detector = new UniversalDetector(null);
-
-        byte[] data = new byte[4096];
-        int dataRead = reader.read(data);
-        while(dataRead > 0 && !detector.isDone()) {
-            detector.handleData(data, 0, dataRead);
-            dataRead = reader.read(data);
+        try (InputStream reader = Files.newInputStream(Paths.get(file.getAbsolutePath()))) {
+            byte[] data = new byte[4096];
+            int dataRead = reader.read(data);
+            while(dataRead > 0 && !detector.isDone()) {
+                detector.handleData(data, 0, dataRead);
+                dataRead = reader.read(data);
+            }
         }
         detector.dataEnd();
 
@@ -72,8 +113,8 @@ public class FilesEncoding {
 
 	public static void setFilesEncoding(File left, File base, File right, List<String> filesEncoding) {
         encodings.put(left, filesEncoding.get(0));
-        baseEncoding = filesEncoding.get(1);
-        encodings.put(base, baseEncoding);
+        baseEncoding.set(filesEncoding.get(1));
+        encodings.put(base, baseEncoding.get());
         encodings.put(right, filesEncoding.get(2));
 	}
 
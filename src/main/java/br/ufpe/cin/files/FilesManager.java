@@ -1,21 +1,21 @@
 package br.ufpe.cin.files;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.StringReader;
+import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 import com.github.javaparser.JavaParser;
 import com.github.javaparser.ParseException;
@@ -25,13 +25,14 @@ import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
 import com.github.javaparser.ast.body.TypeDeclaration;
 import com.github.javaparser.ast.body.EnumDeclaration;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import br.ufpe.cin.generated.SimplePrintVisitor;
+import br.ufpe.cin.mergers.util.ConflictIndex;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
@@ -166,6 +167,19 @@ public final class FilesManager {
 		return tuples;
 	}
 
+	/**
+	 * Sums the sizes of the files of a tuple, as an estimate of the cost of merging it.
+	 * @param tuple
+	 * @return size in bytes of the tuple's existing files
+	 */
+	public static long sizeOf(FilesTuple tuple){
+		long size = 0;
+		for(File file : new File[]{tuple.getLeftFile(), tuple.getBaseFile(), tuple.getRightFile()}){
+			if(file != null) size += file.length();
+		}
+		return size;
+	}
+
 	/**
 	 * Lists all files path from a directory and its subdirectories.
 	 * @param root directory path
@@ -228,42 +242,7 @@ public final class FilesManager {
 	 * @return string content of the file, or null in case of errors.
 	 */
 	public static String readFileContent(File file) {
-		String content = "";
-
-		String fileEncoding = FilesEncoding.retrieveEncoding(file);
-		try(BufferedReader reader = Files.newBufferedReader(Paths.get(file.getAbsolutePath()), Charset.forName(fileEncoding))) {
-			content = reader.lines().collect(Collectors.joining("\n"));
-
-		} catch (IOException e) {
-			System.err.println("Error at reading file. Shutting down.");
-			System.exit(1);
-
-		} catch (NullPointerException e) { // The file has been deleted between directories.
-			return "";
-
-		} catch (UncheckedIOException e) { // The file is encoded with an unsupported text encoding, so we read characters.
-			return readFileContentUnsupportedEncoding(file);
-		}
-
-		return content;
-	}
-
-	private static String readFileContentUnsupportedEncoding(File file) {
-		String content = "";
-		try(InputStreamReader reader = new InputStreamReader(Files.newInputStream(Paths.get(file.getAbsolutePath())), StandardCharsets.UTF_8)) {
-			char[] buffer = new char[4096];
-
-			StringBuilder builder = new StringBuilder();
-			while(reader.read(buffer) > 0)
-				builder.append(buffer);
-
-			content = builder.toString();
-		} catch (IOException e) {
-			System.err.println("Error at reading file. Shutting down.");
-			System.exit(1);
-		}
-
-		return content;
+		return FileSnapshot.read(file).getContent();
 	}
 
 	/**
@@ -346,7 +325,10 @@ public final class FilesManager {
 					file.getParentFile().mkdirs();
 					file.createNewFile();
 				}
-				FileUtils.write(file, content);
+				//writing through a buffered writer, instead of encoding the whole content at once
+				try(Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), Charset.defaultCharset()))){
+					writer.write(content);
+				}
 			} catch(NullPointerException ne){
 				//empty, necessary for integration with git version control system
 			} catch(Exception e){
@@ -359,14 +341,14 @@ public final class FilesManager {
 
 	/**
 	 * Validate the given files by verifying if they exist.
-	 * In case of non-existing file, the execution terminates.
 	 * @param files to be validated
+	 * @throws UncheckedIOException in case of non-existing file.
 	 */
 	public static void validateFiles(File... files) {
 		for(File f : files){
 			if(f!=null && !f.exists()){
-				System.err.println(f.getAbsolutePath()+" does not exists! Try again with a valid file.");
-				System.exit(-1);
+				throw new UncheckedIOException(f.getAbsolutePath()+" does not exists! Try again with a valid file.",
+						new FileNotFoundException(f.getAbsolutePath()));
 			}
 		}
 	}
@@ -380,75 +362,72 @@ public final class FilesManager {
 		return (content.replaceAll("\\r\\n|\\r|\\n|\\u0000","")).replaceAll("\\s+","");
 	}
 
-	private static enum ConflictArea {
-		None, Left, Base, Right
+	/**
+	 * Checks if the contents of two files are equal when ignoring spacing, as comparing their
+	 * {@link #getStringContentIntoSingleLineNoSpacing(String)} representations, but without building them.
+	 * The contents are compared character by character only when their hashes match.
+	 * @param first
+	 * @param second
+	 * @return <b>true</b> if the contents differ only in spacing, <b>false</b> otherwise
+	 */
+	public static boolean areEqualIgnoringSpacing(FileSnapshot first, FileSnapshot second) {
+		return first.getHashIgnoringSpacing() == second.getHashIgnoringSpacing()
+				&& areEqualIgnoringSpacing(first.getContent(), second.getContent());
 	}
 
 	/**
-	 * Extracts the merge conflicts of a string representation of merged code.
-	 * @param mergedCode
-	 * @return list o merge conflicts
+	 * Computes, in a single pass, a hash of the given string that ignores the same characters
+	 * removed by {@link #getStringContentIntoSingleLineNoSpacing(String)}.
+	 * @param content
+	 * @return 64-bit FNV-1a hash of the non-spacing characters
 	 */
-	public static List<MergeConflict> extractMergeConflicts(String mergedCode) {
-		List<MergeConflict> mergeConflicts = new ArrayList<MergeConflict>();
-
-		StringBuilder leftConflictingContent = new StringBuilder();
-		StringBuilder baseConflictingContent = new StringBuilder();
-		StringBuilder rightConflictingContent = new StringBuilder();
-
-		ConflictArea conflictArea = ConflictArea.None;
-
-		int lineCounter = 0;
-		int startLOC = 0;
-		int endLOC = 0;
-
-		Iterator<String> mergeCodeLines = splitLines(mergedCode);
-		while(mergeCodeLines.hasNext()) {
-			String line = mergeCodeLines.next();
-			lineCounter++;
-
-			/* See the following conditionals as a state machine. */
-			if(line.contains(MergeConflict.MINE_CONFLICT_MARKER) && conflictArea == ConflictArea.None) {
-				startLOC = lineCounter;
-				conflictArea = ConflictArea.Left;
-			} 
-			
-			else if(line.contains(MergeConflict.BASE_CONFLICT_MARKER) && conflictArea == ConflictArea.Left) {
-				conflictArea = ConflictArea.Base;
-			} 
-			
-			else if(line.contains(MergeConflict.CHANGE_CONFLICT_MARKER) && (conflictArea == ConflictArea.Base || conflictArea == ConflictArea.Left)) {
-				conflictArea = ConflictArea.Right;
-			} 
-			
-			else if(line.contains(MergeConflict.YOURS_CONFLICT_MARKER) && conflictArea == ConflictArea.Right) {
-				endLOC = lineCounter;
-				mergeConflicts.add(new MergeConflict(leftConflictingContent.toString(), baseConflictingContent.toString(), rightConflictingContent.toString(), "", startLOC, endLOC));
-				conflictArea = ConflictArea.None;
-			} 
-			
-			else {
-				switch (conflictArea) {
-					case Left:
-						leftConflictingContent.append(line).append('\n');
-						break;
-					case Base:
-						baseConflictingContent.append(line).append('\n');
-						break;
-					case Right:
-						rightConflictingContent.append(line).append('\n');
-						break;
-					default: // not in conflict area
-						break;
-				}
+	public static long hashIgnoringSpacing(String content) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0, length = content.length(); i < length; i++) {
+			char c = content.charAt(i);
+			if (!isSpacing(c)) {
+				hash = (hash ^ c) * 0x100000001b3L;
 			}
 		}
-		return mergeConflicts;
+		return hash;
 	}
 
-	private static Iterator<String> splitLines(String mergedCode) {
-		BufferedReader reader = new BufferedReader(new StringReader(mergedCode));
-		return reader.lines().collect(Collectors.toList()).iterator();
+	/**
+	 * Checks if two strings are equal when ignoring the characters removed by
+	 * {@link #getStringContentIntoSingleLineNoSpacing(String)}, walking both strings at once.
+	 * @param first
+	 * @param second
+	 * @return <b>true</b> if the strings differ only in spacing, <b>false</b> otherwise
+	 */
+	public static boolean areEqualIgnoringSpacing(String first, String second) {
+		int i = 0, j = 0;
+		int firstLength = first.length(), secondLength = second.length();
+		while (true) {
+			while (i < firstLength && isSpacing(first.charAt(i))) i++;
+			while (j < secondLength && isSpacing(second.charAt(j))) j++;
+			if (i == firstLength || j == secondLength) {
+				return i == firstLength && j == secondLength;
+			}
+			if (first.charAt(i++) != second.charAt(j++)) {
+				return false;
+			}
+		}
+	}
+
+	//line breaks, null characters, and the whitespaces matched by the regex "\\s"
+	private static boolean isSpacing(char c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == '\u000B' || c == '\u0000';
+	}
+
+	/**
+	 * Extracts the merge conflicts of a string representation of merged code.
+	 * Conflicts of the outputs of a merge are better taken from its context, which indexes them only once,
+	 * see {@link MergeContext#getUnstructuredConflicts()}.
+	 * @param mergedCode
+	 * @return list o merge conflicts
+	 */
+	public static List<MergeConflict> extractMergeConflicts(String mergedCode) {
+		return new ArrayList<MergeConflict>(new ConflictIndex(mergedCode, MergeOptions.fromCommandLine()).getConflicts());
 	}
 
 	/**
@@ -611,29 +590,26 @@ public final class FilesManager {
 		boolean result = true;
 
 		//reading files content
-		String auxleft = FilesManager.readFileContent(left);
-		String leftcontent = (auxleft == null)?"":auxleft;
-		String leftcontenttrim = (auxleft == null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxleft);
+		FileSnapshot leftsnapshot = context.getSnapshot(left);
+		String leftcontent = leftsnapshot.getContent();
 
-		String auxright = FilesManager.readFileContent(right);
-		String rightcontent= (auxright == null)?"":auxright;
-		String rightcontenttrim= (auxright== null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxright);
+		FileSnapshot rightsnapshot = context.getSnapshot(right);
+		String rightcontent = rightsnapshot.getContent();
 
-		String auxbase = FilesManager.readFileContent(base);
-		String basecontentrim = (auxbase == null)?"":FilesManager.getStringContentIntoSingleLineNoSpacing(auxbase);
+		FileSnapshot basesnapshot = context.getSnapshot(base);
 
 		//comparing files content
-		if(basecontentrim.equals(leftcontenttrim)){
+		if(areEqualIgnoringSpacing(basesnapshot, leftsnapshot)){
 			//result is right
 			context.semistructuredOutput = rightcontent;
 			context.unstructuredOutput = rightcontent;
 			result = false;
-		} else if(basecontentrim.equals(rightcontenttrim)){
+		} else if(areEqualIgnoringSpacing(basesnapshot, rightsnapshot)){
 			//result is left
 			context.semistructuredOutput = leftcontent;
 			context.unstructuredOutput = leftcontent;
 			result = false;
-		} else if(leftcontenttrim.equals(rightcontenttrim)){
+		} else if(areEqualIgnoringSpacing(leftsnapshot, rightsnapshot)){
 			//result is both left or right
 			context.semistructuredOutput = leftcontent;
 			context.unstructuredOutput = leftcontent;
@@ -10,7 +10,6 @@ import java.util.List;
 
 import org.apache.commons.io.FileUtils;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.ExceptionUtils;
 import br.ufpe.cin.exceptions.PrintException;
 import br.ufpe.cin.files.FilesManager;
@@ -33,7 +32,7 @@ public class LoggerStatistics {
 
 			FileUtils.write(statisticsLog, logentry, true);
 
-			if(JFSTMerge.logFiles){
+			if(context.getOptions().logFiles()){
 				//logging merged files for further analysis
 				logFiles(timeStamp,context);
 			}
@@ -0,0 +1,198 @@
+package br.ufpe.cin.mergers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.function.BiPredicate;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+
+/**
+ * Ordered children of a non-terminal node, indexed by type and name.
+ * Superimposition looks up, for every child of a node, its correspondent among the children of another node.
+ * Scanning the children as {@link de.ovgu.cide.fstgen.ast.FSTNonTerminal#getCompatibleChild(FSTNode)} and
+ * {@link List#indexOf(Object)} do makes superimposition quadratic in the number of members of a class.
+ * With this index, lookups and insertions next to a given child take constant time, while still
+ * returning the first matching child, as the scans do.
+ * @author Guilherme
+ */
+final class ChildrenIndex implements Iterable<FSTNode> {
+
+	private static final BiPredicate<FSTNode, FSTNode> COMPATIBLE = (child, node) -> child.compatibleWith(node);
+	private static final BiPredicate<FSTNode, FSTNode> EQUAL = (child, node) -> node.equals(child);
+
+	//sentinel of the circular list of positions
+	private final Position head = new Position(null);
+
+	//positions of the children of each type and name, in insertion order
+	private final Map<Key, List<Position>> positionsByKey = new HashMap<>();
+
+	//while children are only added at the end, insertion order is also the order of the children
+	private boolean insertedInOrder = true;
+
+	ChildrenIndex() {
+		head.previous = head;
+		head.next = head;
+	}
+
+	ChildrenIndex(List<FSTNode> children) {
+		this();
+		for (FSTNode child : children) {
+			add(child);
+		}
+	}
+
+	/**
+	 * @param node
+	 * @return the first child compatible with the given node, as {@link de.ovgu.cide.fstgen.ast.FSTNonTerminal#getCompatibleChild(FSTNode)}, or null
+	 */
+	FSTNode getCompatibleChild(FSTNode node) {
+		Position position = find(node, COMPATIBLE);
+		return (position != null) ? position.node : null;
+	}
+
+	/**
+	 * Adds a child at the end.
+	 * @param child to be added, ignored if null
+	 */
+	void add(FSTNode child) {
+		if (child != null) {
+			insertBefore(head, child);
+		}
+	}
+
+	/**
+	 * Adds a child right after the first child equal to the given neighbour.
+	 * @return <b>true</b> if the child was added, <b>false</b> if there is no such neighbour
+	 */
+	boolean addAfter(FSTNode child, FSTNode neighbour) {
+		Position position = find(neighbour, EQUAL);
+		if (position == null) {
+			return false;
+		}
+		insertBefore(position.next, child);
+		return true;
+	}
+
+	/**
+	 * Adds a child right before the first child equal to the given neighbour.
+	 * @return <b>true</b> if the child was added, <b>false</b> if there is no such neighbour
+	 */
+	boolean addBefore(FSTNode child, FSTNode neighbour) {
+		Position position = find(neighbour, EQUAL);
+		if (position == null) {
+			return false;
+		}
+		insertBefore(position, child);
+		return true;
+	}
+
+	@Override
+	public Iterator<FSTNode> iterator() {
+		return new Iterator<FSTNode>() {
+			private Position current = head.next;
+
+			@Override
+			public boolean hasNext() {
+				return current != head;
+			}
+
+			@Override
+			public FSTNode next() {
+				if (current == head) {
+					throw new NoSuchElementException();
+				}
+				FSTNode node = current.node;
+				current = current.next;
+				return node;
+			}
+		};
+	}
+
+	private void insertBefore(Position successor, FSTNode child) {
+		insertedInOrder &= (successor == head);
+		Position position = new Position(child);
+		position.previous = successor.previous;
+		position.next = successor;
+		successor.previous.next = position;
+		successor.previous = position;
+		positionsByKey.computeIfAbsent(new Key(child), k -> new ArrayList<>(1)).add(position);
+	}
+
+	/*
+	 * Finds the first position whose child matches the given node. Matching nodes share type and name,
+	 * so only the children indexed under the node's key are candidates. When the order of several candidates
+	 * is unknown, or no candidate matches, the children are scanned in order, as before indexing.
+	 */
+	private Position find(FSTNode node, BiPredicate<FSTNode, FSTNode> matches) {
+		List<Position> candidates = positionsByKey.get(new Key(node));
+		if (candidates == null) {
+			return matchesOnlySameKey(node) ? null : scan(node, matches);
+		}
+		if (candidates.size() == 1 || insertedInOrder) {
+			for (Position candidate : candidates) {
+				if (matches.test(candidate.node, node)) {
+					return candidate;
+				}
+			}
+		}
+		return scan(node, matches);
+	}
+
+	private Position scan(FSTNode node, BiPredicate<FSTNode, FSTNode> matches) {
+		for (Position position = head.next; position != head; position = position.next) {
+			if (matches.test(position.node, node)) {
+				return position;
+			}
+		}
+		return null;
+	}
+
+	/*
+	 * Nodes of different types or names are neither compatible nor equal, so a node whose key is
+	 * absent has no match. The name of a node might be null, in which case we do not rely on its key.
+	 */
+	private static boolean matchesOnlySameKey(FSTNode node) {
+		return node.getType() != null && node.getName() != null;
+	}
+
+	private static final class Position {
+		private final FSTNode node;
+		private Position previous;
+		private Position next;
+
+		Position(FSTNode node) {
+			this.node = node;
+		}
+	}
+
+	private static final class Key {
+		private final String type;
+		private final String name;
+		private final int hash;
+
+		Key(FSTNode node) {
+			this.type = node.getType();
+			this.name = node.getName();
+			this.hash = 31 * String.valueOf(type).hashCode() + String.valueOf(name).hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) object;
+			return hash == other.hash && Objects.equals(type, other.type) && Objects.equals(name, other.name);
+		}
+	}
+}
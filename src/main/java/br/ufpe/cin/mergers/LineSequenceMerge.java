@@ -0,0 +1,340 @@
+package br.ufpe.cin.mergers;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.Sequence;
+import org.eclipse.jgit.diff.SequenceComparator;
+import org.eclipse.jgit.merge.MergeAlgorithm;
+import org.eclipse.jgit.merge.MergeChunk;
+import org.eclipse.jgit.merge.MergeChunk.ConflictState;
+import org.eclipse.jgit.merge.MergeResult;
+
+import br.ufpe.cin.mergers.util.DiffAlgorithmType;
+import br.ufpe.cin.mergers.util.MergeOptions;
+
+/**
+ * Line-based textual merge of contents already in memory, such as the bodies of superimposed terminals.
+ * Merging them through {@link org.eclipse.jgit.diff.RawText} encodes every content into bytes and decodes the
+ * merged bytes back into a string, for every terminal. Here the lines are ranges of the contents themselves,
+ * and each thread reuses its merge algorithms, its line sequences and its output buffer across merges.
+ * The output is the same as JGit's {@link org.eclipse.jgit.merge.MergeFormatter}, conflict markers included.
+ * @author Guilherme
+ */
+final class LineSequenceMerge {
+
+	private static final String BASE_NAME = "BASE";
+	private static final String LEFT_NAME = "MINE";
+	private static final String RIGHT_NAME = "YOURS";
+
+	//output buffers grown beyond this capacity by a large merge are not kept for the next merges
+	private static final int MAX_RETAINED_OUTPUT_CAPACITY = 1 << 16;
+
+	//compares lines as they are, line terminator included, as RawTextComparator.DEFAULT does
+	private static final LineComparator DEFAULT = new LineComparator() {
+		@Override
+		public boolean equals(LineSequence a, int ai, LineSequence b, int bi) {
+			int aStart = a.getStart(ai);
+			int bStart = b.getStart(bi);
+			int length = a.getEnd(ai) - aStart;
+			if (length != b.getEnd(bi) - bStart) {
+				return false;
+			}
+			for (int i = 0; i < length; i++) {
+				if (a.content.charAt(aStart + i) != b.content.charAt(bStart + i)) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hash(LineSequence sequence, int line) {
+			int hash = 5381;
+			for (int i = sequence.getStart(line), end = sequence.getEnd(line); i < end; i++) {
+				hash = ((hash << 5) + hash) + sequence.content.charAt(i);
+			}
+			return hash;
+		}
+	};
+
+	//compares lines ignoring all their spacing, as RawTextComparator.WS_IGNORE_ALL does
+	private static final LineComparator WS_IGNORE_ALL = new LineComparator() {
+		@Override
+		public boolean equals(LineSequence a, int ai, LineSequence b, int bi) {
+			int aIndex = a.getStart(ai);
+			int bIndex = b.getStart(bi);
+			int aEnd = a.getEnd(ai);
+			int bEnd = b.getEnd(bi);
+			while (true) {
+				while (aIndex < aEnd && isWhitespace(a.content.charAt(aIndex))) {
+					aIndex++;
+				}
+				while (bIndex < bEnd && isWhitespace(b.content.charAt(bIndex))) {
+					bIndex++;
+				}
+				if (aIndex == aEnd || bIndex == bEnd) {
+					return aIndex == aEnd && bIndex == bEnd;
+				}
+				if (a.content.charAt(aIndex++) != b.content.charAt(bIndex++)) {
+					return false;
+				}
+			}
+		}
+
+		@Override
+		public int hash(LineSequence sequence, int line) {
+			int hash = 5381;
+			for (int i = sequence.getStart(line), end = sequence.getEnd(line); i < end; i++) {
+				char c = sequence.content.charAt(i);
+				if (!isWhitespace(c)) {
+					hash = ((hash << 5) + hash) + c;
+				}
+			}
+			return hash;
+		}
+	};
+
+	//merge settings and buffers of each thread, as directories might be merged in parallel
+	private static final ThreadLocal<LineSequenceMerge> workspace = ThreadLocal.withInitial(LineSequenceMerge::new);
+
+	private final Map<DiffAlgorithmType, MergeAlgorithm> mergeAlgorithms = new EnumMap<>(DiffAlgorithmType.class);
+	private final LineSequence left = new LineSequence();
+	private final LineSequence base = new LineSequence();
+	private final LineSequence right = new LineSequence();
+	private final StringBuilder output = new StringBuilder();
+
+	//whether the output is at the beginning of a line, as tracked by JGit's EolAwareOutputStream
+	private boolean beginningOfLine;
+
+	private LineSequenceMerge() {
+	}
+
+	/**
+	 * Merges textually three contents.
+	 * @param leftContent
+	 * @param baseContent
+	 * @param rightContent
+	 * @param ignoreWhiteSpaces to avoid false positives conflicts due to different spacings.
+	 * @param options settings of the current merge, such as the diff algorithm and whether conflicts show base's contribution
+	 * @return merged content.
+	 */
+	static String merge(CharSequence leftContent, CharSequence baseContent, CharSequence rightContent, boolean ignoreWhiteSpaces, MergeOptions options) {
+		LineSequenceMerge merge = workspace.get();
+		try {
+			return merge.mergeContents(leftContent, baseContent, rightContent, ignoreWhiteSpaces, options);
+		} finally {
+			merge.clear();
+		}
+	}
+
+	private String mergeContents(CharSequence leftContent, CharSequence baseContent, CharSequence rightContent, boolean ignoreWhiteSpaces, MergeOptions options) {
+		left.reset(leftContent);
+		base.reset(baseContent);
+		right.reset(rightContent);
+		MergeAlgorithm mergeAlgorithm = mergeAlgorithms.computeIfAbsent(options.getDiffAlgorithm(), algorithm -> new MergeAlgorithm(algorithm.getImplementation()));
+		MergeResult<LineSequence> result = mergeAlgorithm.merge((ignoreWhiteSpaces) ? WS_IGNORE_ALL : DEFAULT, base, left, right);
+		format(result, options.showBase());
+		return output.toString();
+	}
+
+	/*
+	 * Writes the merge result as MergeFormatter does: conflicting ranges are delimited by markers, lines
+	 * are written with a single line feed, and the output ends with a line feed unless the content of the
+	 * last written range does not.
+	 */
+	private void format(MergeResult<LineSequence> result, boolean showBase) {
+		String lastConflictingName = null;
+		boolean missingNewlineAtEnd = false;
+		beginningOfLine = true;
+		for (MergeChunk chunk : result) {
+			ConflictState state = chunk.getConflictState();
+			if (state == ConflictState.BASE_CONFLICTING_RANGE && !showBase) {
+				continue;
+			}
+			if (lastConflictingName != null && state != ConflictState.NEXT_CONFLICTING_RANGE && state != ConflictState.BASE_CONFLICTING_RANGE) {
+				writeMarker(">>>>>>> ", lastConflictingName);
+				lastConflictingName = null;
+			}
+			if (state == ConflictState.FIRST_CONFLICTING_RANGE) {
+				lastConflictingName = nameOf(chunk.getSequenceIndex());
+				writeMarker("<<<<<<< ", lastConflictingName);
+			} else if (state == ConflictState.NEXT_CONFLICTING_RANGE) {
+				lastConflictingName = nameOf(chunk.getSequenceIndex());
+				writeMarker("=======", "");
+			} else if (state == ConflictState.BASE_CONFLICTING_RANGE) {
+				lastConflictingName = nameOf(chunk.getSequenceIndex());
+				writeMarker("||||||| ", lastConflictingName);
+			}
+			LineSequence sequence = result.getSequences().get(chunk.getSequenceIndex());
+			for (int line = chunk.getBegin(); line < chunk.getEnd(); line++) {
+				writeLine(sequence, line);
+			}
+			missingNewlineAtEnd = sequence.isMissingNewlineAtEnd();
+		}
+		if (lastConflictingName != null) {
+			writeMarker(">>>>>>> ", lastConflictingName);
+		}
+		if (!missingNewlineAtEnd) {
+			beginLine();
+		}
+	}
+
+	private static String nameOf(int sequenceIndex) {
+		switch (sequenceIndex) {
+		case 0:
+			return BASE_NAME;
+		case 1:
+			return LEFT_NAME;
+		default:
+			return RIGHT_NAME;
+		}
+	}
+
+	private void writeMarker(String marker, String name) {
+		beginLine();
+		output.append(marker).append(name).append('\n');
+	}
+
+	private void writeLine(LineSequence sequence, int line) {
+		beginLine();
+		int start = sequence.getStart(line);
+		int end = sequence.getEnd(line);
+		if (sequence.content.charAt(end - 1) == '\n') {
+			end--;
+		}
+		if (start < end) {
+			output.append(sequence.content, start, end);
+			beginningOfLine = false;
+		} else {
+			output.append('\n');
+		}
+	}
+
+	private void beginLine() {
+		if (!beginningOfLine) {
+			output.append('\n');
+			beginningOfLine = true;
+		}
+	}
+
+	private void clear() {
+		left.reset("");
+		base.reset("");
+		right.reset("");
+		output.setLength(0);
+		if (output.capacity() > MAX_RETAINED_OUTPUT_CAPACITY) {
+			output.trimToSize();
+		}
+	}
+
+	//same whitespace characters as org.eclipse.jgit.util.RawCharUtil
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r';
+	}
+
+	/**
+	 * Comparator of lines that, before comparing lines, strips the common start and end of the contents as
+	 * RawTextComparator does: exactly, character by character, and then line by line with the comparator.
+	 * Which of several equivalent lines are taken as common depends on this order, so it is kept as is.
+	 */
+	private abstract static class LineComparator extends SequenceComparator<LineSequence> {
+
+		@Override
+		public Edit reduceCommonStartEnd(LineSequence a, LineSequence b, Edit edit) {
+			if (edit.getBeginA() == edit.getEndA() || edit.getBeginB() == edit.getEndB()) {
+				return edit;
+			}
+			int aStart = a.getStart(edit.getBeginA());
+			int bStart = b.getStart(edit.getBeginB());
+			int aEnd = a.getStart(edit.getEndA());
+			int bEnd = b.getStart(edit.getEndB());
+			while (aStart < aEnd && bStart < bEnd && a.content.charAt(aStart) == b.content.charAt(bStart)) {
+				aStart++;
+				bStart++;
+			}
+			while (aStart < aEnd && bStart < bEnd && a.content.charAt(aEnd - 1) == b.content.charAt(bEnd - 1)) {
+				aEnd--;
+				bEnd--;
+			}
+			int beginA = findForwardLine(a, edit.getBeginA(), aStart);
+			int beginB = findForwardLine(b, edit.getBeginB(), bStart);
+			int endA = findReverseLine(a, edit.getEndA(), aEnd);
+
+			//the common end might start in the middle of a line
+			boolean partialA = aEnd < a.getStart(endA);
+			if (partialA) {
+				bEnd += a.getStart(endA) - aEnd;
+			}
+			int endB = findReverseLine(b, edit.getEndB(), bEnd);
+			if (!partialA && bEnd < b.getStart(endB)) {
+				endA++;
+			}
+			return super.reduceCommonStartEnd(a, b, new Edit(beginA, endA, beginB, endB));
+		}
+
+		private static int findForwardLine(LineSequence sequence, int line, int position) {
+			while (line < sequence.size() && sequence.getEnd(line) < position) {
+				line++;
+			}
+			return line;
+		}
+
+		private static int findReverseLine(LineSequence sequence, int line, int position) {
+			while (0 < line && position <= sequence.getStart(line - 1)) {
+				line--;
+			}
+			return line;
+		}
+	}
+
+	/**
+	 * Lines of a content, each one a range of the content that includes its line feed, if any.
+	 */
+	static final class LineSequence extends Sequence {
+
+		private CharSequence content = "";
+
+		//starts of the lines, followed by the end of the content
+		private int[] lineStarts = new int[16];
+		private int size;
+
+		void reset(CharSequence content) {
+			this.content = content;
+			int length = content.length();
+			size = 0;
+			for (int start = 0; start < length; size++) {
+				addLineStart(start);
+				while (start < length && content.charAt(start++) != '\n') {
+				}
+			}
+			addLineStart(length);
+		}
+
+		private void addLineStart(int start) {
+			if (size == lineStarts.length) {
+				lineStarts = Arrays.copyOf(lineStarts, size * 2);
+			}
+			lineStarts[size] = start;
+		}
+
+		int getStart(int line) {
+			return lineStarts[line];
+		}
+
+		int getEnd(int line) {
+			return lineStarts[line + 1];
+		}
+
+		boolean isMissingNewlineAtEnd() {
+			return size == 0 || content.charAt(content.length() - 1) != '\n';
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+}
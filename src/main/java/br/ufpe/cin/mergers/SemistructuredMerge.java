@@ -3,28 +3,36 @@ package br.ufpe.cin.mergers;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableList;
 import org.apache.commons.lang3.tuple.Pair;
-import org.apache.commons.lang3.tuple.Triple;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.ExceptionUtils;
 import br.ufpe.cin.exceptions.SemistructuredMergeException;
 import br.ufpe.cin.exceptions.TextualMergeException;
+import br.ufpe.cin.files.FileSnapshot;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.handlers.ConflictHandler;
 import br.ufpe.cin.mergers.handlers.DeletionsHandler;
 import br.ufpe.cin.mergers.handlers.DuplicatedDeclarationHandler;
+import br.ufpe.cin.mergers.handlers.HandlerScheduler;
 import br.ufpe.cin.mergers.handlers.InitializationBlocksHandler;
 import br.ufpe.cin.mergers.handlers.InitializationBlocksHandlerMultipleBlocks;
 import br.ufpe.cin.mergers.handlers.LegacyMethodAndConstructorRenamingAndDeletionHandler;
 import br.ufpe.cin.mergers.handlers.MethodAndConstructorRenamingAndDeletionHandler;
 import br.ufpe.cin.mergers.handlers.NewElementReferencingEditedOneHandler;
 import br.ufpe.cin.mergers.handlers.TypeAmbiguityErrorHandler;
+import br.ufpe.cin.mergers.util.Contributions;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
 import br.ufpe.cin.mergers.util.RenamingUtils;
+import br.ufpe.cin.mergers.util.StageExecutor;
 import br.ufpe.cin.parser.JParser;
 import br.ufpe.cin.printers.Prettyprinter;
 import cide.gparser.ParseException;
@@ -46,29 +54,26 @@ public final class SemistructuredMerge {
 		Left_Base, LeftBase_Right
 	}
 
-	static final String MERGE_SEPARATOR = "##FSTMerge##";
-	static final String SEMANTIC_MERGE_MARKER = "~~FSTMerge~~";
-
-	private static List<ConflictHandler> assembleListOfHandlers() {
+	private static List<ConflictHandler> assembleListOfHandlers(MergeOptions options) {
 		ImmutableList.Builder<ConflictHandler> builder = new ImmutableList.Builder<>();
 
-		if (JFSTMerge.isTypeAmbiguityErrorHandlerEnabled)
+		if (options.isTypeAmbiguityErrorHandlerEnabled())
 			builder.add(new TypeAmbiguityErrorHandler());
 
-		if (JFSTMerge.isNewElementReferencingEditedOneHandlerEnabled)
+		if (options.isNewElementReferencingEditedOneHandlerEnabled())
 			builder.add(new NewElementReferencingEditedOneHandler());
 
-		if(JFSTMerge.isMethodAndConstructorRenamingAndDeletionHandlerEnabled)
-			builder.add(new MethodAndConstructorRenamingAndDeletionHandler());
+		if(options.isMethodAndConstructorRenamingAndDeletionHandlerEnabled())
+			builder.add(new MethodAndConstructorRenamingAndDeletionHandler(options.getRenamingStrategy()));
     
-    if(!JFSTMerge.isInitializationBlocksHandlerEnabled && 
-				JFSTMerge.isInitializationBlocksHandlerMultipleBlocksEnabled)
+    if(!options.isInitializationBlocksHandlerEnabled() && 
+				options.isInitializationBlocksHandlerMultipleBlocksEnabled())
       builder.add(new InitializationBlocksHandlerMultipleBlocks());
 
-		if (JFSTMerge.isInitializationBlocksHandlerEnabled)
+		if (options.isInitializationBlocksHandlerEnabled())
 			builder.add(new InitializationBlocksHandler());
 
-		if (JFSTMerge.isDuplicatedDeclarationHandlerEnabled)
+		if (options.isDuplicatedDeclarationHandlerEnabled())
 			builder.add(new DuplicatedDeclarationHandler());
 
 		builder.add(new DeletionsHandler());
@@ -90,35 +95,74 @@ public final class SemistructuredMerge {
 	 */
 	public static String merge(File left, File base, File right, MergeContext context)
 			throws SemistructuredMergeException, TextualMergeException {
-		return merge(left, base, right, context, assembleListOfHandlers());
+		return merge(left, base, right, context, assembleListOfHandlers(context.getOptions()));
 	}
 
 	public static String merge(File left, File base, File right, MergeContext context,
 			List<ConflictHandler> conflictHandlers) throws SemistructuredMergeException, TextualMergeException {
+		return merge(parse(left, base, right, context), context, conflictHandlers);
+	}
+
+	/**
+	 * Three-way semistructured merge of three files already being parsed by {@link #parse(File, File, File, MergeContext)}.
+	 * 
+	 * @param files being parsed
+	 * @param context an empty MergeContext to store relevant information of the
+	 *                merging process.
+	 * @return string representing the merge result.
+	 * @throws SemistructuredMergeException
+	 * @throws TextualMergeException
+	 */
+	public static String merge(ParsedFiles files, MergeContext context)
+			throws SemistructuredMergeException, TextualMergeException {
+		return merge(files, context, assembleListOfHandlers(context.getOptions()));
+	}
+
+	private static String merge(ParsedFiles files, MergeContext context,
+			List<ConflictHandler> conflictHandlers) throws SemistructuredMergeException, TextualMergeException {
 		try {
-			// parsing the files to be merged
-			JParser parser = new JParser();
-			FSTNode leftTree = parser.parse(left);
-			FSTNode baseTree = parser.parse(base);
-			FSTNode rightTree = parser.parse(right);
+			// waiting for the parsing of the files to be merged
+			FSTNode leftTree = files.join(files.left);
+			FSTNode baseTree = files.join(files.base);
+			FSTNode rightTree = files.join(files.right);
 
 			// merging
-			context.join(merge(leftTree, baseTree, rightTree));
-
-			// handling special kinds of conflicts
-			context.semistructuredOutput = Prettyprinter.print(context.superImposedTree); // partial result of
-																							// semistructured merge is
-																							// necessary for further
-																							// processing
-			for (ConflictHandler conflictHandler : conflictHandlers) {
-
-				try {
-					conflictHandler.handle(context);
-				} catch (TextualMergeException e) {
-					String message = ExceptionUtils.getCauseMessage(e);
-					throw new SemistructuredMergeException(message, context);
-				}
+			context.join(merge(leftTree, baseTree, rightTree, context.getOptions()));
 
+			// handling special kinds of conflicts, except for the statistics ones, see handleStatistics(MergeContext)
+			if (context.getOptions().isTypeAmbiguityErrorHandlerEnabled()) {
+				context.separateAddedImportStatements();
+			}
+			List<ConflictHandler> mergeHandlers = conflictHandlers.stream().filter(handler -> !handler.producesStatisticsOnly())
+					.collect(Collectors.toList());
+			if (mergeHandlers.stream().anyMatch(ConflictHandler::readsIntermediateOutput)) {
+				context.semistructuredOutput = Prettyprinter.print(context.superImposedTree); // partial result of
+																								// semistructured merge is
+																								// necessary for further
+																								// processing
+			}
+			try {
+				if (context.getOptions().isParallelHandlersEnabled()) {
+					try {
+						HandlerScheduler.handle(mergeHandlers, context);
+					} catch (TextualMergeException e) {
+						String message = ExceptionUtils.getCauseMessage(e);
+						throw new SemistructuredMergeException(message, context);
+					}
+				} else {
+					for (ConflictHandler conflictHandler : mergeHandlers) {
+
+						try {
+							conflictHandler.handle(context);
+						} catch (TextualMergeException e) {
+							String message = ExceptionUtils.getCauseMessage(e);
+							throw new SemistructuredMergeException(message, context);
+						}
+
+					}
+				}
+			} finally {
+				context.getCompilationService().clear(); // compiled sources are only needed by the handlers
 			}
 
 		} catch (ParseException | FileNotFoundException | UnsupportedEncodingException | TokenMgrError ex) {
@@ -133,33 +177,106 @@ public final class SemistructuredMerge {
 		return Prettyprinter.print(context.superImposedTree);
 	}
 
+	/**
+	 * Starts the handlers that only produce statistics in background, as they do not change the merge result and
+	 * read nothing {@link #merge(ParsedFiles, MergeContext)} produces. They start as soon as the unstructured output
+	 * is available, so their compilations run alongside the semistructured merge instead of after it.
+	 * 
+	 * @param context of the merge of the files, holding the unstructured output
+	 * @return the pending run of the handlers, whose failures only affect the statistics
+	 */
+	public static Future<Void> handleStatistics(MergeContext context) {
+		List<ConflictHandler> statisticsHandlers = assembleListOfHandlers(context.getOptions()).stream()
+				.filter(ConflictHandler::producesStatisticsOnly).collect(Collectors.toList());
+		return StageExecutor.submit(() -> {
+			for (ConflictHandler conflictHandler : statisticsHandlers) {
+				conflictHandler.handle(context);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Starts parsing the three given files in background, one per thread, so other steps of the merge
+	 * (such as the unstructured merge) can run meanwhile. The trees are retrieved by {@link #merge(ParsedFiles, MergeContext)}.
+	 * 
+	 * @param left
+	 * @param base
+	 * @param right
+	 * @param context of the merge of the files
+	 * @return the files being parsed
+	 */
+	public static ParsedFiles parse(File left, File base, File right, MergeContext context) {
+		return new ParsedFiles(parseInBackground(context.getSnapshot(left), context.getOptions()),
+				parseInBackground(context.getSnapshot(base), context.getOptions()),
+				parseInBackground(context.getSnapshot(right), context.getOptions()));
+	}
+
+	private static Future<FSTNode> parseInBackground(FileSnapshot snapshot, MergeOptions options) {
+		return StageExecutor.submit(() -> new JParser(options).parse(snapshot));
+	}
+
+	/**
+	 * Three files being parsed in background.
+	 */
+	public static final class ParsedFiles {
+		private final Future<FSTNode> left;
+		private final Future<FSTNode> base;
+		private final Future<FSTNode> right;
+
+		private ParsedFiles(Future<FSTNode> left, Future<FSTNode> base, Future<FSTNode> right) {
+			this.left = left;
+			this.base = base;
+			this.right = right;
+		}
+
+		private FSTNode join(Future<FSTNode> tree) throws ParseException, FileNotFoundException, UnsupportedEncodingException {
+			try {
+				return StageExecutor.join(tree);
+			} catch (ParseException | FileNotFoundException | UnsupportedEncodingException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) { //the parser throws no other checked exception
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
 	/**
 	 * Merges the AST representation of previous given java files.
 	 * 
 	 * @param left  tree
 	 * @param base  tree
 	 * @param right tree
+	 * @param options settings of the merge
 	 * @throws TextualMergeException
 	 */
-	private static MergeContext merge(FSTNode left, FSTNode base, FSTNode right) throws TextualMergeException {
+	private static MergeContext merge(FSTNode left, FSTNode base, FSTNode right, MergeOptions options) throws TextualMergeException {
 		// indexes are necessary to a proper matching between nodes
 		left.index = 0;
 		base.index = 1;
 		right.index = 2;
 
-		MergeContext context = new MergeContext();
+		MergeContext context = new MergeContext(options);
 		context.leftTree = left;
 		context.baseTree = base;
 		context.rightTree = right;
 
-		FSTNode mergeLeftBase = superimpose(left, base, null, context, SuperimpositionStep.Left_Base);
-		FSTNode mergeLeftBaseRight = superimpose(mergeLeftBase, right, null, context,
-				SuperimpositionStep.LeftBase_Right);
+		// content hashes of every subtree, so those untouched by the revisions are superimposed at once
+		context.subtreeHashes.addTree(left);
+		context.subtreeHashes.addTree(base);
+		context.subtreeHashes.addTree(right);
 
-		removeRemainingBaseNodes(mergeLeftBaseRight, context);
-		mergeMatchedContent(mergeLeftBaseRight, context);
+		if (options.isSinglePassSuperimpositionEnabled() && left.compatibleWith(base) && left.compatibleWith(right)) {
+			context.superImposedTree = superimposeInOnePass(left, base, right, null, context);
+		} else {
+			FSTNode mergeLeftBase = superimpose(left, base, null, context, SuperimpositionStep.Left_Base);
+			FSTNode mergeLeftBaseRight = superimpose(mergeLeftBase, right, null, context,
+					SuperimpositionStep.LeftBase_Right);
 
-		context.superImposedTree = mergeLeftBaseRight;
+			removeRemainingBaseNodes(mergeLeftBaseRight, context);
+			context.superImposedTree = mergeLeftBaseRight;
+		}
+		mergeMatchedContent(context.superImposedTree, context);
 
 		return context;
 	}
@@ -180,6 +297,9 @@ public final class SemistructuredMerge {
 		if (!nodeA.compatibleWith(nodeB))
 			return null;
 
+		if (context.subtreeHashes.haveSameContent(nodeA, nodeB))
+			return superimposeIdenticalSubtrees(nodeA, nodeB, parent, context, step);
+
 		// Setting up superimposed node.
 		FSTNode result = nodeA.getShallowClone();
 		result.index = nodeB.index;
@@ -190,7 +310,7 @@ public final class SemistructuredMerge {
 			FSTTerminal terminalB = (FSTTerminal) nodeB;
 			FSTTerminal terminalResult = (FSTTerminal) result;
 
-			return superimposeTerminals(terminalA, terminalB, step, terminalResult);
+			return superimposeTerminals(terminalA, terminalB, context, step, terminalResult);
 		}
 
 		else if (areBothNonTerminals(nodeA, nodeB)) {
@@ -204,6 +324,220 @@ public final class SemistructuredMerge {
 		return null;
 	}
 
+	/*
+	 * Identical subtrees are taken as they are, with the same indexes and contributions that superimposing them
+	 * node by node would give, as nothing inside them was added, deleted or edited. A subtree untouched by left
+	 * keeps its hashes, so the second superimposition might take it at once too.
+	 */
+	private static FSTNode superimposeIdenticalSubtrees(FSTNode nodeA, FSTNode nodeB, FSTNonTerminal parent,
+			MergeContext context, SuperimpositionStep step) {
+		FSTNode result = nodeA.getDeepClone();
+		result.setParent(parent);
+		if (step == SuperimpositionStep.Left_Base) {
+			context.subtreeHashes.addCopy(nodeA, result);
+		}
+		collectIdenticalSubtreesContributions(nodeA, nodeB, result, nodeB.index, context, step);
+		return result;
+	}
+
+	private static void collectIdenticalSubtreesContributions(FSTNode nodeA, FSTNode nodeB, FSTNode result, int index,
+			MergeContext context, SuperimpositionStep step) {
+		result.index = index;
+		if (result instanceof FSTNonTerminal) {
+			List<FSTNode> childrenA = ((FSTNonTerminal) nodeA).getChildren();
+			List<FSTNode> childrenB = ((FSTNonTerminal) nodeB).getChildren();
+			List<FSTNode> resultChildren = ((FSTNonTerminal) result).getChildren();
+			for (int i = 0; i < resultChildren.size(); i++) {
+				collectIdenticalSubtreesContributions(childrenA.get(i), childrenB.get(i), resultChildren.get(i), index,
+						context, step);
+			}
+		} else {
+			superimposeTerminals((FSTTerminal) nodeA, (FSTTerminal) nodeB, context, step, (FSTTerminal) result);
+		}
+	}
+
+	/**
+	 * Superimposes three given ASTs at once, as an alternative to superimposing left and base first,
+	 * and then their superimposition and right. Nodes present in the three trees are matched in a single
+	 * walk, without building the intermediate tree of the first step, and the merged tree and the merge
+	 * context are filled as the two steps would fill them. Nodes added or deleted by left are still copied
+	 * as in the first step, and subtrees missing from one of the trees are superimposed by the usual steps.
+	 * Nodes deleted by both revisions are left out of the merged tree straight away.
+	 * 
+	 * @param left   tree
+	 * @param base   tree
+	 * @param right  tree
+	 * @param parent node to be superimposed in or null when the nodes are roots
+	 * @param context
+	 * @return superimposed tree
+	 */
+	private static FSTNode superimposeInOnePass(FSTNode left, FSTNode base, FSTNode right, FSTNonTerminal parent,
+			MergeContext context) {
+		if (context.subtreeHashes.haveSameContent(left, base) && context.subtreeHashes.haveSameContent(base, right))
+			return superimposeIdenticalSubtrees(left, base, right, parent, context);
+
+		FSTNode result = left.getShallowClone();
+		result.index = right.index;
+		result.setParent(parent);
+
+		if (left instanceof FSTTerminal && base instanceof FSTTerminal && right instanceof FSTTerminal) {
+			if (!((FSTTerminal) left).getMergingMechanism().equals("Default")) {
+				context.contributions.put(result, new Contributions().setLeft((FSTTerminal) left)
+						.setBase((FSTTerminal) base).setRight((FSTTerminal) right));
+			}
+			return result;
+		}
+
+		else if (left instanceof FSTNonTerminal && base instanceof FSTNonTerminal && right instanceof FSTNonTerminal) {
+			superimposeChildrenInOnePass((FSTNonTerminal) left, (FSTNonTerminal) base, (FSTNonTerminal) right,
+					(FSTNonTerminal) result, context);
+			return result;
+		}
+
+		return null;
+	}
+
+	private static FSTNode superimposeIdenticalSubtrees(FSTNode left, FSTNode base, FSTNode right, FSTNonTerminal parent,
+			MergeContext context) {
+		FSTNode result = left.getDeepClone();
+		result.setParent(parent);
+		collectIdenticalSubtreesContributions(left, base, right, result, right.index, context);
+		return result;
+	}
+
+	private static void collectIdenticalSubtreesContributions(FSTNode left, FSTNode base, FSTNode right, FSTNode result,
+			int index, MergeContext context) {
+		result.index = index;
+		if (result instanceof FSTNonTerminal) {
+			List<FSTNode> leftChildren = ((FSTNonTerminal) left).getChildren();
+			List<FSTNode> baseChildren = ((FSTNonTerminal) base).getChildren();
+			List<FSTNode> rightChildren = ((FSTNonTerminal) right).getChildren();
+			List<FSTNode> resultChildren = ((FSTNonTerminal) result).getChildren();
+			for (int i = 0; i < resultChildren.size(); i++) {
+				collectIdenticalSubtreesContributions(leftChildren.get(i), baseChildren.get(i), rightChildren.get(i),
+						resultChildren.get(i), index, context);
+			}
+		} else if (!((FSTTerminal) left).getMergingMechanism().equals("Default")) {
+			context.contributions.put(result, new Contributions().setLeft((FSTTerminal) left).setBase((FSTTerminal) base)
+					.setRight((FSTTerminal) right));
+		}
+	}
+
+	/*
+	 * The children of left and base are ordered as the first step would order them, and the right children are then
+	 * matched against them, as in the second step. Children present in the three trees are superimposed in one pass.
+	 */
+	private static void superimposeChildrenInOnePass(FSTNonTerminal left, FSTNonTerminal base, FSTNonTerminal right,
+			FSTNonTerminal result, MergeContext context) {
+		Map<FSTNode, FSTNode> leftCorrespondents = new IdentityHashMap<>();
+		List<FSTNode> leftBaseChildren = orderLeftAndBaseChildren(left, base, result, context, leftCorrespondents);
+		ChildrenIndex leftBaseIndex = new ChildrenIndex(leftBaseChildren);
+		ChildrenIndex rightIndex = new ChildrenIndex(right.getChildren());
+		ChildrenIndex resultChildren = new ChildrenIndex();
+
+		for (FSTNode childRight : right.getChildren()) {
+			FSTNode childLeftBase = leftBaseIndex.getCompatibleChild(childRight);
+
+			if (childLeftBase == null) { // node added by right
+				FSTNode cloneRight = clone(right, childRight, context);
+				resultChildren.add(cloneRight);
+				context.addedRightNodes.add(cloneRight);
+
+			} else {
+				updateIndexIfMinusOne(right, childRight);
+				FSTNode childLeft = leftCorrespondents.get(childLeftBase);
+
+				if (childLeft != null) { // node present in the three trees
+					resultChildren.add(superimposeInOnePass(childLeft, childLeftBase, childRight, result, context));
+				} else { // node added by left or deleted by left, copied as in the first step
+					if (context.addedLeftNodes.contains(childLeftBase)) { // duplications
+						context.addedRightNodes.add(childRight);
+					}
+					resultChildren.add(superimpose(childLeftBase, childRight, result, context,
+							SuperimpositionStep.LeftBase_Right));
+				}
+			}
+		}
+
+		for (int i = 0; i < leftBaseChildren.size(); i++) {
+			FSTNode childLeftBase = leftBaseChildren.get(i);
+
+			if (!thereIsCorrespondentNode(rightIndex, childLeftBase)) { // node deleted by right, or added by left
+				FSTNode childLeft = leftCorrespondents.get(childLeftBase);
+				FSTNode merged = (childLeft != null)
+						? superimpose(childLeft, childLeftBase, result, context, SuperimpositionStep.Left_Base)
+						: childLeftBase; // copies of the first step are not copied again
+				if (merged == null) {
+					continue;
+				}
+				addNodeToNonTerminalNearNeighbour(merged, getLeftNeighbourNode(leftBaseChildren, i),
+						getRightNeighbourNode(leftBaseChildren, i), resultChildren);
+
+				if (!context.addedLeftNodes.contains(childLeftBase)) { // node removed by right
+					context.nodesDeletedByRight.add(merged);
+
+					if (context.nodesDeletedByLeft.contains(childLeftBase)) { // node removed by both
+						context.deletedBaseNodes.add(merged);
+					}
+				}
+			}
+		}
+
+		for (FSTNode child : resultChildren) {
+			if (context.deletedBaseNodes.contains(child)) {
+				child.setParent(result); // kept only as a neighbour of other nodes
+			} else {
+				result.addChild(child);
+			}
+		}
+	}
+
+	/*
+	 * Children of the superimposition of left and base, in the order given by the first step. A child present in both
+	 * trees is represented by its base node, mapped to its left correspondent, while children added or deleted by left
+	 * are copied and recorded in the merge context as the first step does.
+	 */
+	private static List<FSTNode> orderLeftAndBaseChildren(FSTNonTerminal left, FSTNonTerminal base, FSTNonTerminal result,
+			MergeContext context, Map<FSTNode, FSTNode> leftCorrespondents) {
+		ChildrenIndex leftIndex = new ChildrenIndex(left.getChildren());
+		ChildrenIndex baseIndex = new ChildrenIndex(base.getChildren());
+		ChildrenIndex leftBaseChildren = new ChildrenIndex();
+
+		for (FSTNode childBase : base.getChildren()) {
+			FSTNode childLeft = leftIndex.getCompatibleChild(childBase);
+
+			if (childLeft == null) { // base node deleted by left
+				FSTNode cloneBase = clone(base, childBase, context);
+				cloneBase.setParent(result);
+				leftBaseChildren.add(cloneBase);
+				context.nodesDeletedByLeft.add(cloneBase);
+
+			} else {
+				updateIndexIfMinusOne(left, childLeft);
+				updateIndexIfMinusOne(base, childBase);
+				leftBaseChildren.add(childBase);
+				leftCorrespondents.put(childBase, childLeft);
+			}
+		}
+
+		List<FSTNode> leftChildren = new ArrayList<>(left.getChildren());
+		for (int i = 0; i < leftChildren.size(); i++) {
+			FSTNode childLeft = leftChildren.get(i);
+
+			if (!thereIsCorrespondentNode(baseIndex, childLeft)) { // node added by left
+				FSTNode cloneLeft = clone(left, childLeft, context);
+				cloneLeft.setParent(result);
+				addNodeToNonTerminalNearNeighbour(cloneLeft, getLeftNeighbourNode(leftChildren, i),
+						getRightNeighbourNode(leftChildren, i), leftBaseChildren);
+				context.addedLeftNodes.add(cloneLeft);
+			}
+		}
+
+		List<FSTNode> ordered = new ArrayList<>();
+		leftBaseChildren.forEach(ordered::add);
+		return ordered;
+	}
+
 	private static boolean areBothTerminals(FSTNode nodeA, FSTNode nodeB, FSTNonTerminal parent) {
 		return nodeA instanceof FSTTerminal && nodeB instanceof FSTTerminal;
 	}
@@ -212,25 +546,24 @@ public final class SemistructuredMerge {
 		return nodeA instanceof FSTNonTerminal && nodeB instanceof FSTNonTerminal;
 	}
 
-	private static FSTNode superimposeTerminals(FSTTerminal terminalA, FSTTerminal terminalB, SuperimpositionStep step,
-			FSTTerminal result) {
+	private static FSTNode superimposeTerminals(FSTTerminal terminalA, FSTTerminal terminalB, MergeContext context,
+			SuperimpositionStep step, FSTTerminal result) {
 		if (!terminalA.getMergingMechanism().equals("Default")) {
-
-			String markedContent = markContributions(terminalA.getBody(), terminalB.getBody(), step, terminalA.index,
-					terminalB.index);
-			String markedPrefix = markContributions(terminalA.getSpecialTokenPrefix(),
-					terminalB.getSpecialTokenPrefix(), step, terminalA.index, terminalB.index);
-
-			result.setBody(markedContent);
-			result.setSpecialTokenPrefix(markedPrefix);
+			context.contributions.put(result, collectContributions(terminalA, terminalB, context, step));
 		}
 		return result;
 	}
 
 	private static FSTNode superimposeNonTerminals(FSTNonTerminal nonTerminalA, FSTNonTerminal nonTerminalB,
 			MergeContext context, SuperimpositionStep step, FSTNonTerminal result) {
-		addNewNodesFromLeftOrDeletedNodesFromRight(nonTerminalA, nonTerminalB, context, step, result);
-		addDeletedNodesFromLeftOrNewNodesFromRight(nonTerminalA, nonTerminalB, context, step, result);
+		/* The children are indexed by type and name, so classes with many members are superimposed in linear time. */
+		ChildrenIndex resultChildren = new ChildrenIndex();
+		addNewNodesFromLeftOrDeletedNodesFromRight(nonTerminalA, nonTerminalB, context, step, result, resultChildren);
+		addDeletedNodesFromLeftOrNewNodesFromRight(nonTerminalA, nonTerminalB, context, step, resultChildren);
+
+		for (FSTNode child : resultChildren) {
+			result.addChild(child);
+		}
 		return result;
 	}
 
@@ -239,15 +572,16 @@ public final class SemistructuredMerge {
 	 * the child in the superimposed node in the correct index position and update the merge context.
 	 */
 	private static void addDeletedNodesFromLeftOrNewNodesFromRight(FSTNonTerminal nonTerminalA, FSTNonTerminal nonTerminalB,
-			MergeContext context, SuperimpositionStep step, FSTNonTerminal result) {
+			MergeContext context, SuperimpositionStep step, ChildrenIndex result) {
 
-		List<FSTNode> nonTerminalAChildren = nonTerminalA.getChildren();
+		List<FSTNode> nonTerminalAChildren = new ArrayList<>(nonTerminalA.getChildren()); // random access to neighbours
+		ChildrenIndex nonTerminalBChildren = new ChildrenIndex(nonTerminalB.getChildren());
 
 		for (int i = 0; i < nonTerminalAChildren.size(); i++) {
 			FSTNode childA = nonTerminalAChildren.get(i);
 
-			if (!thereIsCorrespondentNode(nonTerminalB, childA)) { // is a new node from left, or a deleted base node in right
-				FSTNode cloneA = clone(nonTerminalA, childA);
+			if (!thereIsCorrespondentNode(nonTerminalBChildren, childA)) { // is a new node from left, or a deleted base node in right
+				FSTNode cloneA = clone(nonTerminalA, childA, context);
 
 				/* Add the node to the superimposed tree in a correct index. */
 				FSTNode childALeftNeighbour = getLeftNeighbourNode(nonTerminalAChildren, i);
@@ -259,10 +593,11 @@ public final class SemistructuredMerge {
 					context.addedLeftNodes.add(cloneA);
 				}
 
-				else if (!context.addedLeftNodes.contains(cloneA)) { // node removed by right
+				// childA is the very node recorded in the context by the previous step, while cloneA is a new copy of it
+				else if (!context.addedLeftNodes.contains(childA)) { // node removed by right
 					context.nodesDeletedByRight.add(cloneA);
 
-					if (context.nodesDeletedByLeft.contains(cloneA)) { // node removed by both
+					if (context.nodesDeletedByLeft.contains(childA)) { // node removed by both
 						context.deletedBaseNodes.add(cloneA);
 					}
 				}
@@ -270,8 +605,8 @@ public final class SemistructuredMerge {
 		}
 	}
 
-	private static boolean thereIsCorrespondentNode(FSTNonTerminal nonTerminal, FSTNode node) {
-		return nonTerminal.getCompatibleChild(node) != null;
+	private static boolean thereIsCorrespondentNode(ChildrenIndex children, FSTNode node) {
+		return children.getCompatibleChild(node) != null;
 	}
 
 	/*
@@ -279,16 +614,18 @@ public final class SemistructuredMerge {
 	 * Otherwise, we add it to the superimposed tree and update the merge context.
 	 */
 	private static void addNewNodesFromLeftOrDeletedNodesFromRight(FSTNonTerminal nonTerminalA, FSTNonTerminal nonTerminalB,
-			MergeContext context, SuperimpositionStep step, FSTNonTerminal result) {
+			MergeContext context, SuperimpositionStep step, FSTNonTerminal result, ChildrenIndex resultChildren) {
+
+		ChildrenIndex nonTerminalAChildren = new ChildrenIndex(nonTerminalA.getChildren());
 
 		for (FSTNode childB : nonTerminalB.getChildren()) {
-			FSTNode childA = nonTerminalA.getCompatibleChild(childB);
+			FSTNode childA = nonTerminalAChildren.getCompatibleChild(childB);
 
 			if (childA == null) { // means that a base node was deleted by left, or that a right node was added
-				FSTNode cloneB = clone(nonTerminalB, childB);
+				FSTNode cloneB = clone(nonTerminalB, childB, context);
 
 				/* Add cloneB to the superimposed tree, but it needs to be removed later if it's a base node. */
-				result.addChild(cloneB); 
+				resultChildren.add(cloneB); 
 
 				/* Filling merge context. */
 				if (step == SuperimpositionStep.Left_Base) { // base node deleted by left
@@ -307,18 +644,40 @@ public final class SemistructuredMerge {
 					context.addedRightNodes.add(childB);
 				}
 
-				result.addChild(superimpose(childA, childB, result, context, step));
+				resultChildren.add(superimpose(childA, childB, result, context, step));
 			}
 		}
 	}
 
-	private static FSTNode clone(FSTNonTerminal nonTerminal, FSTNode child) {
+	private static FSTNode clone(FSTNonTerminal nonTerminal, FSTNode child, MergeContext context) {
 		FSTNode clone = child.getDeepClone();
 		updateIndexIfMinusOne(nonTerminal, child);
 		clone.index = child.index;
+		if (!context.contributions.isEmpty()) {
+			copyContributions(child, clone, context);
+		}
 		return clone;
 	}
 
+	/*
+	 * Terminals of the first superimposition might be copied by the second one, taking their contributions with them.
+	 * Deep clones keep the order of the children, so the original and the cloned trees are walked together.
+	 */
+	private static void copyContributions(FSTNode original, FSTNode clone, MergeContext context) {
+		if (original instanceof FSTNonTerminal) {
+			List<FSTNode> originalChildren = ((FSTNonTerminal) original).getChildren();
+			List<FSTNode> cloneChildren = ((FSTNonTerminal) clone).getChildren();
+			for (int i = 0; i < originalChildren.size() && i < cloneChildren.size(); i++) {
+				copyContributions(originalChildren.get(i), cloneChildren.get(i), context);
+			}
+		} else {
+			Contributions contributions = context.contributions.get(original);
+			if (contributions != null) {
+				context.contributions.put(clone, contributions.copy());
+			}
+		}
+	}
+
 	private static void updateIndexIfMinusOne(FSTNonTerminal nonTerminal, FSTNode child) {
 		if (child.index == -1)
 			child.index = nonTerminal.index;
@@ -326,23 +685,24 @@ public final class SemistructuredMerge {
 
 	/**
 	 * After superimposition, the content of a matched node is the content of those
-	 * that originated him (left,base,right) So, this methods indicates the origin
-	 * (left,base or right) in node's body content.
+	 * that originated him (left,base,right). So, this method records the content
+	 * of each origin (left,base or right) of the node.
 	 * 
-	 * @return node's body content marked
+	 * @return node's contributions
 	 */
-	private static String markContributions(String bodyA, String bodyB, SuperimpositionStep step, int indexA,
-			int indexB) {
-		if (bodyA.contains(SEMANTIC_MERGE_MARKER)) {
-			return bodyA + bodyB;
+	private static Contributions collectContributions(FSTTerminal terminalA, FSTTerminal terminalB, MergeContext context,
+			SuperimpositionStep step) {
+		Contributions contributionsA = context.contributions.get(terminalA);
+		if (contributionsA != null) { // node matched by the previous step
+			return contributionsA.copy().setRight(terminalB);
 		} else {
 			if (step == SuperimpositionStep.Left_Base) {
-				return SEMANTIC_MERGE_MARKER + bodyA + MERGE_SEPARATOR + bodyB + MERGE_SEPARATOR;
+				return new Contributions().setLeft(terminalA).setBase(terminalB);
 			} else {
-				if (indexA == 0) {
-					return SEMANTIC_MERGE_MARKER + bodyA + MERGE_SEPARATOR + MERGE_SEPARATOR + bodyB;
+				if (terminalA.index == 0) {
+					return new Contributions().setLeft(terminalA).setRight(terminalB);
 				} else {
-					return SEMANTIC_MERGE_MARKER + MERGE_SEPARATOR + bodyA + MERGE_SEPARATOR + bodyB;
+					return new Contributions().setBase(terminalA).setRight(terminalB);
 				}
 			}
 		}
@@ -358,13 +718,11 @@ public final class SemistructuredMerge {
 	private static void removeRemainingBaseNodes(FSTNode mergedTree, MergeContext context) {
 		boolean removed = false;
 		if (!context.deletedBaseNodes.isEmpty()) {
-			for (FSTNode loneBaseNode : context.deletedBaseNodes) {
-				if (mergedTree == loneBaseNode) {
-					FSTNonTerminal parent = (FSTNonTerminal) mergedTree.getParent();
-					if (parent != null) {
-						parent.removeChild(mergedTree);
-						removed = true;
-					}
+			if (context.deletedBaseNodes.contains(mergedTree)) { // lone base node
+				FSTNonTerminal parent = (FSTNonTerminal) mergedTree.getParent();
+				if (parent != null) {
+					parent.removeChild(mergedTree);
+					removed = true;
 				}
 			}
 			if (!removed && mergedTree instanceof FSTNonTerminal) {
@@ -380,8 +738,8 @@ public final class SemistructuredMerge {
 	 * After superimposition, the content of a matched node is the content of those
 	 * that originated him (left,base,right). This method merges these parents'
 	 * content. For instance, calling unstructured merge to merge methods' body and
-	 * prefix. We use the tags from the method
-	 * {@link #markContributions(String, String, boolean, int, int)} to guide this
+	 * prefix. We use the contributions recorded by the method
+	 * {@link #collectContributions(FSTTerminal, FSTTerminal, MergeContext, SuperimpositionStep)} to guide this
 	 * process.
 	 * 
 	 * @param node to be merged
@@ -392,17 +750,14 @@ public final class SemistructuredMerge {
 			for (FSTNode child : ((FSTNonTerminal) node).getChildren())
 				mergeMatchedContent(child, context);
 		} else if (node instanceof FSTTerminal) {
-
-			/* Merging body. */
-			if (((FSTTerminal) node).getBody().contains(SemistructuredMerge.MERGE_SEPARATOR)) {
-				String mergedBodyContent = mergeBodyContent(node, context, ((FSTTerminal) node).getBody());
+			Contributions contributions = context.contributions.get(node);
+			if (contributions != null) {
+				/* Merging body. */
+				String mergedBodyContent = mergeBodyContent(node, context, contributions);
 				((FSTTerminal) node).setBody(mergedBodyContent);
-			}
 
-			/* Merging prefix: possible comments. */
-			if (((FSTTerminal) node).getSpecialTokenPrefix().contains(SemistructuredMerge.MERGE_SEPARATOR)) {
-				String mergedPrefixContent = mergePrefixContent(node, context,
-						((FSTTerminal) node).getSpecialTokenPrefix());
+				/* Merging prefix: possible comments. */
+				String mergedPrefixContent = mergePrefixContent(node, context, contributions);
 				((FSTTerminal) node).setSpecialTokenPrefix(mergedPrefixContent);
 			}
 
@@ -411,33 +766,51 @@ public final class SemistructuredMerge {
 		}
 	}
 
-	private static String mergeBodyContent(FSTNode node, MergeContext context, String nodeField)
+	private static String mergeBodyContent(FSTNode node, MergeContext context, Contributions contributions)
 			throws TextualMergeException {
-		Triple<String, String, String> contributionsContents = splitContributionsContents(nodeField);
-		String leftContent = contributionsContents.getLeft().trim();
-		String baseContent = contributionsContents.getMiddle().trim();
-		String rightContent = contributionsContents.getRight().trim();
+		String leftContent = contributions.getLeftBody().trim();
+		String baseContent = contributions.getBaseBody().trim();
+		String rightContent = contributions.getRightBody().trim();
 
 		identifyNodesEditedInOnlyOneVersion(node, context, leftContent, baseContent, rightContent);
-		if(JFSTMerge.isMethodAndConstructorRenamingAndDeletionHandlerEnabled)
+		if(context.getOptions().isMethodAndConstructorRenamingAndDeletionHandlerEnabled())
     		identifyPossibleNodesDeletionOrRenamings(node, context, leftContent, baseContent, rightContent);
 
-		return TextualMerge.merge(leftContent, baseContent, rightContent, JFSTMerge.isWhitespaceIgnored);
+		String unmergedContent = getContentChangedByOneVersionAtMost(leftContent, baseContent, rightContent, context);
+		if (unmergedContent != null) {
+			return unmergedContent;
+		}
+		return TextualMerge.merge(leftContent, baseContent, rightContent, context);
 	}
 
-	private static String mergePrefixContent(FSTNode node, MergeContext context, String nodeField)
-			throws TextualMergeException {
-		Triple<String, String, String> contributionsContents = splitContributionsContents(nodeField);
-		return RenamingUtils.compareAndMerge(contributionsContents.getLeft(), contributionsContents.getMiddle(),
-				contributionsContents.getRight());
+	/*
+	 * Most terminals are not changed by any revision, and their identical contents are the textual merge result as they are.
+	 * When spacing matters, the content of the only revision changing the base is the result too. When spacing is ignored,
+	 * the textual merge keeps the base version of lines changed only in spacing, so it is still called in that case, as
+	 * it is for empty contents, which it handles as insertions.
+	 * @return the merge result, or null when the contents need a textual merge
+	 */
+	private static String getContentChangedByOneVersionAtMost(String leftContent, String baseContent, String rightContent,
+			MergeContext context) {
+		if (leftContent.equals(baseContent) && baseContent.equals(rightContent)) {
+			return baseContent;
+		}
+		if (context.getOptions().isWhitespaceIgnored() || leftContent.isEmpty() || baseContent.isEmpty()
+				|| rightContent.isEmpty()) {
+			return null;
+		}
+		if (leftContent.equals(baseContent)) {
+			return rightContent;
+		} else if (rightContent.equals(baseContent)) {
+			return leftContent;
+		}
+		return null;
 	}
 
-	private static Triple<String, String, String> splitContributionsContents(String nodeContent) {
-		String[] splitContent = nodeContent.split(SemistructuredMerge.MERGE_SEPARATOR);
-		String leftContent = splitContent[0].replace(SemistructuredMerge.SEMANTIC_MERGE_MARKER, "");
-		String baseContent = (splitContent.length > 1) ? splitContent[1] : "";
-		String rightContent = (splitContent.length > 2) ? splitContent[2] : "";
-		return Triple.of(leftContent, baseContent, rightContent);
+	private static String mergePrefixContent(FSTNode node, MergeContext context, Contributions contributions)
+			throws TextualMergeException {
+		return RenamingUtils.compareAndMerge(contributions.getLeftPrefix(), contributions.getBasePrefix(),
+				contributions.getRightPrefix(), context);
 	}
 
 	/**
@@ -541,34 +914,22 @@ public final class SemistructuredMerge {
 	 * @param nonTerminal
 	 */
 	private static void addNodeToNonTerminalNearNeighbour(FSTNode node, FSTNode leftNeighbour, FSTNode rightNeighbour,
-			FSTNonTerminal nonTerminal) {
+			ChildrenIndex nonTerminal) {
 		boolean hasFoundNeighbour = false;
 
 		if (leftNeighbour != null) {
-			int leftNeighbourIndex = findChildNodeIndex(nonTerminal, leftNeighbour);
-
-			if (leftNeighbourIndex != -1) { // left neighbour found in nonTerminal
-				nonTerminal.addChild(node, leftNeighbourIndex + 1); // add node after left neighbour
-				hasFoundNeighbour = true;
-			}
+			// left neighbour found in nonTerminal: add node after left neighbour
+			hasFoundNeighbour = nonTerminal.addAfter(node, leftNeighbour);
 		}
 
 		if (!hasFoundNeighbour && rightNeighbour != null) {
-			int rightSiblingIndex = findChildNodeIndex(nonTerminal, rightNeighbour);
-
-			if (rightSiblingIndex != -1) { // right neighbour found in nonTerminal
-				nonTerminal.addChild(node, rightSiblingIndex); // add node before right neighbour
-				hasFoundNeighbour = true;
-			}
+			// right neighbour found in nonTerminal: add node before right neighbour
+			hasFoundNeighbour = nonTerminal.addBefore(node, rightNeighbour);
 		}
 
 		if (!hasFoundNeighbour) {
-			nonTerminal.addChild(node); // add node at the end
+			nonTerminal.add(node); // add node at the end
 		}
 	}
 
-	private static int findChildNodeIndex(FSTNonTerminal parentNode, FSTNode node) {
-		return parentNode.getChildren().indexOf(node);
-	}
-
 }
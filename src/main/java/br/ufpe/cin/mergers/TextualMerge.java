@@ -2,20 +2,22 @@ package br.ufpe.cin.mergers;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import org.eclipse.jgit.diff.RawText;
 import org.eclipse.jgit.diff.RawTextComparator;
-import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.merge.MergeAlgorithm;
 import org.eclipse.jgit.merge.MergeFormatter;
 import org.eclipse.jgit.merge.MergeResult;
+import org.eclipse.jgit.util.RawParseUtils;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.ExceptionUtils;
 import br.ufpe.cin.exceptions.TextualMergeException;
-import br.ufpe.cin.files.FilesEncoding;
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
 
 /**
  * Represents unstructured, linebased, textual merge.
@@ -25,8 +27,6 @@ import br.ufpe.cin.files.FilesManager;
  */
 public final class TextualMerge {
 
-	private static String encoding;
-
 	/**
 	 * Three-way unstructured merge of three given files.
 	 * 
@@ -38,7 +38,21 @@ public final class TextualMerge {
 	 * @throws TextualMergeException 
 	 */
 	public static String merge(File left, File base, File right, boolean ignoreWhiteSpaces) throws TextualMergeException{
-		encoding = FilesEncoding.retrieveEncoding(base);
+		return merge(left, base, right, ignoreWhiteSpaces, MergeOptions.fromCommandLine());
+	}
+
+	/**
+	 * Three-way unstructured merge of three given files, with the given merge settings.
+	 * 
+	 * @param left
+	 * @param base
+	 * @param right
+	 * @param ignoreWhiteSpaces to avoid false positives conflicts due to different spacings.
+	 * @param options settings of the current merge
+	 * @return string representing merge result (might be null in case of errors).
+	 * @throws TextualMergeException 
+	 */
+	public static String merge(File left, File base, File right, boolean ignoreWhiteSpaces, MergeOptions options) throws TextualMergeException{
 		/* this commented code is an alternative to call unstructured merge by command line 		
 		 * String mergeCommand = ""; 
 			if(System.getProperty("os.name").contains("Windows")){
@@ -57,13 +71,29 @@ public final class TextualMerge {
 			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
 			textualMergeResult = reader.lines().collect(Collectors.joining("\n"));*/
 
-		String textualMergeResult = null;
-		//we treat invalid files as empty files 
-		String leftContent = ((left == null || !left.exists()) ? "" : FilesManager.readFileContent(left));
-		String baseContent = ((base == null || !base.exists()) ? "" : FilesManager.readFileContent(base));
-		String rightContent= ((right== null || !right.exists())? "" : FilesManager.readFileContent(right));
-		textualMergeResult = merge(leftContent,baseContent,rightContent,ignoreWhiteSpaces);
-		return textualMergeResult;
+		return merge(FileSnapshot.read(left), FileSnapshot.read(base), FileSnapshot.read(right), ignoreWhiteSpaces, options);
+	}
+
+	/**
+	 * Three-way unstructured merge of three given file snapshots, avoiding reading the files again.
+	 * 
+	 * @param left
+	 * @param base
+	 * @param right
+	 * @param ignoreWhiteSpaces to avoid false positives conflicts due to different spacings.
+	 * @param options settings of the current merge
+	 * @return string representing merge result (might be null in case of errors).
+	 * @throws TextualMergeException 
+	 */
+	public static String merge(FileSnapshot left, FileSnapshot base, FileSnapshot right, boolean ignoreWhiteSpaces, MergeOptions options) throws TextualMergeException{
+		//invalid files are snapshotted as empty files
+		try{
+			//the snapshots provide the bytes directly, sparing decoding the files into strings and encoding them back
+			Charset charset = Charset.forName(base.getEncoding());
+			return merge(rawTextOf(left), rawTextOf(base), rawTextOf(right), ignoreWhiteSpaces, options, charset);
+		}catch(Exception e){
+			throw new TextualMergeException(ExceptionUtils.getCauseMessage(e), left.getContent(), base.getContent(), right.getContent());
+		}
 	}
 
 	/**
@@ -76,26 +106,65 @@ public final class TextualMerge {
 	 * @throws TextualMergeException 
 	 */
 	public static String merge(String leftContent, String baseContent, String rightContent, boolean ignoreWhiteSpaces) throws TextualMergeException{
+		return merge(leftContent, baseContent, rightContent, ignoreWhiteSpaces, MergeOptions.fromCommandLine());
+	}
+
+	/**
+	 * Merges textually three strings, following the settings of the given merge context.
+	 * @param leftContent
+	 * @param baseContent
+	 * @param rightContent
+	 * @param context of the semistructured merge requesting this textual merge
+	 * @return merged string.
+	 * @throws TextualMergeException 
+	 */
+	public static String merge(String leftContent, String baseContent, String rightContent, MergeContext context) throws TextualMergeException{
+		MergeOptions options = context.getOptions();
+		return merge(leftContent, baseContent, rightContent, options.isWhitespaceIgnored(), options);
+	}
+
+	/**
+	 * Merges textually three strings.
+	 * @param leftContent
+	 * @param baseContent
+	 * @param rightContent
+	 * @param ignoreWhiteSpaces to avoid false positives conflicts due to different spacings.
+	 * @param options settings of the current merge
+	 * @return merged string.
+	 * @throws TextualMergeException 
+	 */
+	public static String merge(String leftContent, String baseContent, String rightContent, boolean ignoreWhiteSpaces, MergeOptions options) throws TextualMergeException{
 		String textualMergeResult = null;
 		try{
-			RawTextComparator textComparator = ((ignoreWhiteSpaces) ? RawTextComparator.WS_IGNORE_ALL : RawTextComparator.DEFAULT);
-			@SuppressWarnings("rawtypes") MergeResult mergeCommand = new MergeAlgorithm().merge(textComparator,
-					new RawText(Constants.encode(baseContent)), 
-					new RawText(Constants.encode(leftContent)), 
-					new RawText(Constants.encode(rightContent))
-					);		
-			ByteArrayOutputStream output = new ByteArrayOutputStream();
-			if(JFSTMerge.showBase) {
-				new MergeFormatter().formatMergeWriteBaseInConflicts(output, mergeCommand, "BASE", "MINE", "YOURS", Charset.forName(encoding));
-			} else {
-				new MergeFormatter().formatMerge(output, mergeCommand, "BASE", "MINE", "YOURS", 
-						Charset.forName(encoding));
-			}
-			
-			textualMergeResult = new String(output.toByteArray(), Charset.forName(encoding));
+			//the contents are merged as they are, sparing encoding them into bytes and decoding the result back
+			textualMergeResult = LineSequenceMerge.merge(leftContent, baseContent, rightContent, ignoreWhiteSpaces, options);
 		}catch(Exception e){
 			throw new TextualMergeException(ExceptionUtils.getCauseMessage(e), leftContent,baseContent,rightContent);
 		}
 		return textualMergeResult;
 	}
+
+	/*
+	 * The lines are mapped over the range of the snapshot's buffer only, so its backing array is used without copying.
+	 */
+	private static RawText rawTextOf(FileSnapshot snapshot) {
+		ByteBuffer content = snapshot.getContentBuffer();
+		byte[] bytes = content.array();
+		int start = content.arrayOffset() + content.position();
+		return new RawText(bytes, RawParseUtils.lineMap(bytes, start, start + content.remaining()));
+	}
+
+	private static String merge(RawText left, RawText base, RawText right, boolean ignoreWhiteSpaces, MergeOptions options, Charset charset) throws IOException{
+		RawTextComparator textComparator = ((ignoreWhiteSpaces) ? RawTextComparator.WS_IGNORE_ALL : RawTextComparator.DEFAULT);
+		@SuppressWarnings("rawtypes") MergeResult mergeCommand = new MergeAlgorithm(options.getDiffAlgorithm().getImplementation()).merge(textComparator, base, left, right);
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		if(options.showBase()) {
+			new MergeFormatter().formatMergeWriteBaseInConflicts(output, mergeCommand, "BASE", "MINE", "YOURS", charset);
+		} else {
+			new MergeFormatter().formatMerge(output, mergeCommand, "BASE", "MINE", "YOURS", charset);
+		}
+
+		//decoding straight from the output buffer, without copying it
+		return output.toString(charset.name());
+	}
 }
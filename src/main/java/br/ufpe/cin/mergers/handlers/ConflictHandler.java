@@ -1,7 +1,11 @@
 package br.ufpe.cin.mergers.handlers;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import br.ufpe.cin.exceptions.TextualMergeException;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 
 /**
  * Interface responsbile for dealing with language specific conflicts that
@@ -10,4 +14,36 @@ import br.ufpe.cin.mergers.util.MergeContext;
  */
 public interface ConflictHandler {
 	void handle(MergeContext context) throws TextualMergeException;
+
+	/**
+	 * @return whether the handler reads the semistructured output printed before the handlers run,
+	 * in {@link MergeContext#semistructuredOutput}. The tree is only printed then if some handler does.
+	 */
+	default boolean readsIntermediateOutput() {
+		return true;
+	}
+
+	/**
+	 * @return whether the handler only produces statistics, reading the merged files and the unstructured output
+	 * but neither the trees nor the semistructured output. Such handlers run in background, alongside the merge,
+	 * see {@link br.ufpe.cin.mergers.SemistructuredMerge#handleStatistics(MergeContext)}.
+	 */
+	default boolean producesStatisticsOnly() {
+		return false;
+	}
+
+	/**
+	 * @return the parts of the merge whose content the handler depends on. Handlers not declaring them are
+	 * assumed to depend on every part, see {@link HandlerScheduler}.
+	 */
+	default Set<MergeResource> reads() {
+		return EnumSet.allOf(MergeResource.class);
+	}
+
+	/**
+	 * @return the parts of the merge the handler changes. Handlers not declaring them are assumed to change every part.
+	 */
+	default Set<MergeResource> writes() {
+		return EnumSet.allOf(MergeResource.class);
+	}
 }
@@ -1,18 +1,15 @@
 package br.ufpe.cin.mergers.handlers;
 
-import java.io.File;
-import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.ClassInstanceCreation;
-import org.eclipse.jdt.core.dom.CompilationUnit;
-
+import br.ufpe.cin.files.FileSnapshot;
 import br.ufpe.cin.files.FilesManager;
-import br.ufpe.cin.mergers.util.JavaCompiler;
+import br.ufpe.cin.mergers.util.CompilationProfile;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
@@ -42,6 +39,24 @@ public class DeletionsHandler implements ConflictHandler {
 
 	}
 
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
+
+	//replaced types carry their members, and top-level ones are placed by position among the imports
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.of(MergeResource.ADDED_NODES, MergeResource.DELETED_NODES, MergeResource.IMPORTS, MergeResource.TYPES,
+				MergeResource.METHODS_AND_CONSTRUCTORS, MergeResource.FIELDS, MergeResource.INITIALIZERS);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.of(MergeResource.DELETED_NODES, MergeResource.TYPES, MergeResource.METHODS_AND_CONSTRUCTORS,
+				MergeResource.FIELDS, MergeResource.INITIALIZERS);
+	}
+
 	private static void normalizeDeletions(MergeContext context) {
 		//Getting original deleted nodes from its source
 		normalize(context,context.nodesDeletedByLeft);
@@ -193,9 +208,9 @@ public class DeletionsHandler implements ConflictHandler {
 			FSTNonTerminal declarationInSource = correspondingInSource.getParent();
 			MergeConflict newConflict;
 			if(isLeftDeletion) {
-				newConflict = new MergeConflict(null, baseNode, declarationInSource, "possible deletion or renaming of class " + baseNode.getName() + " with addition of new reference");
+				newConflict = new MergeConflict(null, baseNode, declarationInSource, "possible deletion or renaming of class " + baseNode.getName() + " with addition of new reference", context.getOptions());
 			} else {
-				newConflict = new MergeConflict(declarationInSource, baseNode, null, "possible deletion of class " + baseNode.getName() + " with addition of new reference");
+				newConflict = new MergeConflict(declarationInSource, baseNode, null, "possible deletion of class " + baseNode.getName() + " with addition of new reference", context.getOptions());
 			}
 			FSTTerminal terminal = new FSTTerminal(declarationInSource.getType(), identifier, newConflict.toString(), "");
 			parent.addChild(terminal, index);
@@ -217,24 +232,13 @@ public class DeletionsHandler implements ConflictHandler {
 	}
 
 	private static boolean hasNewInstance(MergeContext context,	String identifier, boolean isLeftDeletion) {
-		int baseInstances  = countInstances(context.getBase(),identifier);
-		int otherInstances = countInstances(((isLeftDeletion)?context.getRight():context.getLeft()), identifier);
+		int baseInstances  = countInstances(context, context.getSnapshot(context.getBase()),identifier);
+		int otherInstances = countInstances(context, context.getSnapshot((isLeftDeletion)?context.getRight():context.getLeft()), identifier);
 		return otherInstances > baseInstances;
 	}
 
-	private static int countInstances(File file, String id){
-		JavaCompiler compiler = new JavaCompiler();
-		String source = FilesManager.readFileContent(file);
-		CompilationUnit cu = compiler.compile(source);
-		List<org.eclipse.jdt.core.dom.ASTNode> instances = new ArrayList<ASTNode>();
-		cu.accept(new ASTVisitor() {
-			@Override
-			public boolean visit(ClassInstanceCreation node) {
-				org.eclipse.jdt.core.dom.Type t = node.getType();
-				if(t.toString().equals(id)) instances.add(node);
-				return super.visit(node);
-			}
-		});
-		return instances.size();
+	private static int countInstances(MergeContext context, FileSnapshot file, String id){
+		//instances are compared by the type as written, so bindings are not needed
+		return context.getCompilationService().getReferenceCounts(file.getContent(), CompilationProfile.SYNTAX_WITH_BODIES).countInstances(id);
 	}
 }
@@ -1,14 +1,19 @@
 package br.ufpe.cin.mergers.handlers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
 
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.CompilationSession;
+import br.ufpe.cin.mergers.util.ConflictIndex;
 import br.ufpe.cin.mergers.util.JavaCompiler;
-import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import br.ufpe.cin.mergers.util.Source;
 
 /**
@@ -20,16 +25,22 @@ import br.ufpe.cin.mergers.util.Source;
 public final class DuplicatedDeclarationHandler implements ConflictHandler {
 
 	public void handle(MergeContext context){
-		int duplicatedDeclarationErrors = 0;
-		
-		long t0 = System.nanoTime();
+		CompilationSession session = context.getCompilationSession();
+		if(session != null){
+			//compiled along with the other merged files of its batch, whose outputs it then sees, see CompilationSession
+			session.compileLater(context, Source.UNSTRUCTURED, 
+					cunit -> context.duplicatedDeclarationErrors = countDuplicatedDeclarationErrors(context, Arrays.asList(cunit.getProblems())));
+			return;
+		}
 
-		//1. compile unstructured merge output
-		JavaCompiler compiler = new JavaCompiler();
-		compiler.compile(context, Source.UNSTRUCTURED);	
-		
+		//1. compile unstructured merge output, with a compiler of its own as it runs in background, see producesStatisticsOnly()
 		//2. list its compilation problems
-		List<IProblem> iproblems = compiler.compilationProblems;
+		CompilationUnit cunit = new JavaCompiler().compile(context, Source.UNSTRUCTURED);
+		context.duplicatedDeclarationErrors = countDuplicatedDeclarationErrors(context, Arrays.asList(cunit.getProblems()));
+	}
+
+	private static int countDuplicatedDeclarationErrors(MergeContext context, List<IProblem> iproblems){
+		int duplicatedDeclarationErrors = 0;
 		List<MyProblem> problems = filterDistinctProblems(iproblems);
 
 		//3. search and account duplicated declaration errors not surround by conflicts (otherwise, it would be not a false negative)
@@ -42,13 +53,27 @@ public final class DuplicatedDeclarationHandler implements ConflictHandler {
 				}
 			}
 		}
-		
-		//excluding handler execution time to not bias peformance evaluation as it is not required to original semistructured merge time
-		long tf = System.nanoTime();
-		long tt = tf-t0;
-		context.semistructuredMergeTime = context.semistructuredMergeTime - tt;
+		return duplicatedDeclarationErrors;
+	}
+
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
 
-		context.duplicatedDeclarationErrors = duplicatedDeclarationErrors;
+	@Override
+	public boolean producesStatisticsOnly() {
+		return true;
+	}
+
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.noneOf(MergeResource.class);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.noneOf(MergeResource.class);
 	}
 
 	/**
@@ -80,12 +105,10 @@ public final class DuplicatedDeclarationHandler implements ConflictHandler {
 	 * @param sourceLOCs
 	 */
 	private static boolean isConflictingLOC(MergeContext context, List<Integer> sourceLOCs) {
-		List<MergeConflict> conflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		ConflictIndex conflicts = context.getUnstructuredConflicts();
 		for(int sourceLOC : sourceLOCs){
-			for(MergeConflict mc : conflicts){
-				if((mc.getStartLOC() <= sourceLOC) && (mc.getEndLOC() >= sourceLOC)) {
-					return true;
-				}
+			if(conflicts.isConflictingLine(sourceLOC)) {
+				return true;
 			}
 		}
 		return false;
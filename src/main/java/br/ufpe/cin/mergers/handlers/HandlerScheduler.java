@@ -0,0 +1,114 @@
+package br.ufpe.cin.mergers.handlers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import br.ufpe.cin.exceptions.TextualMergeException;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
+
+/**
+ * Runs the conflict handlers of a merge in parallel, as far as the parts of the merge they declare to read and change
+ * allow, see {@link ConflictHandler#reads()} and {@link ConflictHandler#writes()}. A handler waits for every handler
+ * before it in the list that changes what it reads or changes, or that reads what it changes. As the handlers look up
+ * and change nodes all over the superimposed tree, the handlers still hold the {@link MergeContext#getHandlersLock()
+ * handlers lock} while they run, and independent ones overlap only while they compile, which is where they spend most
+ * of their time. An independent handler may thus change the tree while an earlier one compiles, so the output matches
+ * the serial order only as long as the declared parts are right; the handlers are checked against their fixtures by
+ * ParallelHandlersParameterTest.
+ * Handlers wait for the lock on threads of their own, so they never hold up the steps of {@link br.ufpe.cin.mergers.util.StageExecutor}.
+ * @author Guilherme
+ */
+public final class HandlerScheduler {
+
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+			Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					//the pool must not keep the JVM alive once merges are finished
+					Thread thread = new Thread(runnable, "jfstmerge-handler-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private HandlerScheduler() {
+	}
+
+	/**
+	 * Runs the given handlers on the given merge, waiting for all of them to finish.
+	 * @param conflictHandlers in the order they would run one after the other
+	 * @param context of the merge
+	 * @throws TextualMergeException the failure of the first failed handler, in the order of the list.
+	 * Handlers depending on a failed handler are not run.
+	 */
+	public static void handle(List<ConflictHandler> conflictHandlers, MergeContext context) throws TextualMergeException {
+		List<CompletableFuture<Void>> runs = new ArrayList<CompletableFuture<Void>>(conflictHandlers.size());
+		Throwable[] failures = new Throwable[conflictHandlers.size()];
+		for (int i = 0; i < conflictHandlers.size(); i++) {
+			ConflictHandler handler = conflictHandlers.get(i);
+			List<CompletableFuture<Void>> dependencies = new ArrayList<CompletableFuture<Void>>();
+			for (int j = 0; j < i; j++) {
+				if (conflict(conflictHandlers.get(j), handler)) {
+					dependencies.add(runs.get(j));
+				}
+			}
+			int index = i;
+			runs.add(CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[0]))
+					.thenRunAsync(() -> run(handler, context, failures, index), EXECUTOR));
+		}
+
+		for (CompletableFuture<Void> run : runs) {
+			try {
+				run.join();
+			} catch (CompletionException | CancellationException e) {
+				//the failure is kept by the failed handler, while its dependents fail with it
+			}
+		}
+		for (Throwable failure : failures) {
+			if (failure instanceof TextualMergeException) {
+				throw (TextualMergeException) failure;
+			} else if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			} else if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+		}
+	}
+
+	/**
+	 * @return whether one of the handlers changes any part of the merge the other reads or changes
+	 */
+	static boolean conflict(ConflictHandler first, ConflictHandler second) {
+		return changesAnyOf(first, second.reads()) || changesAnyOf(first, second.writes()) || changesAnyOf(second, first.reads());
+	}
+
+	private static boolean changesAnyOf(ConflictHandler handler, Set<MergeResource> resources) {
+		return !Collections.disjoint(handler.writes(), resources);
+	}
+
+	private static void run(ConflictHandler handler, MergeContext context, Throwable[] failures, int index) {
+		ReentrantLock lock = context.getHandlersLock();
+		lock.lock();
+		try {
+			handler.handle(context);
+		} catch (TextualMergeException | RuntimeException | Error e) {
+			failures[index] = e;
+			throw new CompletionException(e);
+		} finally {
+			lock.unlock();
+		}
+	}
+}
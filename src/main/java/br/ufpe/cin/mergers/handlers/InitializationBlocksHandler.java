@@ -1,15 +1,17 @@
 package br.ufpe.cin.mergers.handlers;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.TextualMergeException;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.TextualMerge;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -90,7 +92,7 @@ public class InitializationBlocksHandler implements ConflictHandler {
             String basecontent = (tp.base != null) ? ((FSTTerminal) tp.base).getBody() : "";
             String rightcontent = (tp.right != null) ? ((FSTTerminal) tp.right).getBody() : "";
 
-            String mergedContent = TextualMerge.merge(leftcontent, basecontent, rightcontent, JFSTMerge.isWhitespaceIgnored);
+            String mergedContent = TextualMerge.merge(leftcontent, basecontent, rightcontent, context);
 
             //5. updating merged AST
             if (tp.left != null && tp.right != null) {
@@ -108,6 +110,21 @@ public class InitializationBlocksHandler implements ConflictHandler {
         }
     }
 
+    @Override
+    public boolean readsIntermediateOutput() {
+        return false;
+    }
+
+    @Override
+    public Set<MergeResource> reads() {
+        return EnumSet.of(MergeResource.ADDED_NODES, MergeResource.DELETED_NODES, MergeResource.INITIALIZERS);
+    }
+
+    @Override
+    public Set<MergeResource> writes() {
+        return EnumSet.of(MergeResource.INITIALIZERS);
+    }
+
     /**
      * Verifies if the content of two given <i>Initialization Blocks</i> are similar.
      *
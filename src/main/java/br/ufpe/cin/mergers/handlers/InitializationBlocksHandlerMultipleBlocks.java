@@ -5,6 +5,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -17,12 +18,12 @@ import java.util.stream.Collectors;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.TextualMergeException;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.TextualMerge;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
@@ -111,8 +112,7 @@ public class InitializationBlocksHandlerMultipleBlocks implements ConflictHandle
 		if(leftNode != null && rightNode != null) {
 			// both branches edited the node
 			
-		    String mergedContent = TextualMerge.merge(leftContent, baseContent, rightContent, 
-					JFSTMerge.isWhitespaceIgnored);
+		    String mergedContent = TextualMerge.merge(leftContent, baseContent, rightContent, context);
 		    
             FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, leftContent, mergedContent);
             FilesManager.findAndDeleteASTNode(context.superImposedTree, rightContent);
@@ -140,6 +140,21 @@ public class InitializationBlocksHandlerMultipleBlocks implements ConflictHandle
         }
 	}
 
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
+
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.of(MergeResource.ADDED_NODES, MergeResource.DELETED_NODES, MergeResource.INITIALIZERS);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.of(MergeResource.INITIALIZERS);
+	}
+
 	private void mergeAddedNodesAndUpdateAST(MergeContext context, Pair<List<FSTNode>,List<FSTNode>> addedNodes) {
 		for(FSTNode leftAddedNode : addedNodes.getLeft()) {
 			for(FSTNode rightAddedNode : addedNodes.getRight()) {
@@ -213,11 +228,9 @@ public class InitializationBlocksHandlerMultipleBlocks implements ConflictHandle
 		
 		// order of parameters changes depending on which branch changes/deleted the node
 		if(isLeftNode) {
-			mergedContent = TextualMerge.merge(otherNodeContent, baseContent, editedNodeContent, 
-					JFSTMerge.isWhitespaceIgnored);
+			mergedContent = TextualMerge.merge(otherNodeContent, baseContent, editedNodeContent, context);
 		} else {
-			mergedContent = TextualMerge.merge(editedNodeContent, baseContent, otherNodeContent, 
-					JFSTMerge.isWhitespaceIgnored);
+			mergedContent = TextualMerge.merge(editedNodeContent, baseContent, otherNodeContent, context);
 		}
 		
 		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, editedNodeContent, mergedContent);
@@ -358,7 +371,7 @@ public class InitializationBlocksHandlerMultipleBlocks implements ConflictHandle
 	    	String leftConflictContent = StringUtils.substringBetween(leftNodeContent, "{", "}").trim();
 	    	
 	    	StringBuffer staticBlock = new StringBuffer("static {");
-	    	MergeConflict mergeConflict = new MergeConflict(leftConflictContent, "", rightConflictContent.toString(), "conflicting static blocks");
+	    	MergeConflict mergeConflict = new MergeConflict(leftConflictContent, "", rightConflictContent.toString(), "conflicting static blocks", context.getOptions());
 			staticBlock.append(mergeConflict.toString() + "\n}");
 			
 			FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, leftNodeContent, staticBlock.toString());
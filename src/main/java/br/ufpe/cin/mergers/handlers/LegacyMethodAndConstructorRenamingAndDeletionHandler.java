@@ -30,6 +30,11 @@ public final class LegacyMethodAndConstructorRenamingAndDeletionHandler implemen
 		handleSingleRenamings(context);
 	}
 
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
+
 	private static void handleMutualRenamings(MergeContext context) {
 		if(!context.addedLeftNodes.isEmpty() && !context.addedRightNodes.isEmpty()){
 			List<FSTNode> leftNewMethodsOrConstructors  = context.addedLeftNodes.stream().filter(m -> isValidNode(m)).collect(Collectors.toList());
@@ -84,10 +89,7 @@ public final class LegacyMethodAndConstructorRenamingAndDeletionHandler implemen
 
 					//2. checking if unstructured merge also reported the renaming conflict
 					String signature = getSignature(baseContent);
-					List<MergeConflict> unstructuredMergeConflictsHavingRenamedSignature = FilesManager.extractMergeConflicts(context.unstructuredOutput).stream()
-							.filter(mc -> FilesManager.getStringContentIntoSingleLineNoSpacing(mc.toString()).contains(signature))
-							.collect(Collectors.toList());
-					if(unstructuredMergeConflictsHavingRenamedSignature.size() > 0){
+					if(context.getUnstructuredConflicts().hasConflictContaining(signature)){
 						String possibleRenamingContent = getMostSimilarContent(similarNodes);
 						generateRenamingConflict(context, currentNodeContent, possibleRenamingContent, editedNodeContent,false);
 					} else { //do not report the renaming conflict
@@ -116,10 +118,7 @@ public final class LegacyMethodAndConstructorRenamingAndDeletionHandler implemen
 					}
 
 					String signature = getSignature(baseContent);
-					List<MergeConflict> unstructuredMergeConflictsHavingRenamedSignature = FilesManager.extractMergeConflicts(context.unstructuredOutput).stream()
-							.filter(mc -> FilesManager.getStringContentIntoSingleLineNoSpacing(mc.toString()).contains(signature))
-							.collect(Collectors.toList());
-					if(unstructuredMergeConflictsHavingRenamedSignature.size() > 0){
+					if(context.getUnstructuredConflicts().hasConflictContaining(signature)){
 						String possibleRenamingContent = getMostSimilarContent(similarNodes);
 						generateRenamingConflict(context, currentNodeContent, possibleRenamingContent, editedNodeContent,false);
 					} else { //do not report the renaming conflict
@@ -178,7 +177,7 @@ public final class LegacyMethodAndConstructorRenamingAndDeletionHandler implemen
 		}
 
 		//first creates a conflict 
-		MergeConflict newConflict = new MergeConflict(firstContent, "", secondContent, "");
+		MergeConflict newConflict = new MergeConflict(firstContent, "", secondContent, "", context.getOptions());
 		//second put the conflict in one of the nodes containing the previous conflict, and deletes the other node containing the possible renamed version
 		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, currentNodeContent, newConflict.toString());
 		if(isLeftToRight){
@@ -195,7 +194,7 @@ public final class LegacyMethodAndConstructorRenamingAndDeletionHandler implemen
 		context.renamingConflicts++;
 
 		// first creates a conflict
-		MergeConflict newConflict = new MergeConflict(left, null, right, "");
+		MergeConflict newConflict = new MergeConflict(left, null, right, "", context.getOptions());
 
 		// second put the conflict in one of the nodes containing the previous conflict,
 		// and deletes the other node containing the possible renamed version
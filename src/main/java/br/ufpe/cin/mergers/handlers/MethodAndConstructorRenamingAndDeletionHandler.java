@@ -5,6 +5,8 @@ import br.ufpe.cin.exceptions.TextualMergeException;
 import br.ufpe.cin.mergers.handlers.renaming.RenamingHandler;
 import br.ufpe.cin.mergers.handlers.renaming.RenamingHandlerFactory;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
+import br.ufpe.cin.mergers.util.RenamingStrategy;
 import br.ufpe.cin.mergers.util.RenamingUtils;
 import br.ufpe.cin.mergers.util.Side;
 import br.ufpe.cin.mergers.util.Traverser;
@@ -16,7 +18,9 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.javatuples.Quartet;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.function.BiPredicate;
 import java.util.stream.Collectors;
@@ -41,7 +45,11 @@ public final class MethodAndConstructorRenamingAndDeletionHandler implements Con
 	private RenamingHandler renamingHandler;
 
 	public MethodAndConstructorRenamingAndDeletionHandler() {
-		this.renamingHandler = RenamingHandlerFactory.getHandler(JFSTMerge.renamingStrategy);
+		this(JFSTMerge.renamingStrategy);
+	}
+
+	public MethodAndConstructorRenamingAndDeletionHandler(RenamingStrategy renamingStrategy) {
+		this.renamingHandler = RenamingHandlerFactory.getHandler(renamingStrategy);
 	}
 
 	@Override
@@ -69,6 +77,21 @@ public final class MethodAndConstructorRenamingAndDeletionHandler implements Con
 
 	}
 
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
+
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.of(MergeResource.ADDED_NODES, MergeResource.RENAMED_NODES, MergeResource.METHODS_AND_CONSTRUCTORS);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.of(MergeResource.RENAMED_NODES, MergeResource.METHODS_AND_CONSTRUCTORS);
+	}
+
 	private void identifyRenamingOrDeletionNodes(MergeContext context) {
 		List<FSTTerminal> terminals = Traverser.collectTerminals(context.baseTree);
 		terminals.stream().filter(terminal -> RenamingUtils.isMethodOrConstructorNode(terminal))
@@ -1,10 +1,13 @@
 package br.ufpe.cin.mergers.handlers;
 
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import br.ufpe.cin.mergers.util.Traverser;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
@@ -24,7 +27,7 @@ public final class NewElementReferencingEditedOneHandler implements ConflictHand
 		 */
 		if((!context.editedLeftNodes.isEmpty() && !context.addedRightNodes.isEmpty()) ||
 		   (!context.editedRightNodes.isEmpty()&& !context.addedLeftNodes.isEmpty())){
-		List<MergeConflict> unstructuredMergeConflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		List<MergeConflict> unstructuredMergeConflicts = context.getUnstructuredConflicts().getConflicts();
 		for(FSTNode addedLeftNode : context.addedLeftNodes){
 			if(isValidNode(addedLeftNode)){
 				for(FSTNode editedRightNode : context.editedRightNodes){
@@ -60,6 +63,21 @@ public final class NewElementReferencingEditedOneHandler implements ConflictHand
 		}
 	}
 
+	@Override
+	public boolean readsIntermediateOutput() {
+		return false;
+	}
+
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.of(MergeResource.ADDED_NODES, MergeResource.EDITED_NODES, MergeResource.METHODS_AND_CONSTRUCTORS, MergeResource.FIELDS);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.of(MergeResource.METHODS_AND_CONSTRUCTORS, MergeResource.FIELDS);
+	}
+
 	/**
 	 * Given a list of unstructured merge conflicts, verifies if there is
 	 * a conflict containing the added and edited elements.
@@ -111,7 +129,7 @@ public final class NewElementReferencingEditedOneHandler implements ConflictHand
 	 */
 	private static void generateConflictWithAddedAndEditedElements(MergeContext context, FSTNode editedElement, FSTNode baseElement, FSTNode addedElement) {
 		String conflictMessage = new StringBuilder().append("added ").append(addedElement.getName()).append(" that refers to edited ").append(editedElement.getName()).toString();
-		MergeConflict newConflict = new MergeConflict(editedElement, baseElement, addedElement, conflictMessage);
+		MergeConflict newConflict = new MergeConflict(editedElement, baseElement, addedElement, conflictMessage, context.getOptions());
 
 		String editedElementContent = ((FSTTerminal) editedElement).getBody();
 		String addedElementContent = ((FSTTerminal) addedElement).getBody();
@@ -1,16 +1,18 @@
 package br.ufpe.cin.mergers.handlers;
 
+import java.util.EnumSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.eclipse.jdt.core.compiler.IProblem;
 
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.files.GoogleTextDiffMatchPatch;
 import br.ufpe.cin.files.GoogleTextDiffMatchPatch.Diff;
-import br.ufpe.cin.mergers.util.JavaCompiler;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeResource;
 import br.ufpe.cin.mergers.util.Source;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
@@ -33,15 +35,14 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
          * output to look for compilation problems.
          */
 
-        //identifying the import statements added by left and right
-        LinkedList<FSTNode> leftImportStatementsNodes = identifyImportStatements(context.addedLeftNodes);
-        LinkedList<FSTNode> rightImportStatementsNodes = identifyImportStatements(context.addedRightNodes);
+        //the import statements added by left and right, see MergeContext#separateAddedImportStatements()
+        LinkedList<FSTNode> leftImportStatementsNodes = new LinkedList<>(context.addedLeftImportStatements);
+        LinkedList<FSTNode> rightImportStatementsNodes = new LinkedList<>(context.addedRightImportStatements);
 
         if (leftImportStatementsNodes.isEmpty() || rightImportStatementsNodes.isEmpty()) return;
 
-        List<MergeConflict> unstructuredMergeConflicts = FilesManager.extractMergeConflicts(context.unstructuredOutput);
-        JavaCompiler compiler = new JavaCompiler();
-        compiler.compile(context, Source.SEMISTRUCTURED);	//compiling source code
+        List<MergeConflict> unstructuredMergeConflicts = context.getUnstructuredConflicts().getConflicts();
+        List<IProblem> compilationProblems = context.getCompilationService().getProblems(Source.SEMISTRUCTURED);	//compiling source code
         while(!leftImportStatementsNodes.isEmpty()){
             FSTNode leftImportStatementNode = ((FSTTerminal)leftImportStatementsNodes.poll());
             String leftImportStatement 		= ((FSTTerminal) leftImportStatementNode).getBody();
@@ -57,7 +58,7 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
                 //possible compilation type ambiguity error: p.* vs q.* or p.Z vs. q.Z
                 if( (rightImportedMember.equals("*;") && leftImportedMember.equals("*;")) ||
                         (rightImportedMember.equals(leftImportedMember))){
-                    if(thereIsCompiltationProblemWithImportedStatements(compiler,context,leftImportStatement,rightImportStatement)){
+                    if(thereIsCompiltationProblemWithImportedStatements(compilationProblems,context,leftImportStatement,rightImportStatement)){
                         generateConflictWithImportStatements(context,leftImportStatementNode,rightImportStatementNode, "type ambiguity error"); break;
                     }
                     /*					else if(thereIsUnstructuredConflictWithImportedStatements(unstructuredMergeConflicts,leftImportStatement, rightImportStatement)){
@@ -77,6 +78,16 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
         }
 	}
 
+	@Override
+	public Set<MergeResource> reads() {
+		return EnumSet.of(MergeResource.IMPORTS);
+	}
+
+	@Override
+	public Set<MergeResource> writes() {
+		return EnumSet.of(MergeResource.IMPORTS);
+	}
+
 	/**
 	 * Verifies if the contributions of the class that imported the package refers to the member imported in the other class
 	 * @param context
@@ -84,9 +95,9 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
 	 * @param leftImportedMember
 	 */
 	private static boolean thereIsContributionUsingImportedMember(MergeContext context, String rightImportedMember,String leftImportedMember) {
-		String left = (context.getLeft()!=null)?FilesManager.readFileContent(context.getLeft()) :"";
-		String base = (context.getBase()!=null)?FilesManager.readFileContent(context.getBase()) :"";
-		String right=(context.getRight()!=null)?FilesManager.readFileContent(context.getRight()):"";
+		String left = context.getSnapshot(context.getLeft()).getContent();
+		String base = context.getSnapshot(context.getBase()).getContent();
+		String right= context.getSnapshot(context.getRight()).getContent();
 		if(rightImportedMember.equals("*;")){
 			GoogleTextDiffMatchPatch differ = new GoogleTextDiffMatchPatch();
 			List<Diff> differences = (!base.equals(""))?differ.diffMainAtLineLevel(base,right):differ.diffMainAtLineLevel(left,right);
@@ -113,43 +124,29 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
 		return false;
 	}
 
-    private static LinkedList<FSTNode> identifyImportStatements(List<FSTNode> addedNodes) {
-        LinkedList<FSTNode> importStatements = new LinkedList<>();
-
-        for (int i = 0; i < addedNodes.size(); i++) {
-            FSTNode node = addedNodes.get(i);
-            if ((node instanceof FSTTerminal) && node.getType().contains("ImportDeclaration")) {
-                importStatements.add(node);
-                addedNodes.remove(i); //to not interfere with the others handlers
-            }
-        }
-
-        return importStatements;
-    }
-
 	/**
 	 * Give two import statements, verifies if there is a compilation type ambiguity error.
-	 * @param compiler
+	 * @param compilationProblems
 	 * @param context
 	 * @param leftImportStatement
 	 * @param rightImportStatement
 	 */
-	private static boolean thereIsCompiltationProblemWithImportedStatements(JavaCompiler compiler, MergeContext context,String leftImportStatement, String rightImportStatement) {
+	private static boolean thereIsCompiltationProblemWithImportedStatements(List<IProblem> compilationProblems, MergeContext context,String leftImportStatement, String rightImportStatement) {
 		//searching for compilation problems related to type ambiguity error due to the import statements
-		for(int i = 0; i<compiler.compilationProblems.size(); i++){
-			IProblem problem = compiler.compilationProblems.get(i);
+		for(int i = 0; i<compilationProblems.size(); i++){
+			IProblem problem = compilationProblems.get(i);
 			String problemMessage = problem.toString().toLowerCase();
 			if(problemMessage.contains("collides")){
 				for(String arg : problem.getArguments()){
 					//checking if the compilation problem is related to the import statements
 					if(rightImportStatement.contains(arg) || leftImportStatement.contains(arg)){
-						compiler.compilationProblems.remove(i);//avoiding duplications
+						compilationProblems.remove(i);//avoiding duplications
 						return true;
 					}
 				}
 			}
 			else if(problemMessage.contains("ambiguous")){
-				compiler.compilationProblems.remove(i);//avoiding duplications
+				compilationProblems.remove(i);//avoiding duplications
 				return true;
 			}
 		}
@@ -182,7 +179,7 @@ public final class TypeAmbiguityErrorHandler implements ConflictHandler {
 	 */
 	private static void generateConflictWithImportStatements(MergeContext context, FSTNode leftImportNode, FSTNode rightImportNode, String conflictMessage) {
 		//first creates a conflict with the import statements
-		MergeConflict newConflict = new MergeConflict(leftImportNode, null, rightImportNode, conflictMessage);
+		MergeConflict newConflict = new MergeConflict(leftImportNode, null, rightImportNode, conflictMessage, context.getOptions());
 
 		String leftImportStatement = ((FSTTerminal) leftImportNode).getBody();
 		String rightImportStatement = ((FSTTerminal) rightImportNode).getBody();
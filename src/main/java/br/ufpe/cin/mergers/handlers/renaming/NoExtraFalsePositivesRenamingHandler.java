@@ -4,12 +4,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 import org.javatuples.Quartet;
 
 import br.ufpe.cin.exceptions.TextualMergeException;
-import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.mergers.util.MergeConflict;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.RenamingUtils;
@@ -95,12 +93,7 @@ public final class NoExtraFalsePositivesRenamingHandler implements RenamingHandl
         String nodeContent = ((FSTTerminal) node).getBody();
         String signature = RenamingUtils.getTrimmedSignature(nodeContent);
 
-        return FilesManager.extractMergeConflicts(context.unstructuredOutput)
-                .stream()
-                .map(Object::toString)
-                .map(StringUtils::deleteWhitespace)
-                .filter(conflict -> conflict.contains(signature))
-                .count() > 0;
+        return context.getUnstructuredConflicts().hasConflictContaining(signature);
     }
 
     private boolean isSingleRenaming(Quartet<FSTNode, FSTNode, FSTNode, FSTNode> scenarioNodes) {
@@ -1,19 +1,12 @@
 package br.ufpe.cin.mergers.handlers.renaming;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
-
-import org.eclipse.jdt.core.dom.ASTNode;
-import org.eclipse.jdt.core.dom.ASTVisitor;
-import org.eclipse.jdt.core.dom.CompilationUnit;
-import org.eclipse.jdt.core.dom.Expression;
-import org.eclipse.jdt.core.dom.MethodInvocation;
+
 import org.javatuples.Quartet;
 
 import br.ufpe.cin.exceptions.TextualMergeException;
-import br.ufpe.cin.files.FilesManager;
-import br.ufpe.cin.mergers.util.JavaCompiler;
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.mergers.util.CompilationProfile;
 import br.ufpe.cin.mergers.util.MergeContext;
 import br.ufpe.cin.mergers.util.RenamingUtils;
 import br.ufpe.cin.mergers.util.Side;
@@ -115,41 +108,14 @@ public class SafelyMergeSimilarRenamingHandler implements RenamingHandler {
 
     private boolean thereIsNewReference(FSTNode toNode, File inFile, MergeContext context) {
         String signature = toNode.getName();
-        int numberBaseReferences = countReferences(context.getBase(), signature);
-        int numberContributionReferences = countReferences(inFile, signature);
+        int numberBaseReferences = countReferences(context, context.getSnapshot(context.getBase()), signature);
+        int numberContributionReferences = countReferences(context, context.getSnapshot(inFile), signature);
         return numberContributionReferences > numberBaseReferences;
     }
 
-    private int countReferences(File file, String signature) {
-        String programSource = FilesManager.readFileContent(file);
-        CompilationUnit compilationUnit = new JavaCompiler().compile(programSource);
-        
-        List<org.eclipse.jdt.core.dom.ASTNode> instances = new ArrayList<ASTNode>();
-        compilationUnit.accept(new ASTVisitor() {
-            
-            @Override
-            public void endVisit(MethodInvocation node) {
-                if (sameSignatureAs(node, signature))
-                    instances.add(node);
-            }
-
-            private boolean sameSignatureAs(MethodInvocation node, String signature) {
-                String[] nameAndArguments = signature.split("[\\(\\)]");
-                String nodeMethodName = node.getName().toString();
-                return nodeMethodName.equals(nameAndArguments[0]) && sameArgumentList(node.arguments(), nameAndArguments[1].split("-"));
-            }
-
-            private boolean sameArgumentList(List nodeArguments, String[] arguments) {
-                for (int i = 0; i < nodeArguments.size(); i++) {
-                    String typeName = ((Expression) nodeArguments.get(i)).resolveTypeBinding().getName();
-                    if(!typeName.equals(arguments[i*2])) // Twice because the FST parser replicates the arguments.
-                        return false;
-                }
-                return true;
-            }
-
-        });
-        return instances.size();
+    private int countReferences(MergeContext context, FileSnapshot file, String signature) {
+        //invocations are matched by the types of their arguments, which are only known once bindings are resolved
+        return context.getCompilationService().getReferenceCounts(file.getContent(), CompilationProfile.BINDINGS).countInvocations(signature);
     }    
     
 }
\ No newline at end of file
@@ -0,0 +1,24 @@
+package br.ufpe.cin.mergers.util;
+
+/**
+ * What a compilation has to produce, from the cheapest to the most expensive, so callers ask only for
+ * what they use. Each profile gives everything the previous ones give.
+ * @author Guilherme
+ */
+public enum CompilationProfile {
+	/**
+	 * Declarations and method bodies, with statements recovered from syntax errors, but no bindings.
+	 */
+	SYNTAX_WITH_BODIES,
+	/**
+	 * Declarations, method bodies and resolved bindings, along with the compilation problems they reveal.
+	 */
+	BINDINGS;
+
+	/**
+	 * @return <b>true</b> if a compilation with this profile gives everything the given profile gives
+	 */
+	public boolean covers(CompilationProfile profile) {
+		return compareTo(profile) >= 0;
+	}
+}
@@ -0,0 +1,188 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+/**
+ * Compiles the sources needed by the conflict handlers of a merge, each distinct source at most once.
+ * Handlers compile the same sources over and over, such as the base file for each deleted inner class
+ * or for each renamed method, so compilation units are kept by content and by how bindings are resolved:
+ * either against the project of the merged files, or against the source alone.
+ * Handlers ask for the cheapest {@link CompilationProfile} they need, and a unit already compiled with
+ * a profile covering it is reused.
+ * Units are shared by the handlers, which must not modify them, and released once the handlers finish.
+ * A compilation in progress is shared as well: callers asking for a source being compiled wait for it instead
+ * of compiling it again. Compilations, and the waits for them, run outside the {@link MergeContext#getHandlersLock()
+ * handlers lock}, so handlers running in parallel overlap while they compile.
+ * @author Guilherme
+ */
+public final class CompilationService {
+
+	/**
+	 * How the bindings of a compiled source are resolved.
+	 */
+	private enum BindingMode {
+		//against the source alone
+		STANDALONE,
+		//against the sources and jars of the project of the merged files
+		PROJECT
+	}
+
+	private final MergeContext context;
+	private final Map<Key, CompletableFuture<CompilationUnit>> units = new HashMap<Key, CompletableFuture<CompilationUnit>>();
+	private final Map<Key, CompletableFuture<ReferenceCounts>> referenceCounts = new HashMap<Key, CompletableFuture<ReferenceCounts>>();
+
+	public CompilationService(MergeContext context) {
+		this.context = context;
+	}
+
+	/**
+	 * Compiles a given java source code, resolving its bindings against the source alone.
+	 * @param javaSource
+	 * @return CompilationUnit representing the compiled code, shared with other callers.
+	 */
+	public CompilationUnit compile(String javaSource) {
+		return compile(javaSource, CompilationProfile.BINDINGS);
+	}
+
+	/**
+	 * Compiles a given java source code with the given profile, resolving its bindings, if any, against the source alone.
+	 * @param javaSource
+	 * @param profile what the caller needs from the compilation
+	 * @return CompilationUnit representing the compiled code, shared with other callers.
+	 */
+	public CompilationUnit compile(String javaSource, CompilationProfile profile) {
+		return memoize(units, new Key(javaSource, BindingMode.STANDALONE, profile), () -> new JavaCompiler().compile(javaSource, profile));
+	}
+
+	/**
+	 * Counts the references of a given java source code, compiled as in {@link #compile(String, CompilationProfile)}.
+	 * Instances are counted with any profile keeping method bodies, while invocations are matched by the types
+	 * of their arguments, which only {@link CompilationProfile#BINDINGS} resolves.
+	 * @param javaSource
+	 * @param profile what the caller needs from the compilation
+	 * @return counts of the instances and invocations in the source, shared with other callers.
+	 */
+	public ReferenceCounts getReferenceCounts(String javaSource, CompilationProfile profile) {
+		return memoize(referenceCounts, new Key(javaSource, BindingMode.STANDALONE, profile), () -> new ReferenceCounts(compile(javaSource, profile)));
+	}
+
+	/**
+	 * Compiles an output of the merge, resolving its bindings against the project of the merged files.
+	 * @param source the output to be compiled, the semistructured one by default
+	 * @return CompilationUnit representing the compiled code, shared with other callers.
+	 */
+	public CompilationUnit compile(Source source) {
+		String javaSource = (source == Source.UNSTRUCTURED) ? context.unstructuredOutput : context.semistructuredOutput;
+		return memoize(units, new Key(javaSource, BindingMode.PROJECT, CompilationProfile.BINDINGS), () -> new JavaCompiler().compile(context, javaSource));
+	}
+
+	/**
+	 * Lists the compilation problems of an output of the merge, see {@link #compile(Source)}.
+	 * @param source the output to be compiled
+	 * @return problems of the compilation, in a list owned by the caller.
+	 */
+	public List<IProblem> getProblems(Source source) {
+		return new ArrayList<IProblem>(Arrays.asList(compile(source).getProblems()));
+	}
+
+	/**
+	 * Releases the compiled units, which hold the bindings of the whole project.
+	 */
+	public synchronized void clear() {
+		units.clear();
+		referenceCounts.clear();
+	}
+
+	/*
+	 * Gives the value kept for the key, or for the same source with a covering profile, waiting for it if it is being
+	 * computed. Otherwise, the first caller computes it while later callers wait for it. A failed computation is
+	 * forgotten, so the next caller tries it again.
+	 */
+	private <T> T memoize(Map<Key, CompletableFuture<T>> values, Key key, Supplier<T> computation) {
+		CompletableFuture<T> created = new CompletableFuture<T>();
+		CompletableFuture<T> value;
+		synchronized (this) {
+			value = lookUp(values, key);
+			if (value == null) {
+				value = values.computeIfAbsent(key, k -> created);
+			}
+		}
+		if (value != created) {
+			CompletableFuture<T> computing = value;
+			return context.runOutsideHandlersLock(() -> join(computing));
+		}
+
+		try {
+			T result = context.runOutsideHandlersLock(computation);
+			created.complete(result);
+			return result;
+		} catch (RuntimeException | Error e) {
+			synchronized (this) {
+				values.remove(key, created);
+			}
+			created.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	private static <T> T join(CompletableFuture<T> value) {
+		try {
+			return value.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw (e.getCause() instanceof RuntimeException) ? (RuntimeException) e.getCause() : e;
+		}
+	}
+
+	//the value kept for the source with the cheapest profile covering the one of the key, if any
+	private static <T> T lookUp(Map<Key, T> values, Key key) {
+		for (CompilationProfile covering : CompilationProfile.values()) {
+			if (covering.covers(key.profile)) {
+				T value = values.get(new Key(key.javaSource, key.mode, covering));
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static final class Key {
+		private final String javaSource;
+		private final BindingMode mode;
+		private final CompilationProfile profile;
+
+		Key(String javaSource, BindingMode mode, CompilationProfile profile) {
+			this.javaSource = javaSource;
+			this.mode = mode;
+			this.profile = profile;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(javaSource, mode, profile);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) other;
+			return mode == key.mode && profile == key.profile && Objects.equals(javaSource, key.javaSource);
+		}
+	}
+}
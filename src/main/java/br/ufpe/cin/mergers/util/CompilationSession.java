@@ -0,0 +1,183 @@
+package br.ufpe.cin.mergers.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+import br.ufpe.cin.files.FilesManager;
+
+/**
+ * Compilations of the merged files of a whole merge scenario, such as the merge of directories or revisions,
+ * made at once when every file is merged. Compiling each file on its own makes the compiler look up and resolve
+ * the sources and jars of the project again for every file, while compiling the files of the same project together
+ * resolves them once for all files. Only compilations whose results do not change the merged code, as those made for
+ * statistics, can wait for the end of the scenario, along with the actions depending on their results.
+ * <p>
+ * Compiled together, the outputs see each other: a type declared by another merged file of the same batch is resolved
+ * against that file's merged output, instead of the file found in the project's source directories. The compilation
+ * problems of an output, and the statistics counted from them, thus reflect the merged project rather than a single
+ * merged file among the files of one revision. They also depend on which outputs share the batch, which, when merging
+ * in parallel, depends on the order the merges finish in. Sessions are therefore only used when asked for, with
+ * {@code --batch-compilations}, and each merged file is compiled on its own by default.
+ * <p>
+ * The merged files wait for their compilations in batches of bounded size, so the contexts of a large scenario are not
+ * all kept until its end: once the bound is reached, the waiting compilations and actions are made right away.
+ * @author Guilherme
+ */
+public final class CompilationSession {
+
+	private static final int DEFAULT_MAXIMUM_PENDING_FILES = 100;
+
+	private final int maximumPendingFiles;
+	private final List<Request> requests = new ArrayList<Request>();
+	private final List<Runnable> followUps = new ArrayList<Runnable>();
+
+	//batches are finished one at a time, so the actions of a batch never run before the compilations of an earlier one
+	private final Object finishLock = new Object();
+
+	public CompilationSession() {
+		this(DEFAULT_MAXIMUM_PENDING_FILES);
+	}
+
+	/**
+	 * @param maximumPendingFiles how many merged files wait for their compilations at most, see {@link #afterCompilations(Runnable)}
+	 */
+	public CompilationSession(int maximumPendingFiles) {
+		this.maximumPendingFiles = maximumPendingFiles;
+	}
+
+	/**
+	 * Schedules the compilation of an output of the merge of a file, resolving its bindings against the project of the file.
+	 * @param context of the merge of the file
+	 * @param source the output to be compiled, as it is now
+	 * @param action to run with the compiled output
+	 */
+	public synchronized void compileLater(MergeContext context, Source source, Consumer<CompilationUnit> action) {
+		String javaSource = (source == Source.UNSTRUCTURED) ? context.unstructuredOutput : context.semistructuredOutput;
+		requests.add(new Request(context, javaSource, action));
+	}
+
+	/**
+	 * Schedules an action to run once the scheduled compilations are made, such as computing the statistics of a merged file.
+	 * Each merged file schedules one such action once it is merged, so the session finishes the current batch when the
+	 * actions reach the maximum of pending files.
+	 * @param action
+	 */
+	public void afterCompilations(Runnable action) {
+		boolean full;
+		synchronized (this) {
+			followUps.add(action);
+			full = followUps.size() >= maximumPendingFiles;
+		}
+		if (full) {
+			finish();
+		}
+	}
+
+	/**
+	 * Makes the scheduled compilations, grouped by the project of the merged files, and runs the actions waiting for them,
+	 * in the order they were scheduled.
+	 */
+	public void finish() {
+		synchronized (finishLock) {
+			List<Request> pendingRequests;
+			List<Runnable> pendingFollowUps;
+			synchronized (this) {
+				pendingRequests = new ArrayList<Request>(requests);
+				pendingFollowUps = new ArrayList<Runnable>(followUps);
+				requests.clear();
+				followUps.clear();
+			}
+			finish(pendingRequests, pendingFollowUps);
+		}
+	}
+
+	private static void finish(List<Request> pendingRequests, List<Runnable> pendingFollowUps) {
+		Map<List<String>, List<Request>> requestsByProject = new LinkedHashMap<List<String>, List<Request>>();
+		for (Request request : pendingRequests) {
+			List<String> project = Arrays.asList(FilesManager.estimateFilesProjectFolderPath(request.context));
+			requestsByProject.computeIfAbsent(project, key -> new ArrayList<Request>()).add(request);
+		}
+		Map<Request, CompilationUnit> units = new LinkedHashMap<Request, CompilationUnit>();
+		for (List<Request> projectRequests : requestsByProject.values()) {
+			units.putAll(compile(projectRequests));
+		}
+
+		for (Request request : pendingRequests) {
+			CompilationUnit unit = units.get(request);
+			if (unit == null) { //not compiled with the others, so compiled on its own
+				unit = new JavaCompiler().compile(request.context, request.javaSource);
+			}
+			request.action.accept(unit);
+		}
+		for (Runnable followUp : pendingFollowUps) {
+			followUp.run();
+		}
+	}
+
+	/*
+	 * The compiler reads the files to be compiled together from disk, so the outputs are written to a temporary
+	 * directory, each one under the name of the unit it would have if compiled on its own, which the compiler checks
+	 * against the declared public types. Outputs of contexts without files have no such name, and are left out.
+	 */
+	private static Map<Request, CompilationUnit> compile(List<Request> projectRequests) {
+		Path directory = null;
+		try {
+			directory = Files.createTempDirectory("jfstmerge");
+			Map<String, Request> requestsByPath = new LinkedHashMap<String, Request>();
+			JavaCompiler compiler = new JavaCompiler();
+			for (Request request : projectRequests) {
+				String unitName = compiler.generateUnitName(request.context);
+				if (!unitName.endsWith(".java")) { //without a file to be named after, it is compiled on its own
+					continue;
+				}
+				File file = new File(directory.resolve(String.valueOf(requestsByPath.size())).toFile(), unitName);
+				FileUtils.writeStringToFile(file, request.javaSource, StandardCharsets.UTF_8);
+				requestsByPath.put(file.getAbsolutePath(), request);
+			}
+			if (requestsByPath.isEmpty()) {
+				return Collections.emptyMap();
+			}
+
+			Map<String, CompilationUnit> unitsByPath = compiler.compile(requestsByPath.keySet().toArray(new String[0]), projectRequests.get(0).context);
+			Map<Request, CompilationUnit> units = new LinkedHashMap<Request, CompilationUnit>();
+			for (Map.Entry<String, Request> request : requestsByPath.entrySet()) {
+				CompilationUnit unit = unitsByPath.get(request.getKey());
+				if (unit != null) {
+					units.put(request.getValue(), unit);
+				}
+			}
+			return units;
+		} catch (IOException | RuntimeException e) { //the files are then compiled one by one
+			return Collections.emptyMap();
+		} finally {
+			if (directory != null) {
+				FileUtils.deleteQuietly(directory.toFile());
+			}
+		}
+	}
+
+	private static final class Request {
+		private final MergeContext context;
+		private final String javaSource;
+		private final Consumer<CompilationUnit> action;
+
+		Request(MergeContext context, String javaSource, Consumer<CompilationUnit> action) {
+			this.context = context;
+			this.javaSource = javaSource;
+			this.action = action;
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the merge conflicts of a merged code, built in a single pass over its lines.
+ * Conflicts are kept as their line numbers and the offsets of their left, base and right contents
+ * in the merged code, so nothing is copied until the conflicts themselves, or their contents without
+ * spacing for signature lookups, are first asked for. Lines end with a line feed, a carriage return
+ * or both, and each content line of a conflict ends with a line feed once extracted.
+ * An index is bound to one version of a merged code, see {@link MergeContext#getUnstructuredConflicts()}.
+ * @author Guilherme
+ */
+public final class ConflictIndex {
+
+	//areas of the merged code, as the line-based extraction of conflicts names them
+	private static final int NONE = 0;
+	private static final int LEFT = 1;
+	private static final int BASE = 2;
+	private static final int RIGHT = 3;
+
+	private static final int LINES = 2;
+	private static final int SPANS = 6;
+
+	private final String mergedCode;
+	private final MergeOptions options;
+
+	//per conflict: start and end lines, and the start and end offsets of its left, base and right contents
+	private int[] lines = new int[LINES * 4];
+	private int[] spans = new int[SPANS * 4];
+	private int size;
+
+	private List<MergeConflict> conflicts;
+	private String[] conflictsWithoutSpacing;
+
+	/**
+	 * Indexes the conflicts of the given merged code.
+	 * @param mergedCode
+	 * @param options settings of the merge, such as whether conflicts show base's contribution
+	 */
+	public ConflictIndex(String mergedCode, MergeOptions options) {
+		this.mergedCode = (mergedCode == null) ? "" : mergedCode;
+		this.options = options;
+		index();
+	}
+
+	/*
+	 * Reads the merged code line by line with the same state machine as the former line-based extraction:
+	 * a line containing a marker changes the current area only if the marker is expected there, any other
+	 * line belongs to the current area, and conflicts not closed by the end of the code are discarded.
+	 */
+	private void index() {
+		int length = mergedCode.length();
+		int lineCounter = 0;
+		int area = NONE;
+		int startLOC = 0;
+		int[] span = new int[SPANS];
+		int lineStart = 0;
+		while (lineStart < length) {
+			int lineEnd = lineStart;
+			while (lineEnd < length && mergedCode.charAt(lineEnd) != '\n' && mergedCode.charAt(lineEnd) != '\r') {
+				lineEnd++;
+			}
+			int nextLineStart = lineEnd;
+			if (nextLineStart < length && mergedCode.charAt(nextLineStart++) == '\r'
+					&& nextLineStart < length && mergedCode.charAt(nextLineStart) == '\n') {
+				nextLineStart++;
+			}
+			lineCounter++;
+
+			if (area == NONE && lineContains(lineStart, lineEnd, MergeConflict.MINE_CONFLICT_MARKER)) {
+				startLOC = lineCounter;
+				Arrays.fill(span, nextLineStart);
+				area = LEFT;
+			} else if (area == LEFT && lineContains(lineStart, lineEnd, MergeConflict.BASE_CONFLICT_MARKER)) {
+				span[1] = lineStart;
+				span[2] = span[3] = nextLineStart;
+				area = BASE;
+			} else if ((area == LEFT || area == BASE) && lineContains(lineStart, lineEnd, MergeConflict.CHANGE_CONFLICT_MARKER)) {
+				span[area * 2 - 1] = lineStart;
+				span[4] = nextLineStart;
+				area = RIGHT;
+			} else if (area == RIGHT && lineContains(lineStart, lineEnd, MergeConflict.YOURS_CONFLICT_MARKER)) {
+				span[5] = lineStart;
+				add(startLOC, lineCounter, span);
+				area = NONE;
+			}
+			lineStart = nextLineStart;
+		}
+	}
+
+	private boolean lineContains(int lineStart, int lineEnd, String marker) {
+		char first = marker.charAt(0);
+		for (int i = lineStart, last = lineEnd - marker.length(); i <= last; i++) {
+			if (mergedCode.charAt(i) == first && mergedCode.regionMatches(i, marker, 0, marker.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void add(int startLOC, int endLOC, int[] span) {
+		if (size * LINES == lines.length) {
+			lines = Arrays.copyOf(lines, lines.length * 2);
+			spans = Arrays.copyOf(spans, spans.length * 2);
+		}
+		lines[size * LINES] = startLOC;
+		lines[size * LINES + 1] = endLOC;
+		System.arraycopy(span, 0, spans, size * SPANS, SPANS);
+		size++;
+	}
+
+	/**
+	 * @return <b>true</b> if this index is of the given version of a merged code, which is the very same string
+	 */
+	public boolean isIndexOf(String mergedCode) {
+		return this.mergedCode == mergedCode || (mergedCode == null && this.mergedCode.isEmpty());
+	}
+
+	/**
+	 * @return number of conflicts of the merged code
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the conflicts of the merged code, in the order they appear
+	 */
+	public synchronized List<MergeConflict> getConflicts() {
+		if (conflicts == null) {
+			List<MergeConflict> extracted = new ArrayList<MergeConflict>(size);
+			for (int i = 0; i < size; i++) {
+				extracted.add(new MergeConflict(content(i, LEFT), content(i, BASE), content(i, RIGHT), "",
+						lines[i * LINES], lines[i * LINES + 1], options));
+			}
+			conflicts = Collections.unmodifiableList(extracted);
+		}
+		return conflicts;
+	}
+
+	/**
+	 * Looks up the conflict surrounding a line of the merged code, markers included.
+	 * @param line number of the line, starting at 1
+	 * @return the conflict, or <b>null</b> if the line is not in conflict
+	 */
+	public MergeConflict getConflictAt(int line) {
+		int conflict = conflictAt(line);
+		return (conflict < 0) ? null : getConflicts().get(conflict);
+	}
+
+	/**
+	 * @param line number of the line, starting at 1
+	 * @return <b>true</b> if the line of the merged code is surrounded by a conflict, markers included
+	 */
+	public boolean isConflictingLine(int line) {
+		return conflictAt(line) >= 0;
+	}
+
+	//conflicts do not overlap, so their start lines are sorted
+	private int conflictAt(int line) {
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int middle = (low + high) >>> 1;
+			if (lines[middle * LINES + 1] < line) {
+				low = middle + 1;
+			} else if (lines[middle * LINES] > line) {
+				high = middle - 1;
+			} else {
+				return middle;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether a conflict contains a signature when both are compared without spacing, as
+	 * {@link br.ufpe.cin.files.FilesManager#getStringContentIntoSingleLineNoSpacing(String)} represents them.
+	 * The conflicts are compared as their textual representation, markers included.
+	 * @param signatureWithoutSpacing
+	 * @return <b>true</b> if some conflict contains the signature
+	 */
+	public synchronized boolean hasConflictContaining(String signatureWithoutSpacing) {
+		if (conflictsWithoutSpacing == null) {
+			conflictsWithoutSpacing = new String[size];
+			for (int i = 0; i < size; i++) {
+				conflictsWithoutSpacing[i] = withoutSpacing(i);
+			}
+		}
+		for (String conflict : conflictsWithoutSpacing) {
+			if (conflict.contains(signatureWithoutSpacing)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	//same as the textual representation of the conflict with its spacing removed, without building it
+	private String withoutSpacing(int conflict) {
+		int offset = conflict * SPANS;
+		StringBuilder builder = new StringBuilder(spans[offset + 5] - spans[offset]);
+		appendWithoutSpacing(builder, MergeConflict.MINE_CONFLICT_MARKER, 0, MergeConflict.MINE_CONFLICT_MARKER.length());
+		appendWithoutSpacing(builder, mergedCode, spans[offset], spans[offset + 1]);
+		if (options.showBase()) {
+			appendWithoutSpacing(builder, MergeConflict.BASE_CONFLICT_MARKER, 0, MergeConflict.BASE_CONFLICT_MARKER.length());
+			appendWithoutSpacing(builder, mergedCode, spans[offset + 2], spans[offset + 3]);
+		}
+		builder.append(MergeConflict.CHANGE_CONFLICT_MARKER);
+		appendWithoutSpacing(builder, mergedCode, spans[offset + 4], spans[offset + 5]);
+		appendWithoutSpacing(builder, MergeConflict.YOURS_CONFLICT_MARKER, 0, MergeConflict.YOURS_CONFLICT_MARKER.length());
+		return builder.toString();
+	}
+
+	private static void appendWithoutSpacing(StringBuilder builder, String content, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = content.charAt(i);
+			if (!isSpacing(c)) {
+				builder.append(c);
+			}
+		}
+	}
+
+	//the characters of the \s regular expression class, and the null character
+	private static boolean isSpacing(char c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r' || c == '\u0000';
+	}
+
+	private String content(int conflict, int area) {
+		int offset = conflict * SPANS + (area - 1) * 2;
+		String content = mergedCode.substring(spans[offset], spans[offset + 1]);
+		return (content.indexOf('\r') < 0) ? content : content.replace("\r\n", "\n").replace('\r', '\n');
+	}
+}
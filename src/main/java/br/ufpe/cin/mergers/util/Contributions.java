@@ -0,0 +1,95 @@
+package br.ufpe.cin.mergers.util;
+
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Contents of a superimposed terminal node in each revision (left, base and right).
+ * Superimposition collects the contents of the revisions containing the node, and the
+ * contents are merged textually afterwards. A revision without the node contributes
+ * with empty content.
+ * @author Guilherme
+ */
+public final class Contributions {
+
+	private String leftBody = "";
+	private String baseBody = "";
+	private String rightBody = "";
+
+	private String leftPrefix = "";
+	private String basePrefix = "";
+	private String rightPrefix = "";
+
+	public Contributions() {
+	}
+
+	private Contributions(Contributions other) {
+		this.leftBody = other.leftBody;
+		this.baseBody = other.baseBody;
+		this.rightBody = other.rightBody;
+		this.leftPrefix = other.leftPrefix;
+		this.basePrefix = other.basePrefix;
+		this.rightPrefix = other.rightPrefix;
+	}
+
+	/**
+	 * @param terminal the node as it is in left
+	 */
+	public Contributions setLeft(FSTTerminal terminal) {
+		this.leftBody = contentOf(terminal.getBody());
+		this.leftPrefix = contentOf(terminal.getSpecialTokenPrefix());
+		return this;
+	}
+
+	/**
+	 * @param terminal the node as it is in base
+	 */
+	public Contributions setBase(FSTTerminal terminal) {
+		this.baseBody = contentOf(terminal.getBody());
+		this.basePrefix = contentOf(terminal.getSpecialTokenPrefix());
+		return this;
+	}
+
+	/**
+	 * @param terminal the node as it is in right
+	 */
+	public Contributions setRight(FSTTerminal terminal) {
+		this.rightBody = contentOf(terminal.getBody());
+		this.rightPrefix = contentOf(terminal.getSpecialTokenPrefix());
+		return this;
+	}
+
+	/**
+	 * @return an independent copy, for a copy of the node
+	 */
+	public Contributions copy() {
+		return new Contributions(this);
+	}
+
+	public String getLeftBody() {
+		return leftBody;
+	}
+
+	public String getBaseBody() {
+		return baseBody;
+	}
+
+	public String getRightBody() {
+		return rightBody;
+	}
+
+	public String getLeftPrefix() {
+		return leftPrefix;
+	}
+
+	public String getBasePrefix() {
+		return basePrefix;
+	}
+
+	public String getRightPrefix() {
+		return rightPrefix;
+	}
+
+	private static String contentOf(String content) {
+		return (content == null) ? "" : content;
+	}
+}
@@ -0,0 +1,28 @@
+package br.ufpe.cin.mergers.util;
+
+import org.eclipse.jgit.diff.DiffAlgorithm;
+import org.eclipse.jgit.diff.DiffAlgorithm.SupportedAlgorithm;
+
+/**
+ * Diff algorithms textual merge can match the lines of the revisions with.
+ * Histogram diff, JGit's default, is usually faster on contents with many repeated lines, such as
+ * blank lines and closing braces, and tends to align changes with unique lines.
+ * @author Guilherme
+ */
+public enum DiffAlgorithmType {
+	MYERS(SupportedAlgorithm.MYERS),
+	HISTOGRAM(SupportedAlgorithm.HISTOGRAM);
+
+	private final SupportedAlgorithm algorithm;
+
+	private DiffAlgorithmType(SupportedAlgorithm algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	/**
+	 * @return JGit's implementation of the algorithm
+	 */
+	public DiffAlgorithm getImplementation() {
+		return DiffAlgorithm.getAlgorithm(algorithm);
+	}
+}
@@ -0,0 +1,110 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * List whose elements are compared by identity, keeping their insertion order.
+ * Superimposition repeatedly asks whether a given node was added or deleted by a revision.
+ * Tree nodes consider structurally similar nodes as equal, and scanning a list for them takes linear time.
+ * Here, membership is answered in constant time by an identity hash table kept alongside the elements.
+ * @author Guilherme
+ */
+public final class IdentityList<E> extends AbstractList<E> {
+
+	private final List<E> elements = new ArrayList<E>();
+
+	//number of occurrences of each element
+	private final Map<E, Integer> occurrences = new IdentityHashMap<E, Integer>();
+
+	@Override
+	public E get(int index) {
+		return elements.get(index);
+	}
+
+	@Override
+	public int size() {
+		return elements.size();
+	}
+
+	@Override
+	public void add(int index, E element) {
+		elements.add(index, element);
+		occurrences.merge(element, 1, Integer::sum);
+		modCount++;
+	}
+
+	@Override
+	public E set(int index, E element) {
+		E previous = elements.set(index, element);
+		forget(previous);
+		occurrences.merge(element, 1, Integer::sum);
+		return previous;
+	}
+
+	@Override
+	public E remove(int index) {
+		E removed = elements.remove(index);
+		forget(removed);
+		modCount++;
+		return removed;
+	}
+
+	@Override
+	public void clear() {
+		elements.clear();
+		occurrences.clear();
+		modCount++;
+	}
+
+	/**
+	 * @return <b>true</b> if this very object is an element of the list
+	 */
+	@Override
+	public boolean contains(Object object) {
+		return occurrences.containsKey(object);
+	}
+
+	@Override
+	public int indexOf(Object object) {
+		if (!contains(object)) {
+			return -1;
+		}
+		for (int i = 0; i < elements.size(); i++) {
+			if (elements.get(i) == object) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public int lastIndexOf(Object object) {
+		if (!contains(object)) {
+			return -1;
+		}
+		for (int i = elements.size() - 1; i >= 0; i--) {
+			if (elements.get(i) == object) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public boolean remove(Object object) {
+		int index = indexOf(object);
+		if (index == -1) {
+			return false;
+		}
+		remove(index);
+		return true;
+	}
+
+	private void forget(E element) {
+		occurrences.computeIfPresent(element, (e, count) -> (count > 1) ? count - 1 : null);
+	}
+}
@@ -1,18 +1,22 @@
 package br.ufpe.cin.mergers.util;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.regex.Pattern;
 
-import org.apache.commons.io.FileUtils;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.dom.AST;
 import org.eclipse.jdt.core.dom.ASTParser;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.FileASTRequestor;
 
 import br.ufpe.cin.files.FilesManager;
 /**
@@ -30,40 +34,43 @@ public class JavaCompiler {
 	 */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
 	public CompilationUnit compile(MergeContext context, Source source){
-		String unitName 		= generateUnitName(context);
-		String[] sources 		= findResources(context,"java");
-		String[] classpaths 	= findResources(context,"jar");
-		
 		CompilationUnit cunit;
 		switch (source) {
 		case UNSTRUCTURED:
-			cunit = compile(unitName,context.unstructuredOutput,sources,classpaths);
+			cunit = compile(context,context.unstructuredOutput);
 			break;
 		case SEMISTRUCTURED:
-			cunit = compile(unitName,context.semistructuredOutput,sources,classpaths);
+			cunit = compile(context,context.semistructuredOutput);
 			break;
 		default:
-			cunit = compile(unitName,context.semistructuredOutput,sources,classpaths);
+			cunit = compile(context,context.semistructuredOutput);
 			break;
 		}
 		
 		this.compilationProblems= new ArrayList(Arrays.asList(cunit.getProblems()));
 		return cunit;
 	}
+
+	/**
+	 * Compiles a given java source code as a file of the project of the given MergeContext.
+	 * @param context whose project the source belongs to
+	 * @param javaSource
+	 * @return CompilationUnit representing the compiled code.
+	 */
+	CompilationUnit compile(MergeContext context, String javaSource){
+		String unitName 		= generateUnitName(context);
+		String[] sources 		= findResources(context,"java");
+		String[] classpaths 	= findResources(context,"jar");
+		return compile(unitName,javaSource,sources,classpaths);
+	}
 	/**
 	 * Compiles a given java source code.
 	 * @param javaSource
 	 * @param unitName being compiled
 	 * @return CompilationUnit representing the compiled code.
 	 */
-	@SuppressWarnings("unchecked")
 	public CompilationUnit compile(String unitName, String javaSource, String[] sources, String[] classpaths){
-		ASTParser parser = ASTParser.newParser(AST.JLS10);
-
-		Map<String, String> options = JavaCore.getOptions();
-		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
-
-		parser.setCompilerOptions(options);
+		ASTParser parser = newParser(CompilationProfile.BINDINGS);
 
 		//setUnitName for resolve bindings
 		parser.setUnitName(unitName);
@@ -74,12 +81,7 @@ public class JavaCompiler {
 		String[] encodings = fillEncondings(sources.length);
 		parser.setEnvironment(classpaths, sources, encodings, true);
 
-		parser.setResolveBindings(true);
-		parser.setStatementsRecovery(true);
-		parser.setBindingsRecovery(true);
 		parser.setSource(javaSource.toCharArray());
-		parser.setIgnoreMethodBodies(false);
-
 		return (CompilationUnit)parser.createAST(null);
 	}
 	
@@ -90,7 +92,65 @@ public class JavaCompiler {
 	 * @return CompilationUnit representing the compiled code.
 	 */
 	public CompilationUnit compile(String javaSource){
-		return compile("UnitName", javaSource, new String[]{}, new String[]{});
+		return compile(javaSource, CompilationProfile.BINDINGS);
+	}
+
+	/**
+	 * Compiles a given java source code with no more than the given profile asks for. Bindings, when asked for,
+	 * are resolved against the source alone.
+	 * @param javaSource
+	 * @param profile what the compilation has to produce
+	 * @return CompilationUnit representing the compiled code.
+	 */
+	public CompilationUnit compile(String javaSource, CompilationProfile profile){
+		if(profile == CompilationProfile.BINDINGS){
+			return compile("UnitName", javaSource, new String[]{}, new String[]{});
+		}
+		ASTParser parser = newParser(profile);
+		parser.setSource(javaSource.toCharArray());
+		return (CompilationUnit)parser.createAST(null);
+	}
+
+	/**
+	 * Compiles the given java source files at once, resolving their bindings against the project of the given merge context.
+	 * The project's sources and jars are looked up by one shared environment, instead of one environment per file.
+	 * @param sourceFilePaths files to be compiled, in UTF-8
+	 * @param context whose project the files belong to
+	 * @return CompilationUnit representing the compiled code of each file, by file path.
+	 */
+	public Map<String, CompilationUnit> compile(String[] sourceFilePaths, MergeContext context){
+		ASTParser parser = newParser(CompilationProfile.BINDINGS);
+		String[] sources 		= findResources(context,"java");
+		String[] classpaths 	= findResources(context,"jar");
+		parser.setEnvironment(classpaths, sources, fillEncondings(sources.length), true);
+
+		Map<String, CompilationUnit> cunits = new HashMap<String, CompilationUnit>();
+		String[] encodings = new String[sourceFilePaths.length];
+		Arrays.fill(encodings, StandardCharsets.UTF_8.name());
+		parser.createASTs(sourceFilePaths, encodings, new String[0], new FileASTRequestor() {
+			@Override
+			public void acceptAST(String sourceFilePath, CompilationUnit cunit) {
+				cunits.put(sourceFilePath, cunit);
+			}
+		}, null);
+		return cunits;
+	}
+
+	@SuppressWarnings("unchecked")
+	private ASTParser newParser(CompilationProfile profile){
+		ASTParser parser = ASTParser.newParser(AST.JLS10);
+
+		Map<String, String> options = JavaCore.getOptions();
+		JavaCore.setComplianceOptions(JavaCore.VERSION_1_8, options);
+
+		parser.setCompilerOptions(options);
+
+		boolean resolveBindings = profile.covers(CompilationProfile.BINDINGS);
+		parser.setResolveBindings(resolveBindings);
+		parser.setBindingsRecovery(resolveBindings);
+		parser.setStatementsRecovery(profile.covers(CompilationProfile.SYNTAX_WITH_BODIES));
+		parser.setIgnoreMethodBodies(!profile.covers(CompilationProfile.SYNTAX_WITH_BODIES));
+		return parser;
 	}
 
 	/**
@@ -104,7 +164,7 @@ public class JavaCompiler {
 	 * @param context
 	 * @return
 	 */
-	private String generateUnitName(MergeContext context) {
+	String generateUnitName(MergeContext context) {
 		String unitName = "";
 		try{
 			String projectpath = FilesManager.estimateProjectRootFolderPath(context);
@@ -149,26 +209,30 @@ public class JavaCompiler {
 
 	/**
 	 * Gets a list o files path with the given extension, related to the given merge context. 
+	 * The projects of the merged files are walked only once, see {@link ProjectIndex}.
 	 * @param context
-	 * @param fileExtension
+	 * @param fileExtension either "java" or "jar"
 	 * @return list of files path
 	 */
 	private String[] findResources(MergeContext context, String fileExtension){
 		//String projectpath = FilesManager.estimateProjectFolderPath(context);
-		String[] projectpaths = FilesManager.estimateFilesProjectFolderPath(context);
-		List<String> filespath= new ArrayList<String>();
+		Set<String> projectpaths = new LinkedHashSet<String>(Arrays.asList(FilesManager.estimateFilesProjectFolderPath(context)));
+		projectpaths.remove("");
+		Set<String> filespath = new LinkedHashSet<String>();
 		for(String path : projectpaths){
-			if(!path.isEmpty()){
-				List<File> files = (List<File>) FileUtils.listFiles(new File(path),new String[]{fileExtension}, true);
-				for(File f: files){
-					if(!filespath.contains(f.getParent())) 
-						filespath.add(f.getParent());
-				}
+			String[] directories = findResources(ProjectIndex.of(path), fileExtension);
+			if(projectpaths.size() == 1 && directories.length > 0){
+				return directories; //the merged files are usually in the same project, whose directories are taken as they are
 			}
+			filespath.addAll(Arrays.asList(directories));
 		}
 		return filespath.isEmpty()? (new String[] {""}) : filespath.toArray(new String[0]);
 	}
 
+	private String[] findResources(ProjectIndex index, String fileExtension){
+		return fileExtension.equals("jar") ? index.getLibraryDirectories() : index.getSourceDirectories();
+	}
+
 	private String[] fillEncondings(int size){
 		String[] encodings = new String[size];
 		for(int i = 0; i<size; i++){
@@ -2,7 +2,6 @@ package br.ufpe.cin.mergers.util;
 
 import java.io.File;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.files.FilesManager;
 import de.ovgu.cide.fstgen.ast.FSTNode;
 import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
@@ -37,11 +36,15 @@ public class MergeConflict {
 	public static final String YOURS_CONFLICT_MARKER = ">>>>>>> YOURS";
 
 	public MergeConflict(FSTNode left, FSTNode base, FSTNode right, String message) {
+		this(left, base, right, message, MergeOptions.fromCommandLine());
+	}
+
+	public MergeConflict(FSTNode left, FSTNode base, FSTNode right, String message, MergeOptions options) {
 		this.left = getNodeContent(left);
 		this.base = getNodeContent(base);
 		this.right = getNodeContent(right);
 		this.message = message;
-		this.body = assembleBody();
+		this.body = assembleBody(options);
 	}
 
 	private String getNodeContent(FSTNode node) {
@@ -54,20 +57,20 @@ public class MergeConflict {
 		}
 	}
 
-	private String assembleBody() {
+	private String assembleBody(MergeOptions options) {
 		StringBuilder conflict = new StringBuilder();
 		conflict.append(MINE_CONFLICT_MARKER)
 				.append('\n')
 				.append(left)
 				.append('\n');
-		if(JFSTMerge.showBase) {
+		if(options.showBase()) {
 			conflict.append(BASE_CONFLICT_MARKER)
 					.append('\n')
 					.append(base)
 					.append('\n');
 		}
 		conflict.append(CHANGE_CONFLICT_MARKER);
-		if(JFSTMerge.showConflictMessages) {
+		if(options.showConflictMessages()) {
 			conflict.append(" " + message);
 		}
 		conflict.append('\n')
@@ -84,15 +87,23 @@ public class MergeConflict {
 	}
 
 	public MergeConflict(String left, String base, String right, String message) {
+		this(left, base, right, message, MergeOptions.fromCommandLine());
+	}
+
+	public MergeConflict(String left, String base, String right, String message, MergeOptions options) {
 		this.left = left;
 		this.base = base;
 		this.right = right;
 		this.message = message;
-		this.body = assembleBody();
+		this.body = assembleBody(options);
 	}
 
 	public MergeConflict(String left, String base, String right, String message, int startLOC, int endLOC) {
-		this(left, base, right, message);
+		this(left, base, right, message, startLOC, endLOC, MergeOptions.fromCommandLine());
+	}
+
+	public MergeConflict(String left, String base, String right, String message, int startLOC, int endLOC, MergeOptions options) {
+		this(left, base, right, message, options);
 		this.startLOC = startLOC;
 		this.endLOC = endLOC;
 	}
@@ -2,13 +2,19 @@ package br.ufpe.cin.mergers.util;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.commons.lang3.tuple.Triple;
 
+import br.ufpe.cin.files.FileSnapshot;
 import br.ufpe.cin.files.FilesManager;
 import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
 /**
  * Encapsulates pertinent information of the merging process. A context
@@ -23,17 +29,30 @@ public class MergeContext {
 	String outputFilePath;
 	public String fullyQualifiedMergedClass  = "";
 
+	//settings of the merge, fixed when it starts
+	private final MergeOptions options;
+
 
 	String baseContent = "";
 	String leftContent = "";
 	String rightContent= "";
 
-	public List<FSTNode> addedLeftNodes = new ArrayList<FSTNode>();
-	public List<FSTNode> addedRightNodes= new ArrayList<FSTNode>();
+	//files are read only once, and their snapshots shared by every step of the merge
+	private FileSnapshot baseSnapshot;
+	private FileSnapshot leftSnapshot;
+	private FileSnapshot rightSnapshot;
+
+	//nodes are looked up by identity during superimposition, so these lists answer membership in constant time
+	public List<FSTNode> addedLeftNodes = new IdentityList<FSTNode>();
+	public List<FSTNode> addedRightNodes= new IdentityList<FSTNode>();
+
+	//import declarations added by each revision, taken from the other added nodes for the type ambiguity handler
+	public List<FSTNode> addedLeftImportStatements = new IdentityList<FSTNode>();
+	public List<FSTNode> addedRightImportStatements= new IdentityList<FSTNode>();
 
-	public List<FSTNode> deletedBaseNodes = new ArrayList<FSTNode>();
-	public List<FSTNode> nodesDeletedByLeft = new ArrayList<FSTNode>(); 
-	public List<FSTNode> nodesDeletedByRight= new ArrayList<FSTNode>();
+	public List<FSTNode> deletedBaseNodes = new IdentityList<FSTNode>();
+	public List<FSTNode> nodesDeletedByLeft = new IdentityList<FSTNode>(); 
+	public List<FSTNode> nodesDeletedByRight= new IdentityList<FSTNode>();
 
 	public List<Pair<Side, FSTNode>> renamedWithoutBodyChanges = new ArrayList<>();
 	public List<Pair<Side, FSTNode>> deletedOrRenamedWithBodyChanges = new ArrayList<>();
@@ -41,8 +60,14 @@ public class MergeContext {
 	public List<Pair<String,FSTNode>> possibleRenamedLeftNodes = new ArrayList<Pair<String,FSTNode>>();
 	public List<Pair<String,FSTNode>> possibleRenamedRightNodes= new ArrayList<Pair<String,FSTNode>>();
 
-	public List<FSTNode> editedLeftNodes = new ArrayList<FSTNode>(); 
-	public List<FSTNode> editedRightNodes= new ArrayList<FSTNode>();
+	public List<FSTNode> editedLeftNodes = new IdentityList<FSTNode>(); 
+	public List<FSTNode> editedRightNodes= new IdentityList<FSTNode>();
+
+	//contents of the superimposed terminals in each revision, merged once superimposition finishes
+	public Map<FSTNode, Contributions> contributions = new IdentityHashMap<FSTNode, Contributions>();
+
+	//content hashes of the subtrees of the merged trees, so superimposition skips subtrees untouched by the revisions
+	public SubtreeHashes subtreeHashes = new SubtreeHashes();
 
 
 	public FSTNode leftTree;
@@ -52,6 +77,19 @@ public class MergeContext {
 	public String semistructuredOutput;
 	public String unstructuredOutput;
 
+	//conflicts of each output, indexed once per version of the output
+	private ConflictIndex semistructuredConflicts;
+	private ConflictIndex unstructuredConflicts;
+
+	//sources compiled by the conflict handlers, each one compiled only once
+	private final CompilationService compilationService = new CompilationService(this);
+
+	//compilations of the merge scenario this merge belongs to, if any
+	private CompilationSession compilationSession;
+
+	//held by each conflict handler while it changes the merge, see HandlerScheduler
+	private final ReentrantLock handlersLock = new ReentrantLock();
+
 	//statistics
 	public int newElementReferencingEditedOneConflicts = 0;
 	public int renamingConflicts = 0;
@@ -71,17 +109,31 @@ public class MergeContext {
 	public int equalConflicts     = 0;
 
 	public MergeContext(){
+		this(MergeOptions.fromCommandLine());
+	}
+
+	public MergeContext(MergeOptions options){
+		this.options = options;
 	}
 
 	public MergeContext(File left, File base, File right, String outputFilePath) {
+		this(left, base, right, outputFilePath, MergeOptions.fromCommandLine());
+	}
+
+	public MergeContext(File left, File base, File right, String outputFilePath, MergeOptions options) {
+		this.options = options;
 		this.left = left;
 		this.base = base;
 		this.right= right;
 		this.outputFilePath = outputFilePath;
 
-		this.leftContent = FilesManager.readFileContent(this.left);
-		this.baseContent = FilesManager.readFileContent(this.base);
-		this.rightContent= FilesManager.readFileContent(this.right);
+		this.leftSnapshot = FileSnapshot.read(this.left);
+		this.baseSnapshot = FileSnapshot.read(this.base);
+		this.rightSnapshot= FileSnapshot.read(this.right);
+
+		this.leftContent = leftSnapshot.getContent();
+		this.baseContent = baseSnapshot.getContent();
+		this.rightContent= rightSnapshot.getContent();
 
 		this.setFullQualifiedMergedClassName();
 	}
@@ -94,6 +146,9 @@ public class MergeContext {
 		this.addedLeftNodes. addAll(otherContext.addedLeftNodes);
 		this.addedRightNodes.addAll(otherContext.addedRightNodes);
 
+		this.addedLeftImportStatements. addAll(otherContext.addedLeftImportStatements);
+		this.addedRightImportStatements.addAll(otherContext.addedRightImportStatements);
+
 		this.editedLeftNodes. addAll(otherContext.editedLeftNodes);
 		this.editedRightNodes.addAll(otherContext.editedRightNodes);
 
@@ -121,6 +176,98 @@ public class MergeContext {
 		return this;
 	}
 
+	/**
+	 * Moves the import declarations added by each revision from {@link #addedLeftNodes} and {@link #addedRightNodes}
+	 * to {@link #addedLeftImportStatements} and {@link #addedRightImportStatements}, for the type ambiguity handler.
+	 * Called once, before the conflict handlers run, when that handler, the first of them, is enabled.
+	 * <p>
+	 * The node following each moved import is not looked at, as when the handler removed the imports from the added
+	 * nodes while iterating them: an import right after another one stays among the added nodes, and is not examined.
+	 */
+	public void separateAddedImportStatements() {
+		separateImportStatements(addedLeftNodes, addedLeftImportStatements);
+		separateImportStatements(addedRightNodes, addedRightImportStatements);
+	}
+
+	private static void separateImportStatements(List<FSTNode> addedNodes, List<FSTNode> importStatements) {
+		for (int i = 0; i < addedNodes.size(); i++) {
+			FSTNode node = addedNodes.get(i);
+			if ((node instanceof FSTTerminal) && node.getType().contains("ImportDeclaration")) {
+				importStatements.add(node);
+				addedNodes.remove(i); //the next node takes its index, and is skipped
+			}
+		}
+	}
+
+	public MergeOptions getOptions() {
+		return options;
+	}
+
+	public CompilationService getCompilationService() {
+		return compilationService;
+	}
+
+	/**
+	 * @return compilations of the merge scenario this merge belongs to, or <b>null</b> if the file is merged on its own
+	 */
+	public CompilationSession getCompilationSession() {
+		return compilationSession;
+	}
+
+	public void setCompilationSession(CompilationSession compilationSession) {
+		this.compilationSession = compilationSession;
+	}
+
+	/**
+	 * @return lock held by a conflict handler while it reads or changes the merge, when handlers run in parallel
+	 */
+	public ReentrantLock getHandlersLock() {
+		return handlersLock;
+	}
+
+	/**
+	 * Runs a step touching nothing shared by the conflict handlers, such as a compilation, letting other handlers
+	 * run meanwhile if the current thread holds the {@link #getHandlersLock() handlers lock}. The lock is held
+	 * again once the step finishes.
+	 * @param step
+	 * @return result of the step
+	 */
+	public <T> T runOutsideHandlersLock(Supplier<T> step) {
+		int holdCount = handlersLock.getHoldCount();
+		for (int i = 0; i < holdCount; i++) {
+			handlersLock.unlock();
+		}
+		try {
+			return step.get();
+		} finally {
+			for (int i = 0; i < holdCount; i++) {
+				handlersLock.lock();
+			}
+		}
+	}
+
+	/**
+	 * Returns the conflicts of the semistructured output, indexing them only if the output changed since they were last asked for.
+	 * @return index of the conflicts of the current semistructured output
+	 */
+	public synchronized ConflictIndex getSemistructuredConflicts() {
+		if (semistructuredConflicts == null || !semistructuredConflicts.isIndexOf(semistructuredOutput)) {
+			semistructuredConflicts = new ConflictIndex(semistructuredOutput, options);
+		}
+		return semistructuredConflicts;
+	}
+
+	/**
+	 * Returns the conflicts of the unstructured output, indexing them only if the output changed since they were last asked for.
+	 * @return index of the conflicts of the current unstructured output
+	 */
+	public synchronized ConflictIndex getUnstructuredConflicts() {
+		if (unstructuredConflicts == null || !unstructuredConflicts.isIndexOf(unstructuredOutput)) {
+			unstructuredConflicts = new ConflictIndex(unstructuredOutput, options);
+		}
+		return unstructuredConflicts;
+	}
+
 	public File getBase() {
 		return base;
 	}
@@ -145,6 +292,39 @@ public class MergeContext {
 		this.left = left;
 	}
 
+	/**
+	 * Drops the raw bytes of the merged files, once they are parsed and textually merged.
+	 */
+	public void releaseFileBytes() {
+		for (FileSnapshot snapshot : new FileSnapshot[] {leftSnapshot, baseSnapshot, rightSnapshot}) {
+			if (snapshot != null) snapshot.releaseBytes();
+		}
+	}
+
+	public FileSnapshot getBaseSnapshot() {
+		return baseSnapshot;
+	}
+
+	public FileSnapshot getLeftSnapshot() {
+		return leftSnapshot;
+	}
+
+	public FileSnapshot getRightSnapshot() {
+		return rightSnapshot;
+	}
+
+	/**
+	 * Returns the snapshot of one of the merged files, reading the file only if it is not part of this context.
+	 * @param file left, base or right file of this context
+	 * @return snapshot of the file
+	 */
+	public FileSnapshot getSnapshot(File file) {
+		for (FileSnapshot snapshot : new FileSnapshot[] {leftSnapshot, baseSnapshot, rightSnapshot}) {
+			if (snapshot != null && snapshot.getFile() == file) return snapshot;
+		}
+		return FileSnapshot.read(file);
+	}
+
 	public String getBaseContent() {
 		return baseContent;
 	}
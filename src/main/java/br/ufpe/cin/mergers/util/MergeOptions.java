@@ -0,0 +1,276 @@
+package br.ufpe.cin.mergers.util;
+
+import br.ufpe.cin.app.JFSTMerge;
+
+/**
+ * Immutable set of settings of a single merge. The settings travel with the
+ * {@link MergeContext}, so merges with different settings can run at the same time.
+ * Settings given in the command line are captured by {@link #fromCommandLine()}.
+ * @author Guilherme
+ */
+public final class MergeOptions {
+
+	private final boolean git;
+	private final boolean showUnstructuredOutput;
+	private final boolean logFiles;
+	private final boolean whitespaceIgnored;
+	private final boolean keepBothVersionsOfRenamedMethod;
+	private final RenamingStrategy renamingStrategy;
+	private final boolean showConflictMessages;
+	private final boolean showBase;
+	private final boolean duplicatedDeclarationHandlerEnabled;
+	private final boolean initializationBlocksHandlerEnabled;
+	private final boolean initializationBlocksHandlerMultipleBlocksEnabled;
+	private final boolean newElementReferencingEditedOneHandlerEnabled;
+	private final boolean methodAndConstructorRenamingAndDeletionHandlerEnabled;
+	private final boolean typeAmbiguityErrorHandlerEnabled;
+	private final boolean parseTreeCachePersisted;
+	private final boolean singlePassSuperimpositionEnabled;
+	private final boolean parallelHandlersEnabled;
+	private final DiffAlgorithmType diffAlgorithm;
+
+	private MergeOptions(Builder builder) {
+		this.git = builder.git;
+		this.showUnstructuredOutput = builder.showUnstructuredOutput;
+		this.logFiles = builder.logFiles;
+		this.whitespaceIgnored = builder.whitespaceIgnored;
+		this.keepBothVersionsOfRenamedMethod = builder.keepBothVersionsOfRenamedMethod;
+		this.renamingStrategy = builder.renamingStrategy;
+		this.showConflictMessages = builder.showConflictMessages;
+		this.showBase = builder.showBase;
+		this.duplicatedDeclarationHandlerEnabled = builder.duplicatedDeclarationHandlerEnabled;
+		this.initializationBlocksHandlerEnabled = builder.initializationBlocksHandlerEnabled;
+		this.initializationBlocksHandlerMultipleBlocksEnabled = builder.initializationBlocksHandlerMultipleBlocksEnabled;
+		this.newElementReferencingEditedOneHandlerEnabled = builder.newElementReferencingEditedOneHandlerEnabled;
+		this.methodAndConstructorRenamingAndDeletionHandlerEnabled = builder.methodAndConstructorRenamingAndDeletionHandlerEnabled;
+		this.typeAmbiguityErrorHandlerEnabled = builder.typeAmbiguityErrorHandlerEnabled;
+		this.parseTreeCachePersisted = builder.parseTreeCachePersisted;
+		this.singlePassSuperimpositionEnabled = builder.singlePassSuperimpositionEnabled;
+		this.parallelHandlersEnabled = builder.parallelHandlersEnabled;
+		this.diffAlgorithm = builder.diffAlgorithm;
+	}
+
+	/**
+	 * Captures the current values of the command line options of {@link JFSTMerge}.
+	 * @return options of a merge started now
+	 */
+	public static MergeOptions fromCommandLine() {
+		return new Builder()
+				.git(JFSTMerge.isGit)
+				.showUnstructuredOutput(JFSTMerge.showUnstructuredOutput)
+				.logFiles(JFSTMerge.logFiles)
+				.whitespaceIgnored(JFSTMerge.isWhitespaceIgnored)
+				.keepBothVersionsOfRenamedMethod(JFSTMerge.keepBothVersionsOfRenamedMethod)
+				.renamingStrategy(JFSTMerge.renamingStrategy)
+				.showConflictMessages(JFSTMerge.showConflictMessages)
+				.showBase(JFSTMerge.showBase)
+				.duplicatedDeclarationHandlerEnabled(JFSTMerge.isDuplicatedDeclarationHandlerEnabled)
+				.initializationBlocksHandlerEnabled(JFSTMerge.isInitializationBlocksHandlerEnabled)
+				.initializationBlocksHandlerMultipleBlocksEnabled(JFSTMerge.isInitializationBlocksHandlerMultipleBlocksEnabled)
+				.newElementReferencingEditedOneHandlerEnabled(JFSTMerge.isNewElementReferencingEditedOneHandlerEnabled)
+				.methodAndConstructorRenamingAndDeletionHandlerEnabled(JFSTMerge.isMethodAndConstructorRenamingAndDeletionHandlerEnabled)
+				.typeAmbiguityErrorHandlerEnabled(JFSTMerge.isTypeAmbiguityErrorHandlerEnabled)
+				.parseTreeCachePersisted(JFSTMerge.isParseTreeCachePersisted)
+				.singlePassSuperimpositionEnabled(JFSTMerge.isSinglePassSuperimpositionEnabled)
+				.parallelHandlersEnabled(JFSTMerge.isParallelHandlersEnabled)
+				.diffAlgorithm(JFSTMerge.diffAlgorithm)
+				.build();
+	}
+
+	/**
+	 * @return a builder initialized with the default values of the command line options
+	 */
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	public boolean isGit() {
+		return git;
+	}
+
+	public boolean showUnstructuredOutput() {
+		return showUnstructuredOutput;
+	}
+
+	public boolean logFiles() {
+		return logFiles;
+	}
+
+	public boolean isWhitespaceIgnored() {
+		return whitespaceIgnored;
+	}
+
+	public boolean keepBothVersionsOfRenamedMethod() {
+		return keepBothVersionsOfRenamedMethod;
+	}
+
+	public RenamingStrategy getRenamingStrategy() {
+		return renamingStrategy;
+	}
+
+	public boolean showConflictMessages() {
+		return showConflictMessages;
+	}
+
+	public boolean showBase() {
+		return showBase;
+	}
+
+	public boolean isDuplicatedDeclarationHandlerEnabled() {
+		return duplicatedDeclarationHandlerEnabled;
+	}
+
+	public boolean isInitializationBlocksHandlerEnabled() {
+		return initializationBlocksHandlerEnabled;
+	}
+
+	public boolean isInitializationBlocksHandlerMultipleBlocksEnabled() {
+		return initializationBlocksHandlerMultipleBlocksEnabled;
+	}
+
+	public boolean isNewElementReferencingEditedOneHandlerEnabled() {
+		return newElementReferencingEditedOneHandlerEnabled;
+	}
+
+	public boolean isMethodAndConstructorRenamingAndDeletionHandlerEnabled() {
+		return methodAndConstructorRenamingAndDeletionHandlerEnabled;
+	}
+
+	public boolean isTypeAmbiguityErrorHandlerEnabled() {
+		return typeAmbiguityErrorHandlerEnabled;
+	}
+
+	public boolean isParseTreeCachePersisted() {
+		return parseTreeCachePersisted;
+	}
+
+	public boolean isSinglePassSuperimpositionEnabled() {
+		return singlePassSuperimpositionEnabled;
+	}
+
+	public boolean isParallelHandlersEnabled() {
+		return parallelHandlersEnabled;
+	}
+
+	public DiffAlgorithmType getDiffAlgorithm() {
+		return diffAlgorithm;
+	}
+
+	public static final class Builder {
+		private boolean git = false;
+		private boolean showUnstructuredOutput = true;
+		private boolean logFiles = true;
+		private boolean whitespaceIgnored = true;
+		private boolean keepBothVersionsOfRenamedMethod = false;
+		private RenamingStrategy renamingStrategy = RenamingStrategy.SAFELY_MERGE_SIMILAR;
+		private boolean showConflictMessages = false;
+		private boolean showBase = false;
+		private boolean duplicatedDeclarationHandlerEnabled = true;
+		private boolean initializationBlocksHandlerEnabled = true;
+		private boolean initializationBlocksHandlerMultipleBlocksEnabled = false;
+		private boolean newElementReferencingEditedOneHandlerEnabled = true;
+		private boolean methodAndConstructorRenamingAndDeletionHandlerEnabled = true;
+		private boolean typeAmbiguityErrorHandlerEnabled = true;
+		private boolean parseTreeCachePersisted = false;
+		private boolean singlePassSuperimpositionEnabled = false;
+		private boolean parallelHandlersEnabled = false;
+		private DiffAlgorithmType diffAlgorithm = DiffAlgorithmType.HISTOGRAM;
+
+		private Builder() {
+		}
+
+		public Builder git(boolean git) {
+			this.git = git;
+			return this;
+		}
+
+		public Builder showUnstructuredOutput(boolean showUnstructuredOutput) {
+			this.showUnstructuredOutput = showUnstructuredOutput;
+			return this;
+		}
+
+		public Builder logFiles(boolean logFiles) {
+			this.logFiles = logFiles;
+			return this;
+		}
+
+		public Builder whitespaceIgnored(boolean whitespaceIgnored) {
+			this.whitespaceIgnored = whitespaceIgnored;
+			return this;
+		}
+
+		public Builder keepBothVersionsOfRenamedMethod(boolean keepBothVersionsOfRenamedMethod) {
+			this.keepBothVersionsOfRenamedMethod = keepBothVersionsOfRenamedMethod;
+			return this;
+		}
+
+		public Builder renamingStrategy(RenamingStrategy renamingStrategy) {
+			this.renamingStrategy = renamingStrategy;
+			return this;
+		}
+
+		public Builder showConflictMessages(boolean showConflictMessages) {
+			this.showConflictMessages = showConflictMessages;
+			return this;
+		}
+
+		public Builder showBase(boolean showBase) {
+			this.showBase = showBase;
+			return this;
+		}
+
+		public Builder duplicatedDeclarationHandlerEnabled(boolean enabled) {
+			this.duplicatedDeclarationHandlerEnabled = enabled;
+			return this;
+		}
+
+		public Builder initializationBlocksHandlerEnabled(boolean enabled) {
+			this.initializationBlocksHandlerEnabled = enabled;
+			return this;
+		}
+
+		public Builder initializationBlocksHandlerMultipleBlocksEnabled(boolean enabled) {
+			this.initializationBlocksHandlerMultipleBlocksEnabled = enabled;
+			return this;
+		}
+
+		public Builder newElementReferencingEditedOneHandlerEnabled(boolean enabled) {
+			this.newElementReferencingEditedOneHandlerEnabled = enabled;
+			return this;
+		}
+
+		public Builder methodAndConstructorRenamingAndDeletionHandlerEnabled(boolean enabled) {
+			this.methodAndConstructorRenamingAndDeletionHandlerEnabled = enabled;
+			return this;
+		}
+
+		public Builder typeAmbiguityErrorHandlerEnabled(boolean enabled) {
+			this.typeAmbiguityErrorHandlerEnabled = enabled;
+			return this;
+		}
+
+		public Builder parseTreeCachePersisted(boolean persisted) {
+			this.parseTreeCachePersisted = persisted;
+			return this;
+		}
+
+		public Builder singlePassSuperimpositionEnabled(boolean enabled) {
+			this.singlePassSuperimpositionEnabled = enabled;
+			return this;
+		}
+
+		public Builder parallelHandlersEnabled(boolean enabled) {
+			this.parallelHandlersEnabled = enabled;
+			return this;
+		}
+
+		public Builder diffAlgorithm(DiffAlgorithmType diffAlgorithm) {
+			this.diffAlgorithm = diffAlgorithm;
+			return this;
+		}
+
+		public MergeOptions build() {
+			return new MergeOptions(this);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package br.ufpe.cin.mergers.util;
+
+/**
+ * Parts of a merge that conflict handlers read or change: the nodes of the superimposed tree, by kind,
+ * and the lists of nodes the superimposition fills in the {@link MergeContext}. The inputs of the handlers,
+ * such as the revisions, their trees and the outputs printed before the handlers run, are not changed by any
+ * handler, so they are not declared. Each statistics counter of the context is changed by a single handler.
+ * @author Guilherme
+ */
+public enum MergeResource {
+	/**
+	 * Import declarations of the superimposed tree, including those added by each revision, as in
+	 * {@link MergeContext#addedLeftImportStatements}. Top-level types are placed among them.
+	 */
+	IMPORTS,
+	/**
+	 * Method and constructor declarations of the superimposed tree.
+	 */
+	METHODS_AND_CONSTRUCTORS,
+	/**
+	 * Field declarations of the superimposed tree.
+	 */
+	FIELDS,
+	/**
+	 * Initialization blocks of the superimposed tree.
+	 */
+	INITIALIZERS,
+	/**
+	 * Class, interface and enum declarations of the superimposed tree, as a whole.
+	 */
+	TYPES,
+	/**
+	 * {@link MergeContext#addedLeftNodes} and {@link MergeContext#addedRightNodes}.
+	 */
+	ADDED_NODES,
+	/**
+	 * {@link MergeContext#editedLeftNodes} and {@link MergeContext#editedRightNodes}.
+	 */
+	EDITED_NODES,
+	/**
+	 * {@link MergeContext#deletedBaseNodes}, {@link MergeContext#nodesDeletedByLeft} and {@link MergeContext#nodesDeletedByRight}.
+	 */
+	DELETED_NODES,
+	/**
+	 * The lists of nodes possibly renamed or deleted, such as {@link MergeContext#renamedWithoutBodyChanges}.
+	 */
+	RENAMED_NODES
+}
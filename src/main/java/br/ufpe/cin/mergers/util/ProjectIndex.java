@@ -0,0 +1,120 @@
+package br.ufpe.cin.mergers.util;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Index of the directories of a project holding java sources and jars, as given to the compiler to resolve bindings.
+ * Walking a large project takes longer than compiling the merged file, and every compilation of every merged file
+ * of the project needs the same directories, so each project is walked once per process and its index shared.
+ * An index knows the directories it walked and their modification times: adding, removing or renaming a file or a
+ * directory changes the modification time of the directory holding it, so an index whose directories changed is
+ * walked again when next asked for. A long running process, such as the merge server, keeps the indexes of the
+ * {@link #CAPACITY} projects used most recently only.
+ * @author Guilherme
+ */
+public final class ProjectIndex {
+
+	private static final int CAPACITY = 16;
+
+	//indexes shared by every merge of the running process, by project root path, in access order
+	private static final Map<String, ProjectIndex> INDEXES = new LinkedHashMap<String, ProjectIndex>(16, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ProjectIndex> eldest) {
+			return size() > CAPACITY;
+		}
+	};
+
+	private final String[] sourceDirectories;
+	private final String[] libraryDirectories;
+
+	//walked directories, and their modification times when walked
+	private final File[] directories;
+	private final long[] lastModified;
+
+	private ProjectIndex(File root) {
+		Set<String> sources = new LinkedHashSet<String>();
+		Set<String> libraries = new LinkedHashSet<String>();
+		List<File> walked = new ArrayList<File>();
+		walk(root, sources, libraries, walked);
+
+		this.sourceDirectories = sources.toArray(new String[0]);
+		this.libraryDirectories = libraries.toArray(new String[0]);
+		this.directories = walked.toArray(new File[0]);
+		this.lastModified = new long[directories.length];
+		for (int i = 0; i < directories.length; i++) {
+			lastModified[i] = directories[i].lastModified();
+		}
+	}
+
+	/**
+	 * Returns the index of a project, walking the project only if it was not walked yet or changed since.
+	 * Concurrent merges of the same project wait for a single walk.
+	 * @param projectPath root path of the project
+	 * @return index of the project
+	 */
+	public static ProjectIndex of(String projectPath) {
+		synchronized (INDEXES) {
+			ProjectIndex index = INDEXES.get(projectPath);
+			if (index == null || !index.isUpToDate()) {
+				index = new ProjectIndex(new File(projectPath));
+				INDEXES.put(projectPath, index);
+			}
+			return index;
+		}
+	}
+
+	/*
+	 * Walks the directory depth-first, in the same order as FileUtils.listFiles, taking
+	 * the parent directory of each .java and .jar file.
+	 */
+	private static void walk(File directory, Set<String> sources, Set<String> libraries, List<File> walked) {
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		walked.add(directory);
+		for (File file : files) {
+			if (file.isDirectory()) {
+				walk(file, sources, libraries, walked);
+			} else if (file.getName().endsWith(".java")) {
+				sources.add(file.getParent());
+			} else if (file.getName().endsWith(".jar")) {
+				libraries.add(file.getParent());
+			}
+		}
+	}
+
+	private boolean isUpToDate() {
+		if (directories.length == 0) {
+			return false;
+		}
+		for (int i = 0; i < directories.length; i++) {
+			if (directories[i].lastModified() != lastModified[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return directories holding java source files, shared by every caller and not to be modified
+	 */
+	public String[] getSourceDirectories() {
+		return sourceDirectories;
+	}
+
+	/**
+	 * @return directories holding jar files, shared by every caller and not to be modified
+	 */
+	public String[] getLibraryDirectories() {
+		return libraryDirectories;
+	}
+}
@@ -0,0 +1,87 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.core.dom.ASTVisitor;
+import org.eclipse.jdt.core.dom.ClassInstanceCreation;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.Expression;
+import org.eclipse.jdt.core.dom.ITypeBinding;
+import org.eclipse.jdt.core.dom.MethodInvocation;
+
+/**
+ * Counts of the instances created of each type and of the invocations of each method in a compiled source,
+ * gathered in a single walk of its tree. Handlers compare these counts between revisions for every deleted or
+ * renamed member, so each revision is walked once instead of once per member.
+ * @author Guilherme
+ */
+public final class ReferenceCounts {
+
+	//instance creations, by created type as written in the source
+	private final Map<String, Integer> instances = new HashMap<String, Integer>();
+
+	//method invocations, by method name and then by the type names of the arguments
+	private final Map<String, Map<List<String>, Integer>> invocations = new HashMap<String, Map<List<String>, Integer>>();
+
+	public ReferenceCounts(CompilationUnit unit) {
+		unit.accept(new ASTVisitor() {
+			@Override
+			public boolean visit(ClassInstanceCreation node) {
+				instances.merge(node.getType().toString(), 1, Integer::sum);
+				return super.visit(node);
+			}
+
+			@Override
+			public void endVisit(MethodInvocation node) {
+				List<String> argumentTypes = new ArrayList<String>(node.arguments().size());
+				for (Object argument : node.arguments()) {
+					ITypeBinding binding = ((Expression) argument).resolveTypeBinding();
+					argumentTypes.add((binding == null) ? null : binding.getName());
+				}
+				invocations.computeIfAbsent(node.getName().toString(), name -> new HashMap<List<String>, Integer>())
+						.merge(argumentTypes, 1, Integer::sum);
+			}
+		});
+	}
+
+	/**
+	 * @param type name of the type as written in the source
+	 * @return number of instances created of the given type
+	 */
+	public int countInstances(String type) {
+		return instances.getOrDefault(type, 0);
+	}
+
+	/**
+	 * Counts the invocations of a method with arguments of the types in its signature.
+	 * @param signature name of the method followed by its parameter types between parentheses, as named
+	 * by the parser of the merged files, which writes each type twice and separates them by hyphens
+	 * @return number of invocations of the method
+	 */
+	public int countInvocations(String signature) {
+		String[] nameAndArguments = signature.split("[\\(\\)]");
+		Map<List<String>, Integer> invocationsByArguments = invocations.getOrDefault(nameAndArguments[0], Collections.emptyMap());
+		List<String> parameterTypes = (nameAndArguments.length > 1) ? Arrays.asList(nameAndArguments[1].split("-")) : Collections.emptyList();
+		int count = 0;
+		for (Map.Entry<List<String>, Integer> invocation : invocationsByArguments.entrySet()) {
+			if (haveSameTypes(invocation.getKey(), parameterTypes)) {
+				count += invocation.getValue();
+			}
+		}
+		return count;
+	}
+
+	private static boolean haveSameTypes(List<String> argumentTypes, List<String> parameterTypes) {
+		for (int i = 0; i < argumentTypes.size(); i++) {
+			if (i * 2 >= parameterTypes.size() || !parameterTypes.get(i * 2).equals(argumentTypes.get(i))) { // Twice because the FST parser replicates the arguments.
+				return false;
+			}
+		}
+		return true;
+	}
+}
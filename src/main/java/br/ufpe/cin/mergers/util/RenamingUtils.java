@@ -20,9 +20,7 @@ public class RenamingUtils {
 	public static boolean hasUnstructuredMergeConflict(MergeContext context, String baseContent) {
 		String signature = getTrimmedSignature(baseContent);
 
-		return FilesManager.extractMergeConflicts(context.unstructuredOutput).stream()
-				.map(conflict -> FilesManager.getStringContentIntoSingleLineNoSpacing(conflict.toString()))
-				.anyMatch(conflict -> conflict.contains(signature));
+		return context.getUnstructuredConflicts().hasConflictContaining(signature);
 	}
 
 	public static String getMostSimilarNodeContent(String baseContent, FSTNode currentNode, List<FSTNode> addedNodes) {
@@ -116,7 +114,7 @@ public class RenamingUtils {
 
 	public static void generateMutualRenamingConflict(MergeContext context, FSTNode leftNode, FSTNode baseNode,
 			FSTNode rightNode, FSTNode mergeNode, String conflictMessage) {
-		MergeConflict conflict = new MergeConflict(leftNode, baseNode, rightNode, conflictMessage);
+		MergeConflict conflict = new MergeConflict(leftNode, baseNode, rightNode, conflictMessage, context.getOptions());
 		((FSTTerminal) mergeNode).setBody(conflict.toString());
 
 		context.renamingConflicts++;
@@ -157,7 +155,7 @@ public class RenamingUtils {
 		}
 
 		// first creates a conflict
-		MergeConflict newConflict = new MergeConflict(firstContent, "", secondContent, "");
+		MergeConflict newConflict = new MergeConflict(firstContent, "", secondContent, "", context.getOptions());
 		// second put the conflict in one of the nodes containing the previous conflict,
 		// and deletes the other node containing the possible renamed version
 		FilesManager.findAndReplaceASTNodeContent(context.superImposedTree, currentNodeContent, newConflict.toString());
@@ -245,8 +243,8 @@ public class RenamingUtils {
 
 	public static void runTextualMerge(MergeContext context, FSTNode leftNode, FSTNode baseNode, FSTNode rightNode,
 			FSTNode mergeNode) throws TextualMergeException {
-		((FSTTerminal) mergeNode).setBody(mergeContent(leftNode, baseNode, rightNode));
-		((FSTTerminal) mergeNode).setSpecialTokenPrefix(mergePrefix(leftNode, baseNode, rightNode));
+		((FSTTerminal) mergeNode).setBody(mergeContent(context, leftNode, baseNode, rightNode));
+		((FSTTerminal) mergeNode).setSpecialTokenPrefix(mergePrefix(context, leftNode, baseNode, rightNode));
 
 		if (nodeHasConflict(mergeNode))
 			context.renamingConflicts++;
@@ -254,26 +252,26 @@ public class RenamingUtils {
 		removeUnmmatchedNode(context.superImposedTree, leftNode, rightNode, mergeNode);
 	}
 
-	private static String mergeContent(FSTNode leftNode, FSTNode baseNode, FSTNode rightNode)
+	private static String mergeContent(MergeContext context, FSTNode leftNode, FSTNode baseNode, FSTNode rightNode)
 			throws TextualMergeException {
 		return TextualMerge.merge(getNodeContent(leftNode), getNodeContent(baseNode), getNodeContent(rightNode),
-				JFSTMerge.isWhitespaceIgnored);
+				context);
 	}
 
-	private static String mergePrefix(FSTNode leftNode, FSTNode baseNode, FSTNode rightNode)
+	private static String mergePrefix(MergeContext context, FSTNode leftNode, FSTNode baseNode, FSTNode rightNode)
 			throws TextualMergeException {
 		String leftPrefix = getNodePrefix(leftNode);
 		String basePrefix = getNodePrefix(baseNode);
 		String rightPrefix = getNodePrefix(rightNode);
-		return compareAndMerge(leftPrefix, basePrefix, rightPrefix);
+		return compareAndMerge(leftPrefix, basePrefix, rightPrefix, context);
 	}
 
-	public static String compareAndMerge(String left, String base, String right) throws TextualMergeException {
+	public static String compareAndMerge(String left, String base, String right, MergeContext context) throws TextualMergeException {
 		String leftTrimmed = left.trim();
 		String baseTrimmed = base.trim();
 		String rightTrimmed = right.trim();
 
-		if (JFSTMerge.isWhitespaceIgnored) {
+		if (context.getOptions().isWhitespaceIgnored()) {
 			if (base.equals(left) && !base.equals(right)) {
 				return right;
 			} else if (base.equals(right) && !base.equals(left)) {
@@ -287,7 +285,7 @@ public class RenamingUtils {
 			}
 		}
 
-		return TextualMerge.merge(left, base, right, JFSTMerge.isWhitespaceIgnored);
+		return TextualMerge.merge(left, base, right, context);
 	}
 
 	public static String getNodeContent(FSTNode node) {
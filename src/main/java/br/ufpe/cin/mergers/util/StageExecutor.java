@@ -0,0 +1,65 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs independent steps of the merge of a single file (such as encoding detection and parsing of each revision)
+ * in background, so they overlap with the steps running in the merging thread.
+ * Steps submitted here must not wait for other submitted steps, so the bounded pool cannot deadlock.
+ * @author Guilherme
+ */
+public final class StageExecutor {
+
+	private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+			Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					//the pool must not keep the JVM alive once merges are finished
+					Thread thread = new Thread(runnable, "jfstmerge-stage-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	private StageExecutor() {
+	}
+
+	/**
+	 * Starts running the given step in background.
+	 * @param step
+	 * @return the pending result of the step
+	 */
+	public static <T> Future<T> submit(Callable<T> step) {
+		return EXECUTOR.submit(step);
+	}
+
+	/**
+	 * Waits for the result of a step, rethrowing unchecked failures as they were thrown by the step.
+	 * @param result pending result of a step
+	 * @return result of the step
+	 * @throws Exception the checked exception thrown by the step
+	 */
+	public static <T> T join(Future<T> result) throws Exception {
+		try {
+			return result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			result.cancel(true);
+			throw new IllegalStateException("Interrupted while waiting for a merge step.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw (Exception) cause;
+		}
+	}
+}
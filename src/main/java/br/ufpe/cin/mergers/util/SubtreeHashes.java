@@ -0,0 +1,158 @@
+package br.ufpe.cin.mergers.util;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Content hashes of the subtrees of the merged trees, computed bottom-up as in a Merkle tree.
+ * The hash of a node covers its type, name and, for terminals, its content (body, prefix and merging mechanisms),
+ * along with the hashes of its children in order. Subtrees with different hashes are then known to differ, and those
+ * with the same hash are compared to confirm they are identical, as the hashes are not collision-resistant. Superimposition
+ * can thus take a subtree untouched by the revisions as it is, instead of matching its nodes one by one.
+ * Superimposition matches each node to the first sibling with the same type and name, so subtrees with siblings
+ * sharing type and name are not necessarily superimposed as they are. These subtrees get no hash.
+ * @author Guilherme
+ */
+public final class SubtreeHashes {
+
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	private final Map<FSTNode, Long> hashes = new IdentityHashMap<FSTNode, Long>();
+
+	/**
+	 * Computes the hashes of every subtree of the given tree.
+	 * @param tree
+	 */
+	public void addTree(FSTNode tree) {
+		hash(tree);
+	}
+
+	/*
+	 * Hashes the subtree, recording the hash unless the subtree has siblings of same type and name.
+	 * @return hash of the subtree, or null if it has such siblings
+	 */
+	private Long hash(FSTNode tree) {
+		long hash = FNV_OFFSET_BASIS;
+		boolean distinctSiblings = true;
+		if (tree instanceof FSTNonTerminal) {
+			hash = update(hash, 'N');
+			hash = update(hash, tree.getType());
+			hash = update(hash, tree.getName());
+			List<FSTNode> children = ((FSTNonTerminal) tree).getChildren();
+			Set<String> keys = new HashSet<String>(children.size() * 2);
+			for (FSTNode child : children) {
+				Long childHash = hash(child);
+				distinctSiblings &= childHash != null && keys.add(child.getType() + '\u0000' + child.getName());
+				if (childHash != null) {
+					hash = update(hash, childHash.longValue());
+				}
+			}
+		} else {
+			FSTTerminal terminal = (FSTTerminal) tree;
+			hash = update(hash, 'T');
+			hash = update(hash, terminal.getType());
+			hash = update(hash, terminal.getName());
+			hash = update(hash, terminal.getBody());
+			hash = update(hash, terminal.getSpecialTokenPrefix());
+			hash = update(hash, terminal.getCompositionMechanism());
+			hash = update(hash, terminal.getMergingMechanism());
+		}
+		if (!distinctSiblings) {
+			return null;
+		}
+		hashes.put(tree, hash);
+		return hash;
+	}
+
+	/**
+	 * Gives a copy of a subtree the hashes of the original subtree.
+	 * @param original subtree with known hashes
+	 * @param copy deep clone of the original subtree
+	 */
+	public void addCopy(FSTNode original, FSTNode copy) {
+		Long hash = hashes.get(original);
+		if (hash == null) {
+			return;
+		}
+		hashes.put(copy, hash);
+		if (original instanceof FSTNonTerminal && copy instanceof FSTNonTerminal) {
+			List<FSTNode> originalChildren = ((FSTNonTerminal) original).getChildren();
+			List<FSTNode> copyChildren = ((FSTNonTerminal) copy).getChildren();
+			for (int i = 0; i < originalChildren.size() && i < copyChildren.size(); i++) {
+				addCopy(originalChildren.get(i), copyChildren.get(i));
+			}
+		}
+	}
+
+	/**
+	 * @return <b>true</b> if both subtrees have known and equal hashes, and identical content
+	 */
+	public boolean haveSameContent(FSTNode nodeA, FSTNode nodeB) {
+		Long hashA = hashes.get(nodeA);
+		return hashA != null && hashA.equals(hashes.get(nodeB)) && equalSubtrees(nodeA, nodeB);
+	}
+
+	// compares what the hashes cover, node by node, so a collision is never taken for identical content
+	private static boolean equalSubtrees(FSTNode nodeA, FSTNode nodeB) {
+		if (nodeA == nodeB) {
+			return true;
+		}
+		if (!Objects.equals(nodeA.getType(), nodeB.getType()) || !Objects.equals(nodeA.getName(), nodeB.getName())) {
+			return false;
+		}
+		if (nodeA instanceof FSTNonTerminal && nodeB instanceof FSTNonTerminal) {
+			List<FSTNode> childrenA = ((FSTNonTerminal) nodeA).getChildren();
+			List<FSTNode> childrenB = ((FSTNonTerminal) nodeB).getChildren();
+			if (childrenA.size() != childrenB.size()) {
+				return false;
+			}
+			for (int i = 0; i < childrenA.size(); i++) {
+				if (!equalSubtrees(childrenA.get(i), childrenB.get(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+		if (nodeA instanceof FSTTerminal && nodeB instanceof FSTTerminal) {
+			FSTTerminal terminalA = (FSTTerminal) nodeA;
+			FSTTerminal terminalB = (FSTTerminal) nodeB;
+			return Objects.equals(terminalA.getBody(), terminalB.getBody())
+					&& Objects.equals(terminalA.getSpecialTokenPrefix(), terminalB.getSpecialTokenPrefix())
+					&& Objects.equals(terminalA.getCompositionMechanism(), terminalB.getCompositionMechanism())
+					&& Objects.equals(terminalA.getMergingMechanism(), terminalB.getMergingMechanism());
+		}
+		return false;
+	}
+
+	// FNV-1a over the characters of the string, with null and empty strings hashed apart
+	private static long update(long hash, String value) {
+		if (value == null) {
+			return update(hash, '\u0000');
+		}
+		for (int i = 0; i < value.length(); i++) {
+			hash = update(hash, value.charAt(i));
+		}
+		return update(hash, (char) 0xFFFF); // separates consecutive strings
+	}
+
+	private static long update(long hash, char value) {
+		hash = (hash ^ (value & 0xFF)) * FNV_PRIME;
+		return (hash ^ (value >>> 8)) * FNV_PRIME;
+	}
+
+	private static long update(long hash, long value) {
+		for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+			hash = (hash ^ ((value >>> shift) & 0xFF)) * FNV_PRIME;
+		}
+		return hash;
+	}
+}
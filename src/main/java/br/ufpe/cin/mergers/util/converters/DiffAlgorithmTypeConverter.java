@@ -0,0 +1,19 @@
+package br.ufpe.cin.mergers.util.converters;
+
+import com.beust.jcommander.IStringConverter;
+
+import br.ufpe.cin.mergers.util.DiffAlgorithmType;
+
+import static br.ufpe.cin.mergers.util.DiffAlgorithmType.*;
+
+public class DiffAlgorithmTypeConverter implements IStringConverter<DiffAlgorithmType> {
+    @Override
+    public DiffAlgorithmType convert(String value) {
+        switch (value.toUpperCase()) {
+            case "MYERS":
+                return MYERS;
+            default:
+                return HISTOGRAM;
+        }
+    }
+}
@@ -1,16 +1,12 @@
 package br.ufpe.cin.parser;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.InputStreamReader;
 import java.io.UnsupportedEncodingException;
-import java.nio.charset.Charset;
 
-import br.ufpe.cin.app.JFSTMerge;
-import br.ufpe.cin.files.FilesEncoding;
-import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.files.FileSnapshot;
 import br.ufpe.cin.generated.Java18MergeParser;
+import br.ufpe.cin.mergers.util.MergeOptions;
 import cide.gparser.OffsetCharStream;
 import cide.gparser.ParseException;
 import cide.gparser.TokenMgrError;
@@ -27,6 +23,29 @@ import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
  */
 public class JParser {
 
+	private final MergeOptions options;
+	private final ParseTreeCache cache;
+
+	public JParser() {
+		this(MergeOptions.fromCommandLine());
+	}
+
+	/**
+	 * @param options settings of the merge requesting the parsing
+	 */
+	public JParser(MergeOptions options) {
+		this(options, ParseTreeCache.getShared());
+	}
+
+	/**
+	 * @param options settings of the merge requesting the parsing
+	 * @param cache of previously parsed contents
+	 */
+	public JParser(MergeOptions options, ParseTreeCache cache) {
+		this.options = options;
+		this.cache = cache;
+	}
+
 	/**
 	 * Parses a given .java file
 	 * @param javaFile
@@ -36,17 +55,33 @@ public class JParser {
 	 * @throws UnsupportedEncodingException 
 	 */
 	public FSTNode parse(File javaFile) throws FileNotFoundException, UnsupportedEncodingException, ParseException, TokenMgrError  {
+		return parse(FileSnapshot.read(javaFile));
+	}
+
+	/**
+	 * Parses a given snapshot of a .java file, avoiding reading the file again.
+	 * Contents already parsed, successfully or not, are retrieved from the parse tree cache instead,
+	 * so known invalid contents fail again without being parsed.
+	 * @param javaFile
+	 * @return ast representing the java file
+	 * @throws ParseException 
+	 * @throws FileNotFoundException 
+	 * @throws UnsupportedEncodingException 
+	 */
+	public FSTNode parse(FileSnapshot javaFile) throws FileNotFoundException, UnsupportedEncodingException, ParseException, TokenMgrError  {
 		FSTFeatureNode generatedAst = new FSTFeatureNode("");//root node
 		if(isValidFile(javaFile)){
-			if(!JFSTMerge.isGit){
-				System.out.println("Parsing: " + javaFile.getAbsolutePath());
+			if(!options.isGit()){
+				System.out.println("Parsing: " + javaFile.getFile().getAbsolutePath());
 			}
 
-			String fileEncoding = FilesEncoding.retrieveEncoding(javaFile);
-			Java18MergeParser parser = new Java18MergeParser(new OffsetCharStream(new InputStreamReader(new FileInputStream(javaFile), Charset.forName(fileEncoding))));
-			parser.CompilationUnit(false);
-			generatedAst.addChild(new FSTNonTerminal("Java-File", javaFile.getName()));
-			generatedAst.addChild(parser.getRoot());
+			FSTNode root = cache.checkout(javaFile, options.isParseTreeCachePersisted(), () -> {
+				Java18MergeParser parser = new Java18MergeParser(new OffsetCharStream(javaFile.openReader()));
+				parser.CompilationUnit(false);
+				return parser.getRoot();
+			});
+			generatedAst.addChild(new FSTNonTerminal("Java-File", javaFile.getFile().getName()));
+			generatedAst.addChild(root);
 		}
 		return generatedAst;
 	}
@@ -58,11 +93,12 @@ public class JParser {
 	 * @throws FileNotFoundException 
 	 * @throws ParseException 
 	 */
-	private boolean isValidFile(File file) throws FileNotFoundException, ParseException 
+	private boolean isValidFile(FileSnapshot snapshot) throws FileNotFoundException, ParseException 
 	{
-		if(FilesManager.readFileContent(file).isEmpty()){
+		File file = snapshot.getFile();
+		if(snapshot.isEmpty()){
 			throw new FileNotFoundException();
-		} else if(file != null && (isJavaFile(file) || JFSTMerge.isGit)){
+		} else if(file != null && (isJavaFile(file) || options.isGit())){
 			return true;
 		} else if(file != null && !isJavaFile(file)){
 			throw new ParseException("The file " + file.getName() + " is not a valid .java file.");
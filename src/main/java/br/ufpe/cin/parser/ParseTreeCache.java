@@ -0,0 +1,457 @@
+package br.ufpe.cin.parser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.generated.Java18MergeParser;
+import br.ufpe.cin.generated.Java18MergeParserConstants;
+import cide.gparser.ParseException;
+import cide.gparser.Token;
+import cide.gparser.TokenMgrError;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Cache of parse trees, addressed by the content of the parsed file and the version of the grammar.
+ * The same revision of a file (typically the base) is often parsed several times across the merges of
+ * a session, as in rebases or in merges of several revisions. Trees are kept in a bounded in-memory
+ * tier, evicting the least recently used ones, and optionally persisted in a compact format under the
+ * <i>.jfstmerge</i> directory, so they survive across executions.
+ * Failed parses are cached as well, so contents known to be invalid are not parsed again. In memory, the
+ * original exception is kept and thrown again. On disk, its message is kept along with the tokens and positions
+ * a {@link ParseException} reports, so the exception read back tells where the content is invalid.
+ * Callers always receive a deep clone of the cached tree, which they are free to modify.
+ * @author Guilherme
+ */
+public final class ParseTreeCache {
+
+	public static final int DEFAULT_CAPACITY = 128;
+
+	public static final Path DEFAULT_DIRECTORY_PATH = Paths.get(System.getProperty("user.home"), ".jfstmerge", "parsetrees");
+
+	//cache shared by every merge of the running process
+	private static final ParseTreeCache SHARED = new ParseTreeCache(DEFAULT_CAPACITY, DEFAULT_DIRECTORY_PATH);
+
+	//version of the on-disk format
+	private static final int FORMAT_VERSION = 3;
+
+	//kinds of cached results
+	private static final byte PARSE_TREE = 0;
+	private static final byte PARSE_ERROR = 1;
+	private static final byte TOKEN_ERROR = 2;
+
+	//kinds of persisted nodes
+	private static final byte NON_TERMINAL = 0;
+	private static final byte TERMINAL = 1;
+
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	private static String grammarVersion;
+
+	private final Map<String, CachedParse> trees;
+	private final Path directory;
+
+	/**
+	 * @param capacity maximum number of trees kept in memory
+	 * @param directory where trees are persisted, when requested
+	 */
+	public ParseTreeCache(final int capacity, Path directory) {
+		this.trees = new LinkedHashMap<String, CachedParse>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedParse> eldest) {
+				return size() > capacity;
+			}
+		};
+		this.directory = directory;
+	}
+
+	public static ParseTreeCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Functional interface of the actual parsing, performed in case of cache misses.
+	 */
+	public interface Parsing {
+		FSTNode parse() throws ParseException, TokenMgrError;
+	}
+
+	/**
+	 * Retrieves the tree of the given content, parsing it in case it is not cached yet.
+	 * @param snapshot content to be parsed
+	 * @param persisted whether the tree must be searched and stored on disk too
+	 * @param parsing parses the content in case of cache miss
+	 * @return a deep clone of the cached tree
+	 * @throws ParseException in case the content is known to be syntactically invalid
+	 * @throws TokenMgrError in case the content is known to be lexically invalid
+	 */
+	public FSTNode checkout(FileSnapshot snapshot, boolean persisted, Parsing parsing) throws ParseException, TokenMgrError {
+		String key = keyOf(snapshot);
+		CachedParse entry = get(key);
+		if (entry == null && persisted) {
+			entry = load(key);
+			if (entry != null) {
+				put(key, entry);
+			}
+		}
+		if (entry == null) {
+			entry = parse(parsing);
+			put(key, entry);
+			if (persisted) {
+				store(key, entry);
+			}
+		}
+		return entry.checkout();
+	}
+
+	public int size() {
+		synchronized (trees) {
+			return trees.size();
+		}
+	}
+
+	public void clear() {
+		synchronized (trees) {
+			trees.clear();
+		}
+	}
+
+	private CachedParse get(String key) {
+		synchronized (trees) {
+			return trees.get(key);
+		}
+	}
+
+	private void put(String key, CachedParse entry) {
+		synchronized (trees) {
+			trees.put(key, entry);
+		}
+	}
+
+	private static CachedParse parse(Parsing parsing) {
+		try {
+			return new CachedParse(parsing.parse(), null, null);
+		} catch (ParseException e) {
+			return new CachedParse(null, e, null);
+		} catch (TokenMgrError e) {
+			return new CachedParse(null, null, e);
+		}
+	}
+
+	/**
+	 * The key is the hash of the raw bytes and encoding of the content, together with the grammar version.
+	 */
+	private static String keyOf(FileSnapshot snapshot) {
+		MessageDigest digest = newDigest();
+		digest.update(getGrammarVersion().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(snapshot.getEncoding().getBytes(StandardCharsets.UTF_8));
+		digest.update((byte) 0);
+		digest.update(snapshot.getBytes());
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * The grammar version is the hash of the generated parser class, so trees produced by a
+	 * previous grammar are never reused after the parser is regenerated.
+	 */
+	private static synchronized String getGrammarVersion() {
+		if (grammarVersion == null) {
+			MessageDigest digest = newDigest();
+			try (InputStream parserClass = Java18MergeParser.class.getResourceAsStream("Java18MergeParser.class")) {
+				if (parserClass != null) {
+					byte[] buffer = new byte[8192];
+					for (int read; (read = parserClass.read(buffer)) != -1;) {
+						digest.update(buffer, 0, read);
+					}
+				}
+			} catch (IOException e) {
+				//the version of the format is still considered
+			}
+			digest.update((byte) FORMAT_VERSION);
+			grammarVersion = toHex(digest.digest());
+		}
+		return grammarVersion;
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) { //every java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	private Path pathOf(String key) {
+		return directory.resolve(key.substring(0, 2)).resolve(key + ".fst");
+	}
+
+	/**
+	 * Reads a persisted tree. Missing or unreadable files are treated as cache misses.
+	 */
+	private CachedParse load(String key) {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(pathOf(key)))))) {
+			if (input.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			byte kind = input.readByte();
+			if (kind == PARSE_ERROR) {
+				return new CachedParse(null, readParseException(input), null);
+			} else if (kind == TOKEN_ERROR) {
+				return new CachedParse(null, null, new TokenMgrError(readString(input), TokenMgrError.LEXICAL_ERROR));
+			}
+			return new CachedParse(readNode(input, new ArrayList<String>()), null, null);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException | RuntimeException e) { //corrupted file, it will be overwritten
+			return null;
+		}
+	}
+
+	/**
+	 * Persists a tree, atomically replacing any previous file. Failing to persist does not affect the merge.
+	 */
+	private void store(String key, CachedParse entry) {
+		Path file = pathOf(key);
+		try {
+			Files.createDirectories(file.getParent());
+			Path temporaryFile = Files.createTempFile(file.getParent(), key, ".tmp");
+			try {
+				try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporaryFile))))) {
+					output.writeInt(FORMAT_VERSION);
+					if (entry.parseError != null) {
+						output.writeByte(PARSE_ERROR);
+						writeParseException(output, entry.parseError);
+					} else if (entry.tokenError != null) {
+						output.writeByte(TOKEN_ERROR);
+						writeString(output, entry.tokenError.getMessage());
+					} else {
+						output.writeByte(PARSE_TREE);
+						writeNode(output, entry.tree, new HashMap<String, Integer>());
+					}
+				}
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				Files.deleteIfExists(temporaryFile);
+			}
+		} catch (IOException e) {
+			//the tree remains cached in memory
+		}
+	}
+
+	/*
+	 * Nodes are written in pre-order. Types and mechanisms repeat a lot across a tree,
+	 * so each distinct one is written only once, and referenced by index afterwards.
+	 */
+	private static void writeNode(DataOutputStream output, FSTNode node, Map<String, Integer> symbols) throws IOException {
+		if (node instanceof FSTNonTerminal) {
+			List<FSTNode> children = ((FSTNonTerminal) node).getChildren();
+			output.writeByte(NON_TERMINAL);
+			writeSymbol(output, node.getType(), symbols);
+			writeString(output, node.getName());
+			output.writeInt(children.size());
+			for (FSTNode child : children) {
+				writeNode(output, child, symbols);
+			}
+		} else {
+			FSTTerminal terminal = (FSTTerminal) node;
+			output.writeByte(TERMINAL);
+			writeSymbol(output, terminal.getType(), symbols);
+			writeString(output, terminal.getName());
+			writeString(output, terminal.getBody());
+			writeString(output, terminal.getSpecialTokenPrefix());
+			writeSymbol(output, terminal.getCompositionMechanism(), symbols);
+			writeSymbol(output, terminal.getMergingMechanism(), symbols);
+		}
+	}
+
+	private static FSTNode readNode(DataInputStream input, List<String> symbols) throws IOException {
+		byte kind = input.readByte();
+		String type = readSymbol(input, symbols);
+		String name = readString(input);
+		if (kind == NON_TERMINAL) {
+			FSTNonTerminal nonTerminal = new FSTNonTerminal(type, name);
+			for (int i = input.readInt(); i > 0; i--) {
+				nonTerminal.addChild(readNode(input, symbols));
+			}
+			return nonTerminal;
+		}
+		String body = readString(input);
+		String prefix = readString(input);
+		String compositionMechanism = readSymbol(input, symbols);
+		String mergingMechanism = readSymbol(input, symbols);
+		return new FSTTerminal(type, name, body, prefix, compositionMechanism, mergingMechanism);
+	}
+
+	private static void writeSymbol(DataOutputStream output, String symbol, Map<String, Integer> symbols) throws IOException {
+		Integer index = symbols.get(symbol);
+		if (index != null) {
+			output.writeInt(index);
+		} else {
+			symbols.put(symbol, symbols.size());
+			output.writeInt(-1);
+			writeString(output, symbol);
+		}
+	}
+
+	private static String readSymbol(DataInputStream input, List<String> symbols) throws IOException {
+		int index = input.readInt();
+		if (index >= 0) {
+			return symbols.get(index);
+		}
+		String symbol = readString(input);
+		symbols.add(symbol);
+		return symbol;
+	}
+
+	/*
+	 * Keeps the message, the last consumed token along with the offending one following it, and the expected
+	 * token sequences. The token images are the grammar's, which is part of the key.
+	 */
+	private static void writeParseException(DataOutputStream output, ParseException exception) throws IOException {
+		writeString(output, exception.getMessage());
+		Token current = exception.currentToken;
+		output.writeBoolean(current != null);
+		if (current != null) {
+			writeToken(output, current);
+			output.writeBoolean(current.next != null);
+			if (current.next != null) {
+				writeToken(output, current.next);
+			}
+		}
+		int[][] sequences = exception.expectedTokenSequences;
+		output.writeInt(sequences == null ? -1 : sequences.length);
+		if (sequences != null) {
+			for (int[] sequence : sequences) {
+				output.writeInt(sequence.length);
+				for (int kind : sequence) {
+					output.writeInt(kind);
+				}
+			}
+		}
+	}
+
+	private static ParseException readParseException(DataInputStream input) throws IOException {
+		ParseException exception = new ParseException(readString(input));
+		if (input.readBoolean()) {
+			exception.currentToken = readToken(input);
+			if (input.readBoolean()) {
+				exception.currentToken.next = readToken(input);
+			}
+			exception.tokenImage = Java18MergeParserConstants.tokenImage;
+		}
+		int count = input.readInt();
+		if (count >= 0) {
+			exception.expectedTokenSequences = new int[count][];
+			for (int i = 0; i < count; i++) {
+				int[] sequence = new int[input.readInt()];
+				for (int j = 0; j < sequence.length; j++) {
+					sequence[j] = input.readInt();
+				}
+				exception.expectedTokenSequences[i] = sequence;
+			}
+		}
+		return exception;
+	}
+
+	private static void writeToken(DataOutputStream output, Token token) throws IOException {
+		output.writeInt(token.kind);
+		writeString(output, token.image);
+		output.writeInt(token.beginLine);
+		output.writeInt(token.beginColumn);
+		output.writeInt(token.endLine);
+		output.writeInt(token.endColumn);
+		output.writeInt(token.offset);
+		output.writeInt(token.length);
+	}
+
+	private static Token readToken(DataInputStream input) throws IOException {
+		Token token = new Token();
+		token.kind = input.readInt();
+		token.image = readString(input);
+		token.beginLine = input.readInt();
+		token.beginColumn = input.readInt();
+		token.endLine = input.readInt();
+		token.endColumn = input.readInt();
+		token.offset = input.readInt();
+		token.length = input.readInt();
+		return token;
+	}
+
+	//unlike DataOutputStream.writeUTF, supports null and strings longer than 64KB
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		if (string == null) {
+			output.writeInt(-1);
+		} else {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			output.writeInt(bytes.length);
+			output.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream input) throws IOException {
+		int length = input.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Result of a parse: either a tree, or the exception of a failed parse.
+	 */
+	private static final class CachedParse {
+		private final FSTNode tree;
+		private final ParseException parseError;
+		private final TokenMgrError tokenError;
+
+		CachedParse(FSTNode tree, ParseException parseError, TokenMgrError tokenError) {
+			this.tree = tree;
+			this.parseError = parseError;
+			this.tokenError = tokenError;
+		}
+
+		FSTNode checkout() throws ParseException, TokenMgrError {
+			if (parseError != null) {
+				throw parseError;
+			} else if (tokenError != null) {
+				throw tokenError;
+			}
+			return tree.getDeepClone();
+		}
+	}
+}
@@ -3,7 +3,6 @@ package br.ufpe.cin.printers;
 import java.io.File;
 import java.util.List;
 
-import br.ufpe.cin.app.JFSTMerge;
 import br.ufpe.cin.exceptions.PrintException;
 import br.ufpe.cin.files.FilesManager;
 import br.ufpe.cin.files.FilesTuple;
@@ -66,7 +65,7 @@ public final class Prettyprinter {
 			String semistructuredOutputFilePath 	= outputFilePath;
 			String semistructuredMergeOutputContent = context.semistructuredOutput;
 			boolean writeSucceed = FilesManager.writeContent(semistructuredOutputFilePath, semistructuredMergeOutputContent);
-			if(writeSucceed && !JFSTMerge.isGit && JFSTMerge.showUnstructuredOutput){
+			if(writeSucceed && !context.getOptions().isGit() && context.getOptions().showUnstructuredOutput()){
 				String unstructuredOutputFilePath  		= outputFilePath +".merge"; 
 				String unstructuredMergeOutputContent 	= context.unstructuredOutput;
 				writeSucceed = FilesManager.writeContent(unstructuredOutputFilePath, unstructuredMergeOutputContent);
@@ -1,32 +1,22 @@
 package br.ufpe.cin.printers;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.regex.Pattern;
-
-import org.apache.commons.lang3.StringUtils;
-
 import br.ufpe.cin.mergers.util.IndentationUtils;
+import br.ufpe.cin.mergers.util.MergeConflict;
 import de.ovgu.cide.fstgen.ast.AbstractFSTPrintVisitor;
 import de.ovgu.cide.fstgen.ast.FSTTerminal;
 
 /**
  * Visitor to retrieve FSTNodes' contents to be printed.
+ * Contents are appended to the result as they are visited.
  * 
  * @author João Victor (jvsfc@cin.ufpe.br)
  */
 public abstract class S3MPrettyPrinter extends AbstractFSTPrintVisitor {
 
     private final StringBuilder result;
-    private final Queue<String> tokensCurrentLine;
-
-    private final Pattern conflictPattern = Pattern
-            .compile("<<<<<<< MINE(.*)(||||||| BASE)?(.*)=======(.*)>>>>>>> YOURS(.*)", Pattern.DOTALL);
 
     public S3MPrettyPrinter() {
         this.result = new StringBuilder();
-        this.tokensCurrentLine = new LinkedList<String>();
     }
 
     private boolean printedStatementOnFirstLine = false;
@@ -65,30 +55,32 @@ public abstract class S3MPrettyPrinter extends AbstractFSTPrintVisitor {
         return !prefix.contains("\n");
     }
 
+    /*
+     * Whether the content starts with a conflict, that is, the mine marker followed by the change
+     * and yours markers, in this order. Scans the content instead of matching it against a regex.
+     */
     private boolean hasConflict(String content) {
-        return conflictPattern.matcher(content).matches();
+        if (!content.startsWith(MergeConflict.MINE_CONFLICT_MARKER)) {
+            return false;
+        }
+        int changeMarker = content.indexOf(MergeConflict.CHANGE_CONFLICT_MARKER, MergeConflict.MINE_CONFLICT_MARKER.length());
+        return changeMarker >= 0 && content.indexOf(MergeConflict.YOURS_CONFLICT_MARKER,
+                changeMarker + MergeConflict.CHANGE_CONFLICT_MARKER.length()) >= 0;
     }
 
     protected void printToken(String token) {
-        tokensCurrentLine.add(token);
+        result.append(token);
     }
 
     @Override
     protected void hintNewLine() {
-        Iterator<String> it = tokensCurrentLine.iterator();
-        while (it.hasNext()) {
-            result.append(it.next());
-        }
-
-        reset();
-    }
-
-    private void reset() {
-        tokensCurrentLine.clear();
+        // tokens are appended to the result as they are printed
     }
 
+    /**
+     * @return the printed contents
+     */
     public String getResult() {
-        hintNewLine();
         return result.toString();
     }
 
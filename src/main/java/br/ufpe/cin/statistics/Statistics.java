@@ -3,10 +3,12 @@ package br.ufpe.cin.statistics;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import br.ufpe.cin.files.FilesManager;
@@ -30,8 +32,8 @@ public final class Statistics {
 	 * @throws Exception 
 	 */
 	public static void compute(MergeContext context) throws Exception{
-		List<MergeConflict> semistructuredMergeConflicts  = FilesManager.extractMergeConflicts(context.semistructuredOutput);
-		List<MergeConflict> unstructuredMergeConflits	  = FilesManager.extractMergeConflicts(context.unstructuredOutput);
+		List<MergeConflict> semistructuredMergeConflicts  = context.getSemistructuredConflicts().getConflicts();
+		List<MergeConflict> unstructuredMergeConflits	  = context.getUnstructuredConflicts().getConflicts();
 
 		context.semistructuredNumberOfConflicts = computeNumberOfConflicts(semistructuredMergeConflicts);
 		context.unstructuredNumberOfConflicts   = computeNumberOfConflicts(unstructuredMergeConflits);
@@ -39,7 +41,10 @@ public final class Statistics {
 		context.semistructuredMergeConflictsLOC = computeConflictsLOC(semistructuredMergeConflicts);
 		context.unstructuredMergeConflictsLOC   = computeConflictsLOC(unstructuredMergeConflits);
 
-		context.equalConflicts = computeEqualConflicts(unstructuredMergeConflits,semistructuredMergeConflicts);
+		List<ConflictFingerprint> semistructuredFingerprints = fingerprintsOf(semistructuredMergeConflicts);
+		List<ConflictFingerprint> unstructuredFingerprints   = fingerprintsOf(unstructuredMergeConflits);
+
+		context.equalConflicts = computeEqualConflicts(unstructuredFingerprints,semistructuredFingerprints);
 
 		context.orderingConflicts = (context.unstructuredNumberOfConflicts  - context.semistructuredNumberOfConflicts) 
 				+  context.duplicatedDeclarationErrors 
@@ -69,7 +74,7 @@ public final class Statistics {
 				+ ";" + context.orderingConflicts
 				+ ";" + context.equalConflicts;
 
-		computeDifferentConflicts(context);		
+		computeDifferentConflicts(context,unstructuredFingerprints,semistructuredFingerprints);
 		LoggerStatistics.logContext(loggermsg,context);
 
 	}
@@ -158,64 +163,55 @@ public final class Statistics {
 
 	/**
 	 * Calculates textually equal conflicts from given list of unstructured and semistructured merge conflicts.
+	 * An unstructured conflict is equal if some semistructured conflict is equivalent to it.
 	 * @param unstructuredMergeConflits
 	 * @param semistructuredMergeConflicts
 	 * @return number of equal conflicts
 	 */
-	private static int computeEqualConflicts(List<MergeConflict> unstructuredMergeConflits,	List<MergeConflict> semistructuredMergeConflicts) {
+	private static int computeEqualConflicts(List<ConflictFingerprint> unstructuredMergeConflits, List<ConflictFingerprint> semistructuredMergeConflicts) {
+		Set<ConflictFingerprint> semistructuredFingerprints = new HashSet<ConflictFingerprint>(semistructuredMergeConflicts);
 		int equalconfs = 0;
-		for(MergeConflict mctxt : unstructuredMergeConflits ){
-			for(MergeConflict mcssm : semistructuredMergeConflicts){
-				if(areEquivalentConflicts(mctxt,mcssm)){equalconfs++;break;}
-			}
+		for(ConflictFingerprint mctxt : unstructuredMergeConflits ){
+			if(semistructuredFingerprints.contains(mctxt)){equalconfs++;}
 		}
 		return equalconfs;
 	}
 
 	/**
 	 * Computes and print textually equal and different conflicts from a given merge context/merged file. 
-	 * @param scenario
+	 * @param context
+	 * @param unstructuredMergeConflits
+	 * @param semistructuredMergeConflicts
 	 * @throws IOException 
 	 */
-	private static void computeDifferentConflicts(MergeContext context) throws IOException {
-		Deque<MergeConflict> semistructuredMergeConflicts  = new ArrayDeque<MergeConflict>();
-		semistructuredMergeConflicts.addAll(FilesManager.extractMergeConflicts(context.semistructuredOutput));
-
-		Deque<MergeConflict> unstructuredMergeConflits = new ArrayDeque<MergeConflict>();
-		unstructuredMergeConflits.addAll(FilesManager.extractMergeConflicts(context.unstructuredOutput));
+	private static void computeDifferentConflicts(MergeContext context, List<ConflictFingerprint> unstructuredMergeConflits, List<ConflictFingerprint> semistructuredMergeConflicts) throws IOException {
+		//first semistructured conflict of each fingerprint, as the one logged as equal
+		Map<ConflictFingerprint, MergeConflict> semistructuredFingerprints = new HashMap<ConflictFingerprint, MergeConflict>();
+		for(ConflictFingerprint confb : semistructuredMergeConflicts){
+			semistructuredFingerprints.putIfAbsent(confb, confb.conflict);
+		}
+		Set<ConflictFingerprint> unstructuredFingerprints = new HashSet<ConflictFingerprint>(unstructuredMergeConflits);
 
 		List<MergeConflict> differentUnstructuredMergeConflicts = new ArrayList<MergeConflict>();
 		List<MergeConflict> differentSemistructuredMergeConflicts = new ArrayList<MergeConflict>();
 		List<MergeConflict> equalMergeConflicts = new ArrayList<MergeConflict>();
 
 
-		for(MergeConflict confa : unstructuredMergeConflits){
-			confa.setOriginFiles(context.getLeft(), context.getBase(), context.getRight());
-			confa.setFullyQualifiedMergedClass(context.fullyQualifiedMergedClass);
-			boolean found = false;
-			for(MergeConflict confb : semistructuredMergeConflicts){
-				if(areEquivalentConflicts(confa,confb)){
-					equalMergeConflicts.add(confb); //or confa
-					found = true;
-					break;
-				}
-			}
-			if(!found){
-				differentUnstructuredMergeConflicts.add(confa);
+		for(ConflictFingerprint confa : unstructuredMergeConflits){
+			confa.conflict.setOriginFiles(context.getLeft(), context.getBase(), context.getRight());
+			confa.conflict.setFullyQualifiedMergedClass(context.fullyQualifiedMergedClass);
+			MergeConflict confb = semistructuredFingerprints.get(confa);
+			if(confb != null){
+				equalMergeConflicts.add(confb); //or confa
+			} else {
+				differentUnstructuredMergeConflicts.add(confa.conflict);
 			}
 		}
-		for(MergeConflict confa : semistructuredMergeConflicts){
-			confa.setOriginFiles(context.getLeft(), context.getBase(), context.getRight());
-			confa.setFullyQualifiedMergedClass(context.fullyQualifiedMergedClass);
-			boolean found = false;
-			for(MergeConflict confb : unstructuredMergeConflits){
-				if(areEquivalentConflicts(confa,confb)){
-					found = true;
-					break;
-				}
-			}
-			if(!found){
-				differentSemistructuredMergeConflicts.add(confa);
+		for(ConflictFingerprint confa : semistructuredMergeConflicts){
+			confa.conflict.setOriginFiles(context.getLeft(), context.getBase(), context.getRight());
+			confa.conflict.setFullyQualifiedMergedClass(context.fullyQualifiedMergedClass);
+			if(!unstructuredFingerprints.contains(confa)){
+				differentSemistructuredMergeConflicts.add(confa.conflict);
 			}
 		}
 
@@ -224,22 +220,43 @@ public final class Statistics {
 		LoggerStatistics.logConflicts(context,differentSemistructuredMergeConflicts,Source.SEMISTRUCTURED);
 	}
 
-	private static boolean areEquivalentConflicts(MergeConflict confa, MergeConflict confb) {
-		String bodya = FilesManager.getStringContentIntoSingleLineNoSpacing(confa.getLeft() + confa.getRight());
-		String bodyb = FilesManager.getStringContentIntoSingleLineNoSpacing(confb.getLeft() + confb.getRight());
-		if(bodya.equals(bodyb)){
-			return true;
+	private static List<ConflictFingerprint> fingerprintsOf(List<MergeConflict> conflicts) {
+		List<ConflictFingerprint> fingerprints = new ArrayList<ConflictFingerprint>(conflicts.size());
+		for(MergeConflict mc : conflicts){
+			fingerprints.add(new ConflictFingerprint(mc));
 		}
+		return fingerprints;
+	}
 
-		/*		String bodylefta = FilesManager.getStringContentIntoSingleLineNoSpacing(confa.left);
-		String bodyleftb = FilesManager.getStringContentIntoSingleLineNoSpacing(confb.left);
-		String bodyrighta = FilesManager.getStringContentIntoSingleLineNoSpacing(confa.right);
-		String bodyrightb = FilesManager.getStringContentIntoSingleLineNoSpacing(confb.right);
-		if((bodylefta.contains(bodyleftb) || bodyleftb.contains(bodylefta))	&& (bodyrighta.contains(bodyrightb) || bodyrightb.contains(bodyrighta))){
-			return true;
-		}*/
+	/**
+	 * Left and right contents of a conflict, hashed once while ignoring their spacing. Two conflicts are
+	 * equivalent when these contents are equal without spacing, and their contents are compared only
+	 * when their hashes match.
+	 */
+	private static final class ConflictFingerprint {
+		private final MergeConflict conflict;
+		private final String content;
+		private final long hash;
+
+		ConflictFingerprint(MergeConflict conflict) {
+			this.conflict = conflict;
+			this.content = conflict.getLeft() + conflict.getRight();
+			this.hash = FilesManager.hashIgnoringSpacing(content);
+		}
 
-		return false;
+		@Override
+		public int hashCode() {
+			return Long.hashCode(hash);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof ConflictFingerprint)) {
+				return false;
+			}
+			ConflictFingerprint fingerprint = (ConflictFingerprint) other;
+			return hash == fingerprint.hash && FilesManager.areEqualIgnoringSpacing(content, fingerprint.content);
+		}
 	}
 
 }
@@ -0,0 +1,92 @@
+package br.ufpe.cin.mergers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Tests that the indexed children of a node behave as the scans over the list of children they replace,
+ * including nodes sharing type and name.
+ */
+public class ChildrenIndexTest {
+
+	@Test
+	public void testIndex_givenRandomInsertions_shouldKeepOrderAndMatchesOfChildrenList() {
+		Random random = new Random(42);
+		for (int round = 0; round < 50; round++) {
+			List<FSTNode> expected = new LinkedList<>();
+			ChildrenIndex index = new ChildrenIndex();
+
+			for (int i = 0; i < 60; i++) {
+				FSTNode child = newNode(random);
+				FSTNode neighbour = newNode(random);
+				switch (random.nextInt(3)) {
+				case 0:
+					expected.add(child);
+					index.add(child);
+					break;
+				case 1:
+					int after = expected.indexOf(neighbour);
+					if (after != -1) {
+						expected.add(after + 1, child);
+					}
+					assertThat(index.addAfter(child, neighbour)).isEqualTo(after != -1);
+					break;
+				default:
+					int before = expected.indexOf(neighbour);
+					if (before != -1) {
+						expected.add(before, child);
+					}
+					assertThat(index.addBefore(child, neighbour)).isEqualTo(before != -1);
+				}
+
+				FSTNode probe = newNode(random);
+				assertThat(index.getCompatibleChild(probe)).isSameAs(firstCompatible(expected, probe));
+			}
+
+			List<FSTNode> actual = new ArrayList<>();
+			index.forEach(actual::add);
+			assertThat(actual).containsExactlyElementsOf(expected);
+		}
+	}
+
+	@Test
+	public void testIndex_givenChildrenWithSameTypeAndName_shouldReturnFirstCompatibleChild() {
+		FSTNonTerminal parent = new FSTNonTerminal("ClassBody", "A");
+		FSTNode first = new FSTTerminal("InitializerDecl", "-", "{ a(); }", "");
+		FSTNode second = new FSTTerminal("InitializerDecl", "-", "{ b(); }", "");
+		parent.addChild(new FSTTerminal("FieldDecl", "x", "int x;", ""));
+		parent.addChild(first);
+		parent.addChild(second);
+
+		ChildrenIndex index = new ChildrenIndex(parent.getChildren());
+
+		assertThat(index.getCompatibleChild(second)).isSameAs(parent.getCompatibleChild(second)).isSameAs(first);
+		assertThat(index.getCompatibleChild(new FSTTerminal("FieldDecl", "y", "int y;", ""))).isNull();
+	}
+
+	private FSTNode newNode(Random random) {
+		String name = "m" + random.nextInt(12);
+		return random.nextBoolean() ? new FSTTerminal("MethodDecl", name, name + "() {}", "")
+				: new FSTNonTerminal("ClassDeclaration", name);
+	}
+
+	private FSTNode firstCompatible(List<FSTNode> children, FSTNode node) {
+		for (FSTNode child : children) {
+			if (child.compatibleWith(node)) {
+				return child;
+			}
+		}
+		return null;
+	}
+
+}
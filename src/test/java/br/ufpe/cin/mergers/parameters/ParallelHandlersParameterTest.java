@@ -0,0 +1,109 @@
+package br.ufpe.cin.mergers.parameters;
+
+import static org.assertj.core.api.Assertions.*;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ParallelHandlersParameterTest {
+
+    //scenarios of the conflict handlers
+    private static final String[] HANDLER_SCENARIOS = {"deletion", "duplications", "import", "initlblocks", "nereo", "renaming"};
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws UnsupportedEncodingException {
+        //hidding sysout output
+        @SuppressWarnings("unused")
+        PrintStream originalStream = System.out;
+        PrintStream hideStream    = new PrintStream(new OutputStream(){
+            public void write(int b) {}
+        }, true, Charset.defaultCharset().displayName());
+        System.setOut(hideStream);
+    }
+
+    @Test
+    public void testParallelHandlersMatchSerialHandlers() throws IOException {
+        List<Path> leftFiles = findLeftFilesOfHandlerScenarios();
+        assertThat(leftFiles).isNotEmpty();
+
+        for (Path left : leftFiles) {
+            File[] revisions = {left.toFile(), revision(left, "base"), revision(left, "right")};
+            if (!revisions[1].isFile() || !revisions[2].isFile()) {
+                continue;
+            }
+            MergeContext serialContext = merge(revisions, false);
+            MergeContext parallelContext = merge(revisions, true);
+
+            String scenario = left.toString();
+            assertThat(parallelContext.semistructuredOutput).as(scenario).isEqualTo(serialContext.semistructuredOutput);
+            assertThat(parallelContext.semistructuredNumberOfConflicts).as(scenario).isEqualTo(serialContext.semistructuredNumberOfConflicts);
+            assertThat(parallelContext.typeAmbiguityErrorsConflicts).as(scenario).isEqualTo(serialContext.typeAmbiguityErrorsConflicts);
+            assertThat(parallelContext.newElementReferencingEditedOneConflicts).as(scenario).isEqualTo(serialContext.newElementReferencingEditedOneConflicts);
+            assertThat(parallelContext.renamingConflicts).as(scenario).isEqualTo(serialContext.renamingConflicts);
+            assertThat(parallelContext.initializationBlocksConflicts).as(scenario).isEqualTo(serialContext.initializationBlocksConflicts);
+            assertThat(parallelContext.deletionConflicts).as(scenario).isEqualTo(serialContext.deletionConflicts);
+            assertThat(parallelContext.innerDeletionConflicts).as(scenario).isEqualTo(serialContext.innerDeletionConflicts);
+        }
+    }
+
+    //left revisions are either named left.java, or placed under a left directory
+    private static List<Path> findLeftFilesOfHandlerScenarios() throws IOException {
+        try (Stream<Path> files = Files.walk(Paths.get("testfiles"))) {
+            return files.filter(file -> isOfHandlerScenario(file) && file.toString().endsWith(".java"))
+                    .filter(file -> file.getFileName().toString().equals("left.java") || indexOfLeft(file) >= 0)
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isOfHandlerScenario(Path file) {
+        if (file.getNameCount() < 2) {
+            return false;
+        }
+        String scenario = file.getName(1).toString();
+        return Stream.of(HANDLER_SCENARIOS).anyMatch(scenario::startsWith);
+    }
+
+    private static int indexOfLeft(Path file) {
+        for (int i = 0; i < file.getNameCount() - 1; i++) {
+            if (file.getName(i).toString().equals("left")) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static File revision(Path left, String revision) {
+        if (left.getFileName().toString().equals("left.java")) {
+            return left.resolveSibling(revision + ".java").toFile();
+        }
+        int index = indexOfLeft(left);
+        Path revisionPath = Paths.get(left.getName(0).toString());
+        for (int i = 1; i < left.getNameCount(); i++) {
+            revisionPath = revisionPath.resolve(i == index ? revision : left.getName(i).toString());
+        }
+        return revisionPath.toFile();
+    }
+
+    private MergeContext merge(File[] revisions, boolean parallelHandlers) {
+        MergeOptions options = MergeOptions.builder().parallelHandlersEnabled(parallelHandlers).build();
+        return new JFSTMerge().mergeFiles(revisions[0], revisions[1], revisions[2], null, options);
+    }
+
+}
@@ -0,0 +1,75 @@
+package br.ufpe.cin.mergers.parameters;
+
+import static org.assertj.core.api.Assertions.*;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.FilesTuple;
+import br.ufpe.cin.mergers.util.MergeContext;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+public class ParallelMergeParameterTest {
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws UnsupportedEncodingException {
+        //hidding sysout output
+        @SuppressWarnings("unused")
+        PrintStream originalStream = System.out;
+        PrintStream hideStream    = new PrintStream(new OutputStream(){
+            public void write(int b) {}
+        }, true, Charset.defaultCharset().displayName());
+        System.setOut(hideStream);
+    }
+
+    @After
+    public void tearDown() {
+        JFSTMerge.isParallel = false;
+    }
+
+    @Test
+    public void testParallelMergeMatchesSerialMerge() {
+        List<FilesTuple> serialTuples = mergeDirectories(false);
+        List<FilesTuple> parallelTuples = mergeDirectories(true);
+
+        assertThat(parallelTuples).hasSameSizeAs(serialTuples);
+        for (int i = 0; i < serialTuples.size(); i++) {
+            FilesTuple serialTuple = serialTuples.get(i);
+            FilesTuple parallelTuple = parallelTuples.get(i);
+            assertThat(parallelTuple).isEqualTo(serialTuple);
+
+            MergeContext serialContext = serialTuple.getContext();
+            MergeContext parallelContext = parallelTuple.getContext();
+            assertThat(parallelContext.semistructuredOutput).isEqualTo(serialContext.semistructuredOutput);
+            assertThat(parallelContext.unstructuredOutput).isEqualTo(serialContext.unstructuredOutput);
+            assertThat(parallelContext.semistructuredNumberOfConflicts).isEqualTo(serialContext.semistructuredNumberOfConflicts);
+            assertThat(parallelContext.unstructuredNumberOfConflicts).isEqualTo(serialContext.unstructuredNumberOfConflicts);
+            assertThat(parallelContext.fullyQualifiedMergedClass).isEqualTo(serialContext.fullyQualifiedMergedClass);
+            assertThat(parallelContext.duplicatedDeclarationErrors).isEqualTo(serialContext.duplicatedDeclarationErrors);
+            assertThat(parallelContext.renamingConflicts).isEqualTo(serialContext.renamingConflicts);
+            assertThat(parallelContext.deletionConflicts).isEqualTo(serialContext.deletionConflicts);
+            assertThat(parallelContext.innerDeletionConflicts).isEqualTo(serialContext.innerDeletionConflicts);
+            assertThat(parallelContext.typeAmbiguityErrorsConflicts).isEqualTo(serialContext.typeAmbiguityErrorsConflicts);
+            assertThat(parallelContext.newElementReferencingEditedOneConflicts).isEqualTo(serialContext.newElementReferencingEditedOneConflicts);
+            assertThat(parallelContext.initializationBlocksConflicts).isEqualTo(serialContext.initializationBlocksConflicts);
+            assertThat(parallelContext.equalConflicts).isEqualTo(serialContext.equalConflicts);
+            assertThat(parallelContext.orderingConflicts).isEqualTo(serialContext.orderingConflicts);
+        }
+    }
+
+    private List<FilesTuple> mergeDirectories(boolean parallel) {
+        JFSTMerge.isParallel = parallel;
+        return new JFSTMerge().mergeDirectories(
+                "testfiles/shelltests/big/left",
+                "testfiles/shelltests/big/base",
+                "testfiles/shelltests/big/right",
+                null);
+    }
+
+}
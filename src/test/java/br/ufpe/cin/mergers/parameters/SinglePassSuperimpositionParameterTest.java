@@ -0,0 +1,59 @@
+package br.ufpe.cin.mergers.parameters;
+
+import static org.assertj.core.api.Assertions.*;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+public class SinglePassSuperimpositionParameterTest {
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws UnsupportedEncodingException {
+        //hidding sysout output
+        @SuppressWarnings("unused")
+        PrintStream originalStream = System.out;
+        PrintStream hideStream    = new PrintStream(new OutputStream(){
+            public void write(int b) {}
+        }, true, Charset.defaultCharset().displayName());
+        System.setOut(hideStream);
+    }
+
+    @Test
+    public void testSinglePassSuperimpositionMatchesTwoStepsSuperimposition() {
+        File[] scenarios = new File("testfiles").listFiles(scenario -> new File(scenario, "left.java").isFile());
+        assertThat(scenarios).isNotEmpty();
+
+        for (File scenario : scenarios) {
+            MergeContext twoStepsContext = merge(scenario, false);
+            MergeContext singlePassContext = merge(scenario, true);
+
+            assertThat(singlePassContext.semistructuredOutput).as(scenario.getName()).isEqualTo(twoStepsContext.semistructuredOutput);
+            assertThat(singlePassContext.semistructuredNumberOfConflicts).as(scenario.getName()).isEqualTo(twoStepsContext.semistructuredNumberOfConflicts);
+            assertThat(singlePassContext.addedLeftNodes).as(scenario.getName()).hasSameSizeAs(twoStepsContext.addedLeftNodes);
+            assertThat(singlePassContext.addedRightNodes).as(scenario.getName()).hasSameSizeAs(twoStepsContext.addedRightNodes);
+            assertThat(singlePassContext.nodesDeletedByLeft).as(scenario.getName()).hasSameSizeAs(twoStepsContext.nodesDeletedByLeft);
+            assertThat(singlePassContext.nodesDeletedByRight).as(scenario.getName()).hasSameSizeAs(twoStepsContext.nodesDeletedByRight);
+            assertThat(singlePassContext.deletedBaseNodes).as(scenario.getName()).hasSameSizeAs(twoStepsContext.deletedBaseNodes);
+        }
+    }
+
+    private MergeContext merge(File scenario, boolean singlePass) {
+        MergeOptions options = MergeOptions.builder().singlePassSuperimpositionEnabled(singlePass).build();
+        return new JFSTMerge().mergeFiles(
+                new File(scenario, "left.java"),
+                new File(scenario, "base.java"),
+                new File(scenario, "right.java"),
+                null,
+                options);
+    }
+
+}
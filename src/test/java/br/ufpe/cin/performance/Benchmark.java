@@ -0,0 +1,8 @@
+package br.ufpe.cin.performance;
+
+/**
+ * JUnit category of the benchmarks, which only report measurements and take too long for the regular test run.
+ * They are run by the <i>benchmark</i> Gradle task instead of the <i>test</i> task.
+ */
+public interface Benchmark {
+}
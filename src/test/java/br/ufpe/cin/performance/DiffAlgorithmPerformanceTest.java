@@ -0,0 +1,110 @@
+package br.ufpe.cin.performance;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.util.DiffAlgorithmType;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+
+/**
+ * Benchmark of the diff algorithms of textual merge, comparing the throughput and the number
+ * of conflicts of merging every scenario of the test files with each algorithm.
+ * The report is written to the standard error output.
+ */
+@Category(Benchmark.class)
+public class DiffAlgorithmPerformanceTest {
+
+	private static final PrintStream REPORT = System.err;
+
+	private final int NUM_WARMUP_ITERATIONS = 2;
+	private final int NUM_ITERATIONS = 5;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws UnsupportedEncodingException {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		}, true, Charset.defaultCharset().displayName());
+		System.setOut(hideStream);
+	}
+
+	@Test
+	public void testDiffAlgorithmsPerformance() throws IOException {
+		List<File[]> scenarios = findScenarios();
+		assertThat(scenarios).isNotEmpty();
+
+		for (DiffAlgorithmType algorithm : DiffAlgorithmType.values()) {
+			MergeOptions options = MergeOptions.builder().diffAlgorithm(algorithm).build();
+			for (int i = 0; i < NUM_WARMUP_ITERATIONS; i++) {
+				mergeScenarios(scenarios, options);
+			}
+
+			long initialTime = System.nanoTime();
+			int[] conflicts = null;
+			for (int i = 0; i < NUM_ITERATIONS; i++) {
+				conflicts = mergeScenarios(scenarios, options);
+			}
+			long totalTime = System.nanoTime() - initialTime;
+
+			double scenariosPerSecond = (scenarios.size() * NUM_ITERATIONS) / (totalTime / 1e9);
+			REPORT.printf("%-10s %8.1f scenarios/s %6d semistructured conflicts %6d unstructured conflicts%n",
+					algorithm, scenariosPerSecond, conflicts[0], conflicts[1]);
+		}
+	}
+
+	private int[] mergeScenarios(List<File[]> scenarios, MergeOptions options) {
+		int[] conflicts = new int[2];
+		for (File[] scenario : scenarios) {
+			MergeContext context = new JFSTMerge().mergeFiles(scenario[0], scenario[1], scenario[2], null, options);
+			assertThat(context).isNotNull();
+			conflicts[0] += context.semistructuredNumberOfConflicts;
+			conflicts[1] += context.unstructuredNumberOfConflicts;
+		}
+		return conflicts;
+	}
+
+	/*
+	 * Scenarios are either left.java, base.java and right.java files, or files of same name
+	 * in left, base and right directories.
+	 */
+	private List<File[]> findScenarios() throws IOException {
+		try (Stream<Path> paths = Files.walk(Paths.get("testfiles"))) {
+			return paths.filter(path -> path.toString().endsWith(".java"))
+					.map(path -> scenarioOf(path.toFile()))
+					.filter(scenario -> scenario != null && scenario[1].isFile() && scenario[2].isFile())
+					.collect(Collectors.toList());
+		}
+	}
+
+	private File[] scenarioOf(File leftFile) {
+		File parent = leftFile.getParentFile();
+		if (leftFile.getName().equals("left.java")) {
+			return new File[] { leftFile, new File(parent, "base.java"), new File(parent, "right.java") };
+		} else if (parent.getName().equals("left")) {
+			File root = parent.getParentFile();
+			return new File[] { leftFile, new File(new File(root, "base"), leftFile.getName()),
+					new File(new File(root, "right"), leftFile.getName()) };
+		}
+		return null;
+	}
+}
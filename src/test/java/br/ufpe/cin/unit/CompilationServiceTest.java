@@ -0,0 +1,120 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.CompilationProfile;
+import br.ufpe.cin.mergers.util.CompilationService;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.mergers.util.Source;
+
+public class CompilationServiceTest {
+
+	private final MergeContext context = new MergeContext(MergeOptions.builder().build());
+
+	@Test
+	public void testCompile_givenSameSourceTwice_shouldCompileItOnce() {
+		CompilationService service = context.getCompilationService();
+
+		CompilationUnit unit = service.compile("class A { void m() {} }");
+
+		assertThat(service.compile(new String("class A { void m() {} }"))).isSameAs(unit);
+		assertThat(service.compile("class A { void n() {} }")).isNotSameAs(unit);
+	}
+
+	@Test
+	public void testCompile_givenSameSourceAtOnce_shouldShareOneCompilation() throws Exception {
+		CompilationService service = context.getCompilationService();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		CountDownLatch start = new CountDownLatch(1);
+		Callable<CompilationUnit> compilation = () -> {
+			start.await();
+			return service.compile("class A { void m() { new A(); } }");
+		};
+		try {
+			List<Future<CompilationUnit>> units = new ArrayList<Future<CompilationUnit>>();
+			for (int i = 0; i < 4; i++) {
+				units.add(executor.submit(compilation));
+			}
+			start.countDown();
+
+			for (Future<CompilationUnit> unit : units) {
+				assertThat(unit.get()).isSameAs(units.get(0).get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testGetProblems_givenOutputCompiledTwice_shouldGiveEachCallerItsOwnList() {
+		context.semistructuredOutput = "class A { void m() {} void m() {} }";
+		CompilationService service = context.getCompilationService();
+
+		List<IProblem> problems = service.getProblems(Source.SEMISTRUCTURED);
+		assertThat(problems).isNotEmpty();
+		problems.clear();
+
+		assertThat(service.getProblems(Source.SEMISTRUCTURED)).isNotEmpty();
+		assertThat(service.compile(Source.SEMISTRUCTURED)).isSameAs(service.compile(Source.SEMISTRUCTURED));
+	}
+
+	@Test
+	public void testCompile_givenOutputChanged_shouldCompileNewOutput() {
+		context.unstructuredOutput = "class A { }";
+		CompilationService service = context.getCompilationService();
+		CompilationUnit unit = service.compile(Source.UNSTRUCTURED);
+
+		context.unstructuredOutput = "class B { }";
+
+		assertThat(service.compile(Source.UNSTRUCTURED)).isNotSameAs(unit);
+	}
+
+	@Test
+	public void testCompile_givenProfiles_shouldReuseUnitsOfCoveringProfiles() {
+		CompilationService service = context.getCompilationService();
+
+		CompilationUnit syntaxUnit = service.compile("class A { }", CompilationProfile.SYNTAX_WITH_BODIES);
+		CompilationUnit bindingsUnit = service.compile("class A { }", CompilationProfile.BINDINGS);
+
+		assertThat(bindingsUnit).isNotSameAs(syntaxUnit);
+		assertThat(service.compile("class A { }")).isSameAs(bindingsUnit);
+
+		CompilationUnit otherBindingsUnit = service.compile("class B { }", CompilationProfile.BINDINGS);
+		assertThat(service.compile("class B { }", CompilationProfile.SYNTAX_WITH_BODIES)).isSameAs(otherBindingsUnit);
+	}
+
+	@Test
+	public void testGetReferenceCounts_givenProfiles_shouldCompileNoMoreThanAskedFor() {
+		CompilationService service = context.getCompilationService();
+		String source = "class A { void m(int a) { new A(); m(1); } }";
+
+		assertThat(service.getReferenceCounts(source, CompilationProfile.SYNTAX_WITH_BODIES).countInstances("A")).isEqualTo(1);
+		assertThat(service.getReferenceCounts(source, CompilationProfile.SYNTAX_WITH_BODIES).countInvocations("m(int-int)")).isZero();
+		assertThat(service.getReferenceCounts(source, CompilationProfile.BINDINGS).countInvocations("m(int-int)")).isEqualTo(1);
+		assertThat(service.compile(source, CompilationProfile.SYNTAX_WITH_BODIES).getProblems()).isEmpty();
+	}
+
+	@Test
+	public void testClear_givenCompiledSource_shouldCompileItAgain() {
+		CompilationService service = context.getCompilationService();
+		CompilationUnit unit = service.compile("class A { }");
+
+		service.clear();
+
+		assertThat(service.compile("class A { }")).isNotSameAs(unit);
+	}
+
+}
@@ -0,0 +1,149 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.mergers.handlers.DuplicatedDeclarationHandler;
+import br.ufpe.cin.mergers.util.CompilationSession;
+import br.ufpe.cin.mergers.util.JavaCompiler;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.mergers.util.Source;
+
+public class CompilationSessionTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void testFinish_givenScheduledCompilations_shouldCompileOutputsAsTheyWereWhenScheduled() {
+		CompilationSession session = new CompilationSession();
+		MergeContext first = newContext("class A { void m() {} void m() {} }");
+		MergeContext second = newContext("class B { void n() {} }");
+		List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+
+		session.compileLater(first, Source.UNSTRUCTURED, units::add);
+		session.compileLater(second, Source.UNSTRUCTURED, units::add);
+		first.unstructuredOutput = "class A { }";
+		assertThat(units).isEmpty();
+
+		session.finish();
+
+		assertThat(units).hasSize(2);
+		assertThat(units.get(0).getProblems()).isNotEmpty();
+		assertThat(units.get(1).getProblems()).isEmpty();
+	}
+
+	@Test
+	public void testFinish_givenFilesOfSameProject_shouldCompileThemTogether() throws IOException {
+		File src = temporaryFolder.newFolder("project", "src");
+		File a = new File(src, "A.java");
+		File b = new File(src, "B.java");
+		FileUtils.writeStringToFile(a, "public class A { B b; void m() {} void m() {} }", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(b, "public class B { A a; }", StandardCharsets.UTF_8);
+		CompilationSession session = new CompilationSession();
+		List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+
+		session.compileLater(newContext(a), Source.UNSTRUCTURED, units::add);
+		session.compileLater(newContext(b), Source.UNSTRUCTURED, units::add);
+		session.finish();
+
+		assertThat(units).hasSize(2);
+		assertThat(units.get(0).getProblems()).extracting(IProblem::getID).containsOnly(IProblem.DuplicateMethod);
+		assertThat(units.get(1).getProblems()).isEmpty();
+	}
+
+	@Test
+	public void testFinish_givenFilesOfSameProject_shouldResolveTheirTypesAgainstTheMergedOutputs() throws IOException {
+		File src = temporaryFolder.newFolder("project", "src");
+		File a = new File(src, "A.java");
+		File b = new File(src, "B.java");
+		FileUtils.writeStringToFile(a, "public class A { void m(B b) { b.n(); } }", StandardCharsets.UTF_8);
+		FileUtils.writeStringToFile(b, "public class B { }", StandardCharsets.UTF_8);
+		MergeContext first = newContext(a);
+		MergeContext second = newContext(b);
+		second.unstructuredOutput = "public class B { void n() { } }";
+		CompilationSession session = new CompilationSession();
+		List<CompilationUnit> units = new ArrayList<CompilationUnit>();
+
+		//on its own, the output of A sees B as found in the project, which has no method n()
+		assertThat(new JavaCompiler().compile(first, Source.UNSTRUCTURED).getProblems()).isNotEmpty();
+
+		session.compileLater(first, Source.UNSTRUCTURED, units::add);
+		session.compileLater(second, Source.UNSTRUCTURED, units::add);
+		session.finish();
+
+		assertThat(units).hasSize(2);
+		assertThat(units.get(0).getProblems()).isEmpty();
+	}
+
+	@Test
+	public void testAfterCompilations_whenPendingFilesReachTheMaximum_shouldFinishTheBatch() {
+		CompilationSession session = new CompilationSession(2);
+		List<String> events = new ArrayList<String>();
+
+		session.compileLater(newContext("class A { }"), Source.UNSTRUCTURED, unit -> events.add("compilation"));
+		session.afterCompilations(() -> events.add("first statistics"));
+		assertThat(events).isEmpty();
+		session.afterCompilations(() -> events.add("second statistics"));
+		assertThat(events).containsExactly("compilation", "first statistics", "second statistics");
+
+		session.afterCompilations(() -> events.add("third statistics"));
+		session.finish();
+		assertThat(events).endsWith("third statistics").hasSize(4);
+	}
+
+	@Test
+	public void testFinish_givenActionsAfterCompilations_shouldRunThemLast() {
+		CompilationSession session = new CompilationSession();
+		MergeContext context = newContext("public class A { }");
+		List<String> events = new ArrayList<String>();
+
+		session.afterCompilations(() -> events.add("statistics"));
+		session.compileLater(context, Source.UNSTRUCTURED, unit -> events.add("compilation"));
+		session.finish();
+		session.finish();
+
+		assertThat(events).containsExactly("compilation", "statistics");
+	}
+
+	@Test
+	public void testDuplicatedDeclarationHandler_givenSession_shouldCountErrorsWhenSessionFinishes() {
+		CompilationSession session = new CompilationSession();
+		MergeContext context = newContext("public class A { void m() {} void m() {} }");
+		context.setCompilationSession(session);
+
+		new DuplicatedDeclarationHandler().handle(context);
+		assertThat(context.duplicatedDeclarationErrors).isZero();
+
+		session.finish();
+		assertThat(context.duplicatedDeclarationErrors).isPositive();
+	}
+
+	private static MergeContext newContext(File file) throws IOException {
+		MergeContext context = new MergeContext(file, file, file, null, MergeOptions.builder().build());
+		return newContext(context, FileUtils.readFileToString(file, StandardCharsets.UTF_8));
+	}
+
+	private static MergeContext newContext(String unstructuredOutput) {
+		return newContext(new MergeContext(MergeOptions.builder().build()), unstructuredOutput);
+	}
+
+	private static MergeContext newContext(MergeContext context, String unstructuredOutput) {
+		context.unstructuredOutput = unstructuredOutput;
+		context.semistructuredOutput = unstructuredOutput;
+		return context;
+	}
+}
@@ -0,0 +1,95 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FilesManager;
+import br.ufpe.cin.mergers.util.ConflictIndex;
+import br.ufpe.cin.mergers.util.MergeConflict;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+
+public class ConflictIndexTest {
+
+	private static final String MERGED_CODE = "class A {\n"
+			+ "<<<<<<< MINE\n"
+			+ "\tvoid m(int a) {}\n"
+			+ "||||||| BASE\n"
+			+ "\tvoid m() {}\n"
+			+ "=======\n"
+			+ "\tvoid n() {}\n"
+			+ ">>>>>>> YOURS\r\n"
+			+ "\tint x;\r\n"
+			+ "<<<<<<< MINE\r\n"
+			+ "\tint y = 1;\r\n"
+			+ "=======\r\n"
+			+ "\tint y = 2;\r\n"
+			+ ">>>>>>> YOURS\n"
+			+ "<<<<<<< MINE\n"
+			+ "\tint z;\n"
+			+ "}\n";
+
+	private final MergeOptions options = MergeOptions.builder().showBase(true).build();
+
+	@Test
+	public void testGetConflicts_givenConflictsWithAndWithoutBase_shouldExtractEachConflictApart() {
+		List<MergeConflict> conflicts = new ConflictIndex(MERGED_CODE, options).getConflicts();
+
+		assertThat(conflicts).hasSize(2);
+		assertThat(conflicts.get(0).getLeft()).isEqualTo("\tvoid m(int a) {}\n");
+		assertThat(conflicts.get(0).getBase()).isEqualTo("\tvoid m() {}\n");
+		assertThat(conflicts.get(0).getRight()).isEqualTo("\tvoid n() {}\n");
+		assertThat(conflicts.get(0).getStartLOC()).isEqualTo(2);
+		assertThat(conflicts.get(0).getEndLOC()).isEqualTo(8);
+		assertThat(conflicts.get(1).getLeft()).isEqualTo("\tint y = 1;\n");
+		assertThat(conflicts.get(1).getBase()).isEmpty();
+		assertThat(conflicts.get(1).getRight()).isEqualTo("\tint y = 2;\n");
+		assertThat(conflicts.get(1).getStartLOC()).isEqualTo(10);
+		assertThat(conflicts.get(1).getEndLOC()).isEqualTo(14);
+	}
+
+	@Test
+	public void testGetConflictAt_givenLines_shouldFindSurroundingConflict() {
+		ConflictIndex index = new ConflictIndex(MERGED_CODE, options);
+
+		assertThat(index.getConflictAt(1)).isNull();
+		assertThat(index.getConflictAt(2)).isSameAs(index.getConflicts().get(0));
+		assertThat(index.getConflictAt(8)).isSameAs(index.getConflicts().get(0));
+		assertThat(index.isConflictingLine(9)).isFalse();
+		assertThat(index.getConflictAt(12)).isSameAs(index.getConflicts().get(1));
+		assertThat(index.isConflictingLine(16)).isFalse();
+	}
+
+	@Test
+	public void testHasConflictContaining_givenSignaturesWithoutSpacing_shouldMatchTextualRepresentation() {
+		ConflictIndex index = new ConflictIndex(MERGED_CODE, options);
+
+		assertThat(index.hasConflictContaining("voidm(inta)")).isTrue();
+		assertThat(index.hasConflictContaining("voidm()")).isTrue();
+		assertThat(index.hasConflictContaining("inty=2;>>>>>>>YOURS")).isTrue();
+		assertThat(index.hasConflictContaining("intx;")).isFalse();
+		assertThat(index.hasConflictContaining("intz;")).isFalse();
+		assertThat(new ConflictIndex(MERGED_CODE, MergeOptions.builder().showBase(false).build())
+				.hasConflictContaining("voidm()")).isFalse();
+		for (MergeConflict conflict : index.getConflicts()) {
+			assertThat(index.hasConflictContaining(FilesManager.getStringContentIntoSingleLineNoSpacing(conflict.toString()))).isTrue();
+		}
+	}
+
+	@Test
+	public void testGetUnstructuredConflicts_givenChangedOutput_shouldIndexItAgain() {
+		MergeContext context = new MergeContext(options);
+		context.unstructuredOutput = MERGED_CODE;
+		ConflictIndex index = context.getUnstructuredConflicts();
+
+		assertThat(context.getUnstructuredConflicts()).isSameAs(index);
+		context.unstructuredOutput = "class A {}\n";
+		assertThat(context.getUnstructuredConflicts()).isNotSameAs(index);
+		assertThat(context.getUnstructuredConflicts().size()).isZero();
+		assertThat(context.getSemistructuredConflicts().getConflicts()).isEmpty();
+	}
+
+}
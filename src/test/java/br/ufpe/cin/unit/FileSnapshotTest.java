@@ -0,0 +1,81 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FileSnapshot;
+
+/**
+ * Tests that file snapshots hold the same content previously read line by line from disk.
+ */
+public class FileSnapshotTest {
+
+	@Test
+	public void testSnapshot_givenDifferentLineTerminators_shouldJoinLinesAsReadingLineByLine() throws IOException {
+		String[] contents = { "", "\n", "a", "a\n", "a\n\n", "a\r\nb\rc\nd", "a\r\n", "\r\n\r\n" };
+		for (String content : contents) {
+			File file = File.createTempFile("snapshot", ".java");
+			file.deleteOnExit();
+			Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+			assertThat(FileSnapshot.read(file).getContent()).isEqualTo(readLineByLine(file));
+		}
+	}
+
+	@Test
+	public void testSnapshot_givenDifferentLineTerminators_shouldProvideTheBytesOfTheContent() throws IOException {
+		String[] contents = { "", "\n", "a", "a\n", "a\n\n", "a\r\nb\rc\nd", "\u00e7\u00e3o\n", "\r\n\r\n" };
+		for (String content : contents) {
+			File file = File.createTempFile("snapshot", ".java");
+			file.deleteOnExit();
+			Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+
+			FileSnapshot snapshot = FileSnapshot.read(file);
+			assertThat(bytesOf(snapshot.getContentBuffer())).isEqualTo(snapshot.getContent().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void testSnapshot_givenNullOrMissingFile_shouldBeEmpty() {
+		assertThat(FileSnapshot.read(null).isEmpty()).isTrue();
+		assertThat(FileSnapshot.read(new File("testfiles/missing/Test.java")).isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testSnapshot_whenBytesAreReleased_shouldKeepProvidingTheContent() throws IOException {
+		File file = File.createTempFile("snapshot", ".java");
+		file.deleteOnExit();
+		Files.write(file.toPath(), "class A {\r\n}\r\n".getBytes(StandardCharsets.UTF_8));
+
+		FileSnapshot snapshot = FileSnapshot.read(file);
+		snapshot.releaseBytes();
+
+		assertThat(snapshot.getContent()).isEqualTo("class A {\n}");
+		assertThat(bytesOf(snapshot.getContentBuffer())).isEqualTo("class A {\n}".getBytes(StandardCharsets.UTF_8));
+		try (BufferedReader reader = new BufferedReader(snapshot.openReader())) {
+			assertThat(reader.lines().collect(Collectors.joining("\n"))).isEqualTo("class A {\n}");
+		}
+	}
+
+	private byte[] bytesOf(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.duplicate().get(bytes);
+		return bytes;
+	}
+
+	private String readLineByLine(File file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			return reader.lines().collect(Collectors.joining("\n"));
+		}
+	}
+
+}
@@ -0,0 +1,30 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.files.FilesEncoding;
+
+public class FilesEncodingTest {
+
+	@Test
+	public void testDiscardEncodings_givenRegisteredFiles_shouldKeepTheirSnapshotsEncodings() {
+		File left = new File("left.java");
+		File base = new File("base.java");
+		File right = new File("right.java");
+		FilesEncoding.setFilesEncoding(left, base, right, Arrays.asList("ISO-8859-1", "UTF-16", "US-ASCII"));
+		FileSnapshot snapshot = FileSnapshot.read(base);
+
+		FilesEncoding.discardEncodings(left, base, right);
+
+		assertThat(snapshot.getEncoding()).isEqualTo("UTF-16");
+		assertThat(FilesEncoding.retrieveEncoding(left)).isEqualTo("UTF-8");
+		assertThat(FilesEncoding.retrieveEncoding(base)).isEqualTo("UTF-8");
+		assertThat(FilesEncoding.retrieveEncoding(right)).isEqualTo("UTF-8");
+	}
+}
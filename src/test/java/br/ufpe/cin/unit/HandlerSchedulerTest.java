@@ -0,0 +1,112 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+import br.ufpe.cin.exceptions.TextualMergeException;
+import br.ufpe.cin.mergers.handlers.ConflictHandler;
+import br.ufpe.cin.mergers.handlers.HandlerScheduler;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.mergers.util.MergeResource;
+
+public class HandlerSchedulerTest {
+
+	private final MergeContext context = new MergeContext(MergeOptions.builder().parallelHandlersEnabled(true).build());
+
+	@Test
+	public void testHandle_givenIndependentHandlers_shouldOverlapThemOutsideTheLock() throws Exception {
+		CountDownLatch latch = new CountDownLatch(1);
+		AtomicBoolean overlapped = new AtomicBoolean();
+
+		HandlerScheduler.handle(Arrays.asList(
+				handler(MergeResource.IMPORTS, ctx -> overlapped.set(ctx.runOutsideHandlersLock(() -> await(latch)))),
+				handler(MergeResource.FIELDS, ctx -> latch.countDown())), context);
+
+		assertThat(overlapped).isTrue();
+		assertThat(context.getHandlersLock().isLocked()).isFalse();
+	}
+
+	@Test
+	public void testHandle_givenConflictingHandlers_shouldRunThemInOrder() throws Exception {
+		List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+		HandlerScheduler.handle(Arrays.asList(
+				handler(MergeResource.IMPORTS, ctx -> {
+					ctx.runOutsideHandlersLock(() -> sleep());
+					events.add("first");
+				}),
+				handler(MergeResource.IMPORTS, ctx -> events.add("second"))), context);
+
+		assertThat(events).containsExactly("first", "second");
+	}
+
+	@Test
+	public void testHandle_givenFailedHandler_shouldRethrowItAndSkipItsDependents() {
+		AtomicBoolean dependentRan = new AtomicBoolean();
+		AtomicBoolean independentRan = new AtomicBoolean();
+
+		assertThatThrownBy(() -> HandlerScheduler.handle(Arrays.asList(
+				handler(MergeResource.IMPORTS, ctx -> {
+					throw new TextualMergeException("failed handler");
+				}),
+				handler(MergeResource.IMPORTS, ctx -> dependentRan.set(true)),
+				handler(MergeResource.FIELDS, ctx -> independentRan.set(true))), context))
+		.isInstanceOf(TextualMergeException.class).hasMessageContaining("failed handler");
+
+		assertThat(dependentRan).isFalse();
+		assertThat(independentRan).isTrue();
+	}
+
+	private interface Step {
+		void run(MergeContext context) throws TextualMergeException;
+	}
+
+	private static ConflictHandler handler(MergeResource resource, Step step) {
+		return new ConflictHandler() {
+			@Override
+			public void handle(MergeContext context) throws TextualMergeException {
+				step.run(context);
+			}
+
+			@Override
+			public Set<MergeResource> reads() {
+				return EnumSet.of(resource);
+			}
+
+			@Override
+			public Set<MergeResource> writes() {
+				return EnumSet.of(resource);
+			}
+		};
+	}
+
+	private static boolean await(CountDownLatch latch) {
+		try {
+			return latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+
+	private static boolean sleep() {
+		try {
+			Thread.sleep(100);
+			return true;
+		} catch (InterruptedException e) {
+			return false;
+		}
+	}
+}
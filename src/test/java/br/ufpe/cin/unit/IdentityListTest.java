@@ -0,0 +1,55 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.IdentityList;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Tests that the lists of nodes of the merge context keep insertion order and look up nodes by identity.
+ */
+public class IdentityListTest {
+
+	@Test
+	public void testContains_givenSimilarNodes_shouldOnlyFindTheSameNode() {
+		FSTNode added = new FSTTerminal("MethodDecl", "m()", "void m() {}", "");
+		FSTNode similar = new FSTTerminal("MethodDecl", "m()", "void m() {}", "");
+		List<FSTNode> nodes = new IdentityList<>();
+
+		nodes.add(added);
+
+		assertThat(nodes.contains(added)).isTrue();
+		assertThat(nodes.contains(similar)).isFalse();
+		assertThat(nodes.indexOf(similar)).isEqualTo(-1);
+	}
+
+	@Test
+	public void testRemove_givenRepeatedAndRemovedNodes_shouldKeepOrderAndMembership() {
+		FSTNode first = new FSTTerminal("FieldDecl", "a", "int a;", "");
+		FSTNode second = new FSTTerminal("FieldDecl", "b", "int b;", "");
+		FSTNode third = new FSTTerminal("FieldDecl", "c", "int c;", "");
+		List<FSTNode> nodes = new IdentityList<>();
+
+		nodes.add(first);
+		nodes.add(second);
+		nodes.add(third);
+		nodes.add(second);
+		nodes.remove(1);
+
+		assertThat(nodes).containsExactly(first, third, second);
+		assertThat(nodes.contains(second)).isTrue();
+
+		nodes.remove(second);
+		nodes.set(0, third);
+
+		assertThat(nodes).containsExactly(third, third);
+		assertThat(nodes.contains(first)).isFalse();
+		assertThat(nodes.contains(second)).isFalse();
+	}
+
+}
@@ -0,0 +1,49 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+public class MergeContextTest {
+
+	@Test
+	public void testSeparateAddedImportStatements_givenConsecutiveImports_shouldLeaveTheImportFollowingAMovedOne() {
+		MergeContext context = new MergeContext(MergeOptions.builder().build());
+		FSTNode firstImport = new FSTTerminal("ImportDeclaration", "java.util.List", "import java.util.List;", "");
+		FSTNode secondImport = new FSTTerminal("ImportDeclaration", "java.awt.List", "import java.awt.List;", "");
+		FSTNode method = new FSTTerminal("MethodDecl", "m()", "void m() {}", "");
+		context.addedLeftNodes.add(firstImport);
+		context.addedLeftNodes.add(secondImport);
+		context.addedLeftNodes.add(method);
+
+		context.separateAddedImportStatements();
+
+		assertThat(context.addedLeftNodes).containsExactly(secondImport, method);
+		assertThat(context.addedLeftImportStatements).containsExactly(firstImport);
+		assertThat(context.addedRightNodes).isEmpty();
+		assertThat(context.addedRightImportStatements).isEmpty();
+	}
+
+	@Test
+	public void testSeparateAddedImportStatements_givenImportsApart_shouldMoveEachOfThem() {
+		MergeContext context = new MergeContext(MergeOptions.builder().build());
+		FSTNode firstImport = new FSTTerminal("ImportDeclaration", "java.util.List", "import java.util.List;", "");
+		FSTNode method = new FSTTerminal("MethodDecl", "m()", "void m() {}", "");
+		FSTNode secondImport = new FSTTerminal("ImportDeclaration", "java.awt.List", "import java.awt.List;", "");
+		FSTNode field = new FSTTerminal("FieldDecl", "a", "int a;", "");
+		context.addedRightNodes.add(firstImport);
+		context.addedRightNodes.add(method);
+		context.addedRightNodes.add(secondImport);
+		context.addedRightNodes.add(field);
+
+		context.separateAddedImportStatements();
+
+		assertThat(context.addedRightNodes).containsExactly(method, field);
+		assertThat(context.addedRightImportStatements).containsExactly(firstImport, secondImport);
+	}
+}
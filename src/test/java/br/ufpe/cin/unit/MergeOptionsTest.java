@@ -0,0 +1,56 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.After;
+import org.junit.Test;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.mergers.util.DiffAlgorithmType;
+import br.ufpe.cin.mergers.util.MergeConflict;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.mergers.util.converters.DiffAlgorithmTypeConverter;
+
+/**
+ * Tests that merge settings are fixed when a merge starts.
+ */
+public class MergeOptionsTest {
+
+	@After
+	public void tearDown() {
+		JFSTMerge.showBase = false;
+		JFSTMerge.showConflictMessages = false;
+		JFSTMerge.diffAlgorithm = DiffAlgorithmType.HISTOGRAM;
+	}
+
+	@Test
+	public void testOptions_whenCommandLineOptionsChangeAfterContextCreation_contextShouldKeepOriginalOptions() {
+		JFSTMerge.showBase = true;
+		MergeContext context = new MergeContext();
+		JFSTMerge.showBase = false;
+
+		assertThat(context.getOptions().showBase()).isTrue();
+		assertThat(new MergeContext().getOptions().showBase()).isFalse();
+	}
+
+	@Test
+	public void testOptions_whenConflictIsCreatedWithOptions_shouldFollowThemInsteadOfCommandLineOptions() {
+		MergeOptions options = MergeOptions.builder().showBase(true).showConflictMessages(true).build();
+
+		String conflict = new MergeConflict("left", "base", "right", "message", options).toString();
+
+		assertThat(conflict).contains(MergeConflict.BASE_CONFLICT_MARKER).contains(MergeConflict.CHANGE_CONFLICT_MARKER + " message");
+		assertThat(new MergeConflict("left", "base", "right", "message").toString()).doesNotContain(MergeConflict.BASE_CONFLICT_MARKER);
+	}
+
+	@Test
+	public void testOptions_whenDiffAlgorithmIsGivenInCommandLine_shouldUseIt() {
+		assertThat(new MergeContext().getOptions().getDiffAlgorithm()).isEqualTo(DiffAlgorithmType.HISTOGRAM);
+
+		JFSTMerge.diffAlgorithm = new DiffAlgorithmTypeConverter().convert("myers");
+
+		assertThat(new MergeContext().getOptions().getDiffAlgorithm()).isEqualTo(DiffAlgorithmType.MYERS);
+	}
+
+}
@@ -0,0 +1,118 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.app.MergeClient;
+import br.ufpe.cin.app.MergeServer;
+
+/**
+ * Tests merges requested to the merge server.
+ */
+public class MergeServerTest {
+
+	@ClassRule
+	public static final TemporaryFolder SERVER_DIRECTORY = new TemporaryFolder();
+
+	private static MergeServer server;
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws IOException {
+		//hidding sysout output
+		@SuppressWarnings("unused")
+		PrintStream originalStream = System.out;
+		PrintStream hideStream    = new PrintStream(new OutputStream(){
+			public void write(int b) {}
+		}, true, Charset.defaultCharset().displayName());
+		System.setOut(hideStream);
+
+		server = new MergeServer(SERVER_DIRECTORY.getRoot().toPath());
+		Thread serverThread = new Thread(server::serve);
+		serverThread.setDaemon(true);
+		serverThread.start();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws IOException {
+		server.close();
+	}
+
+	@Test
+	public void testServer_whenMergeIsRequested_shouldProduceTheSameOutputOfALocalMerge() throws IOException {
+		Path filesPath = Paths.get("testfiles", "deletioninleft");
+		File serverOutput = File.createTempFile("server", ".java");
+		File localOutput = File.createTempFile("local", ".java");
+		serverOutput.deleteOnExit();
+		localOutput.deleteOnExit();
+
+		Integer exitStatus = MergeClient.requestMerge(new String[] {
+				filesPath.resolve("left/Test.java").toString(),
+				filesPath.resolve("base/Test.java").toString(),
+				filesPath.resolve("right/Test.java").toString(),
+				"-o", serverOutput.getAbsolutePath() }, SERVER_DIRECTORY.getRoot().toPath());
+		new JFSTMerge().mergeFiles(filesPath.resolve("left/Test.java").toFile(),
+				filesPath.resolve("base/Test.java").toFile(),
+				filesPath.resolve("right/Test.java").toFile(),
+				localOutput.getAbsolutePath());
+
+		assertThat(exitStatus).isEqualTo(0);
+		assertThat(new String(Files.readAllBytes(serverOutput.toPath()), Charset.defaultCharset()))
+				.isEqualTo(new String(Files.readAllBytes(localOutput.toPath()), Charset.defaultCharset()));
+	}
+
+	@Test
+	public void testServer_whenArgumentsAreInvalid_shouldAnswerErrorStatusAndKeepServing() {
+		String[] args = { "missing/Left.java", "missing/Base.java", "missing/Right.java" };
+		assertThat(MergeClient.requestMerge(args, SERVER_DIRECTORY.getRoot().toPath())).isEqualTo(-1);
+		assertThat(MergeClient.requestMerge(args, SERVER_DIRECTORY.getRoot().toPath())).isEqualTo(-1);
+	}
+
+	@Test
+	public void testClient_whenServerClosesAfterTheRequest_shouldFailInsteadOfMergingLocally() throws Exception {
+		Path directory = SERVER_DIRECTORY.newFolder().toPath();
+		try (ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+			Files.write(directory.resolve("server.port"), Arrays.asList(String.valueOf(serverSocket.getLocalPort()), "token"));
+			Thread serverThread = new Thread(() -> {
+				try (Socket socket = serverSocket.accept()) {
+					new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+				} catch (IOException e) {
+					//the client sees the connection closed either way
+				}
+			});
+			serverThread.setDaemon(true);
+			serverThread.start();
+
+			assertThat(MergeClient.requestMerge(new String[] { "missing/Left.java", "missing/Base.java", "missing/Right.java" }, directory)).isEqualTo(-1);
+		}
+	}
+
+	@Test
+	public void testClient_whenNoServerRunsInTheDirectory_shouldLeaveTheMergeToTheCaller() throws IOException {
+		Path emptyDirectory = SERVER_DIRECTORY.newFolder().toPath();
+		assertThat(MergeClient.requestMerge(new String[] { "missing/Left.java", "missing/Base.java", "missing/Right.java" }, emptyDirectory)).isNull();
+	}
+
+}
@@ -0,0 +1,202 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.generated.Java18MergeParserConstants;
+import br.ufpe.cin.parser.ParseTreeCache;
+import cide.gparser.ParseException;
+import cide.gparser.Token;
+import cide.gparser.TokenMgrError;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Tests that the parse tree cache parses each content only once, in memory and on disk,
+ * and always hands out independent copies of the trees.
+ */
+public class ParseTreeCacheTest {
+
+	private Path directory;
+	private AtomicInteger parses;
+
+	@Before
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("parsetrees");
+		parses = new AtomicInteger();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		FileUtils.deleteDirectory(directory.toFile());
+	}
+
+	@Test
+	public void testCheckout_givenSameContent_shouldParseOnceAndReturnIndependentTrees() throws Exception {
+		ParseTreeCache cache = new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory);
+		FileSnapshot first = snapshot("class A {}");
+		FileSnapshot second = snapshot("class A {}");
+
+		FSTNode firstTree = cache.checkout(first, false, this::parse);
+		FSTNode secondTree = cache.checkout(second, false, this::parse);
+
+		assertThat(parses.get()).isEqualTo(1);
+		assertThat(secondTree).isNotSameAs(firstTree);
+		((FSTTerminal) ((FSTNonTerminal) firstTree).getChildren().get(0)).setBody("modified");
+		assertThat(print(cache.checkout(first, false, this::parse))).isEqualTo(print(parse()));
+	}
+
+	@Test
+	public void testCheckout_givenPersistedTree_shouldNotParseAgainInNewCache() throws Exception {
+		FileSnapshot snapshot = snapshot("class A {}");
+		new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, this::parse);
+
+		FSTNode tree = new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, this::parse);
+
+		assertThat(parses.get()).isEqualTo(1);
+		assertThat(print(tree)).isEqualTo(print(parse()));
+	}
+
+	@Test
+	public void testCheckout_givenInvalidContent_shouldRethrowTheParseFailureWithoutParsingAgain() throws Exception {
+		ParseTreeCache cache = new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory);
+		FileSnapshot snapshot = snapshot("class {");
+		ParseException failure = new ParseException("Encountered \"{\"");
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.checkout(snapshot, false, () -> {
+					parses.incrementAndGet();
+					throw failure;
+				});
+				fail("ParseException expected");
+			} catch (ParseException e) {
+				assertThat(e).isSameAs(failure);
+			}
+		}
+		assertThat(parses.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCheckout_givenPersistedParseFailure_shouldRethrowItsDetailsInNewCache() throws Exception {
+		FileSnapshot snapshot = snapshot("class {");
+		Token current = token(1, "class", 1, 1, 1, 5);
+		current.next = token(2, "{", 1, 7, 1, 7);
+		ParseException failure = new ParseException(current, new int[][] { { 3 }, { 4, 5 } }, Java18MergeParserConstants.tokenImage);
+		try {
+			new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, () -> {
+				parses.incrementAndGet();
+				throw failure;
+			});
+			fail("ParseException expected");
+		} catch (ParseException e) {
+			assertThat(e).isSameAs(failure);
+		}
+
+		try {
+			new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, this::parse);
+			fail("ParseException expected");
+		} catch (ParseException e) {
+			assertThat(e.getMessage()).isEqualTo(failure.getMessage());
+			assertThat(e.currentToken.image).isEqualTo("class");
+			assertThat(e.currentToken.next.kind).isEqualTo(2);
+			assertThat(e.currentToken.next.image).isEqualTo("{");
+			assertThat(e.currentToken.next.beginLine).isEqualTo(1);
+			assertThat(e.currentToken.next.beginColumn).isEqualTo(7);
+			assertThat(e.expectedTokenSequences).isEqualTo(new int[][] { { 3 }, { 4, 5 } });
+		}
+		assertThat(parses.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCheckout_givenPersistedTokenFailure_shouldRethrowItsMessageInNewCache() throws Exception {
+		FileSnapshot snapshot = snapshot("class A { # }");
+		TokenMgrError failure = new TokenMgrError("Lexical error at line 1, column 11.", TokenMgrError.LEXICAL_ERROR);
+		try {
+			new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, () -> {
+				parses.incrementAndGet();
+				throw failure;
+			});
+			fail("TokenMgrError expected");
+		} catch (TokenMgrError e) {
+			assertThat(e).isSameAs(failure);
+		}
+
+		try {
+			new ParseTreeCache(ParseTreeCache.DEFAULT_CAPACITY, directory).checkout(snapshot, true, this::parse);
+			fail("TokenMgrError expected");
+		} catch (TokenMgrError e) {
+			assertThat(e.getMessage()).isEqualTo(failure.getMessage());
+		}
+		assertThat(parses.get()).isEqualTo(1);
+	}
+
+	@Test
+	public void testCheckout_givenFullCache_shouldEvictLeastRecentlyUsedTree() throws Exception {
+		ParseTreeCache cache = new ParseTreeCache(1, directory);
+		FileSnapshot first = snapshot("class A {}");
+		FileSnapshot second = snapshot("class B {}");
+
+		cache.checkout(first, false, this::parse);
+		cache.checkout(second, false, this::parse);
+		cache.checkout(first, false, this::parse);
+
+		assertThat(cache.size()).isEqualTo(1);
+		assertThat(parses.get()).isEqualTo(3);
+	}
+
+	private FSTNode parse() {
+		parses.incrementAndGet();
+		FSTNonTerminal root = new FSTNonTerminal("CompilationUnit", "-");
+		root.addChild(new FSTTerminal("FieldDecl", "a", "int a = 0;", "//comment\n", "Replacement", "LineBased"));
+		FSTNonTerminal type = new FSTNonTerminal("ClassDeclaration", "A");
+		type.addChild(new FSTTerminal("FieldDecl", "b", "int b;", "", "Replacement", "LineBased"));
+		root.addChild(type);
+		return root;
+	}
+
+	private Token token(int kind, String image, int beginLine, int beginColumn, int endLine, int endColumn) {
+		Token token = new Token();
+		token.kind = kind;
+		token.image = image;
+		token.beginLine = beginLine;
+		token.beginColumn = beginColumn;
+		token.endLine = endLine;
+		token.endColumn = endColumn;
+		return token;
+	}
+
+	private FileSnapshot snapshot(String content) throws IOException {
+		File file = File.createTempFile("ParseTreeCache", ".java");
+		file.deleteOnExit();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return FileSnapshot.read(file);
+	}
+
+	private String print(FSTNode node) {
+		if (node instanceof FSTTerminal) {
+			FSTTerminal terminal = (FSTTerminal) node;
+			return terminal.getType() + ":" + terminal.getName() + ":" + terminal.getSpecialTokenPrefix() + terminal.getBody()
+					+ ":" + terminal.getCompositionMechanism() + ":" + terminal.getMergingMechanism();
+		}
+		StringBuilder printed = new StringBuilder(node.getType() + ":" + node.getName() + "(");
+		for (FSTNode child : ((FSTNonTerminal) node).getChildren()) {
+			printed.append(print(child)).append(",");
+		}
+		return printed.append(")").toString();
+	}
+
+}
@@ -0,0 +1,82 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import br.ufpe.cin.mergers.util.ProjectIndex;
+
+public class ProjectIndexTest {
+
+	@Rule
+	public TemporaryFolder project = new TemporaryFolder();
+
+	@Test
+	public void testOf_givenProject_shouldFindDirectoriesOfSourcesAndJars() throws IOException {
+		File sources = project.newFolder("src", "main", "java");
+		File libraries = project.newFolder("lib");
+		new File(sources, "A.java").createNewFile();
+		new File(sources, "B.java").createNewFile();
+		new File(libraries, "a.jar").createNewFile();
+		project.newFile("README.md");
+
+		ProjectIndex index = ProjectIndex.of(project.getRoot().getPath());
+
+		assertThat(index.getSourceDirectories()).containsExactly(sources.getPath());
+		assertThat(index.getLibraryDirectories()).containsExactly(libraries.getPath());
+	}
+
+	@Test
+	public void testOf_givenUnchangedProject_shouldReuseIndex() throws IOException {
+		new File(project.newFolder("src"), "A.java").createNewFile();
+
+		ProjectIndex index = ProjectIndex.of(project.getRoot().getPath());
+
+		assertThat(ProjectIndex.of(project.getRoot().getPath())).isSameAs(index);
+	}
+
+	@Test
+	public void testOf_givenChangedDirectory_shouldWalkProjectAgain() throws IOException {
+		File sources = project.newFolder("src");
+		new File(sources, "A.java").createNewFile();
+		ProjectIndex index = ProjectIndex.of(project.getRoot().getPath());
+
+		File tests = project.newFolder("test");
+		new File(tests, "ATest.java").createNewFile();
+		//file systems may keep modification times in coarse units, so the change is made visible explicitly
+		project.getRoot().setLastModified(project.getRoot().lastModified() + 2000);
+
+		ProjectIndex changedIndex = ProjectIndex.of(project.getRoot().getPath());
+		assertThat(changedIndex).isNotSameAs(index);
+		assertThat(changedIndex.getSourceDirectories()).containsExactlyInAnyOrder(sources.getPath(), tests.getPath());
+	}
+
+	@Test
+	public void testOf_givenMoreProjectsThanItKeeps_shouldWalkTheLeastRecentlyUsedAgain() throws IOException {
+		File first = project.newFolder("first");
+		new File(first, "A.java").createNewFile();
+		ProjectIndex index = ProjectIndex.of(first.getPath());
+
+		for (int i = 0; i < 16; i++) {
+			File other = project.newFolder("other" + i);
+			new File(other, "A.java").createNewFile();
+			ProjectIndex.of(other.getPath());
+		}
+
+		assertThat(ProjectIndex.of(first.getPath())).isNotSameAs(index);
+	}
+
+	@Test
+	public void testOf_givenMissingProject_shouldFindNothing() {
+		ProjectIndex index = ProjectIndex.of(new File(project.getRoot(), "missing").getPath());
+
+		assertThat(index.getSourceDirectories()).isEmpty();
+		assertThat(index.getLibraryDirectories()).isEmpty();
+	}
+
+}
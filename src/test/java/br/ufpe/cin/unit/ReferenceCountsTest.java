@@ -0,0 +1,42 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.JavaCompiler;
+import br.ufpe.cin.mergers.util.ReferenceCounts;
+
+public class ReferenceCountsTest {
+
+	private static final String SOURCE = "class A {\n"
+			+ "	class B {}\n"
+			+ "	void m(int a) {}\n"
+			+ "	void m(String a) {}\n"
+			+ "	void n() {}\n"
+			+ "	void test() {\n"
+			+ "		new B(); new B(); new A();\n"
+			+ "		m(1); m(2); m(\"a\");\n"
+			+ "		n();\n"
+			+ "	}\n"
+			+ "}\n";
+
+	private final ReferenceCounts counts = new ReferenceCounts(new JavaCompiler().compile(SOURCE));
+
+	@Test
+	public void testCountInstances_givenCreatedTypes_shouldCountEachType() {
+		assertThat(counts.countInstances("B")).isEqualTo(2);
+		assertThat(counts.countInstances("A")).isEqualTo(1);
+		assertThat(counts.countInstances("C")).isZero();
+	}
+
+	@Test
+	public void testCountInvocations_givenSignaturesWithReplicatedTypes_shouldCountMatchingInvocations() {
+		assertThat(counts.countInvocations("m(int-int)")).isEqualTo(2);
+		assertThat(counts.countInvocations("m(String-String)")).isEqualTo(1);
+		assertThat(counts.countInvocations("m(long-long)")).isZero();
+		assertThat(counts.countInvocations("n()")).isEqualTo(1);
+		assertThat(counts.countInvocations("o()")).isZero();
+	}
+
+}
@@ -0,0 +1,35 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.files.FilesManager;
+
+/**
+ * Tests that the streaming comparison of contents ignoring spacing agrees with comparing
+ * their single line no spaced representations.
+ */
+public class SpacingInsensitiveComparisonTest {
+
+	private static final String[] CONTENTS = {
+			"", " ", "\n", "\r\n\t", "a", " a ", "a b", "ab", "a\r\nb", "a\u0000b", "a\u000Bb\f",
+			"ba", "abc", "public class A {}", "public class A{\n}\n", "publicclassA {\t}", "public class B {}"
+	};
+
+	@Test
+	public void testComparison_givenContentsDifferingOrNotInSpacing_shouldMatchNoSpacedRepresentations() {
+		for (String first : CONTENTS) {
+			for (String second : CONTENTS) {
+				boolean expected = FilesManager.getStringContentIntoSingleLineNoSpacing(first)
+						.equals(FilesManager.getStringContentIntoSingleLineNoSpacing(second));
+
+				assertThat(FilesManager.areEqualIgnoringSpacing(first, second)).isEqualTo(expected);
+				if (expected) {
+					assertThat(FilesManager.hashIgnoringSpacing(first)).isEqualTo(FilesManager.hashIgnoringSpacing(second));
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,36 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.SemistructuredMerge;
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.mergers.util.StageExecutor;
+
+public class StatisticsHandlersTest {
+
+	private static final String DUPLICATED_DECLARATION = "class A { void m() {} void m() {} }";
+
+	@Test
+	public void testHandleStatistics_givenDuplicatedDeclaration_shouldCountItInBackground() throws Exception {
+		MergeContext context = new MergeContext(MergeOptions.builder().build());
+		context.unstructuredOutput = DUPLICATED_DECLARATION;
+
+		StageExecutor.join(SemistructuredMerge.handleStatistics(context));
+
+		assertThat(context.duplicatedDeclarationErrors).isPositive();
+		assertThat(context.semistructuredMergeTime).isZero();
+	}
+
+	@Test
+	public void testHandleStatistics_givenHandlerDisabled_shouldCountNothing() throws Exception {
+		MergeContext context = new MergeContext(MergeOptions.builder().duplicatedDeclarationHandlerEnabled(false).build());
+		context.unstructuredOutput = DUPLICATED_DECLARATION;
+
+		StageExecutor.join(SemistructuredMerge.handleStatistics(context));
+
+		assertThat(context.duplicatedDeclarationErrors).isZero();
+	}
+}
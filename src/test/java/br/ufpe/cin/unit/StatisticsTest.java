@@ -0,0 +1,45 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.MergeContext;
+import br.ufpe.cin.mergers.util.MergeOptions;
+import br.ufpe.cin.statistics.Statistics;
+
+public class StatisticsTest {
+
+	@Test
+	public void testCompute_givenConflictsEqualModuloSpacing_shouldCountThemAsEqual() throws Exception {
+		MergeContext context = new MergeContext(MergeOptions.builder().build());
+		context.unstructuredOutput = conflict("int x = 1;", "int x = 2;")
+				+ conflict("int x = 1;", "int x = 2;")
+				+ conflict("int y = 1;", "int y = 2;")
+				+ conflict("int z = 1;", "int z = 2;");
+		context.semistructuredOutput = conflict("int  x=1;", "\tint x = 2;")
+				+ conflict("int y = 1;", "int y = 3;");
+
+		Statistics.compute(context);
+
+		assertThat(context.unstructuredNumberOfConflicts).isEqualTo(4);
+		assertThat(context.semistructuredNumberOfConflicts).isEqualTo(2);
+		assertThat(context.equalConflicts).isEqualTo(2);
+	}
+
+	@Test
+	public void testCompute_givenNoConflicts_shouldCountNoEqualConflicts() throws Exception {
+		MergeContext context = new MergeContext(MergeOptions.builder().build());
+		context.unstructuredOutput = "class A {}\n";
+		context.semistructuredOutput = "class A {}\n";
+
+		Statistics.compute(context);
+
+		assertThat(context.equalConflicts).isZero();
+	}
+
+	private static String conflict(String left, String right) {
+		return "<<<<<<< MINE\n" + left + "\n=======\n" + right + "\n>>>>>>> YOURS\n";
+	}
+
+}
@@ -0,0 +1,91 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+import br.ufpe.cin.mergers.util.SubtreeHashes;
+import de.ovgu.cide.fstgen.ast.FSTNode;
+import de.ovgu.cide.fstgen.ast.FSTNonTerminal;
+import de.ovgu.cide.fstgen.ast.FSTTerminal;
+
+/**
+ * Tests that subtrees are taken as identical only when their whole content is.
+ */
+public class SubtreeHashesTest {
+
+	@Test
+	public void testHashes_givenAChangedMethod_shouldOnlyDistinguishTheSubtreesContainingIt() {
+		FSTNonTerminal base = newClass("void m() {}", "// comment");
+		FSTNonTerminal left = newClass("void m() { n(); }", "// comment");
+		SubtreeHashes hashes = new SubtreeHashes();
+
+		hashes.addTree(base);
+		hashes.addTree(left);
+
+		assertThat(hashes.haveSameContent(left, base)).isFalse();
+		assertThat(hashes.haveSameContent(child(left, 0), child(base, 0))).isTrue();
+		assertThat(hashes.haveSameContent(child(left, 1), child(base, 1))).isFalse();
+	}
+
+	@Test
+	public void testHashes_givenChangesInPrefixOrChildrenOrder_shouldDistinguishTheTrees() {
+		FSTNonTerminal base = newClass("void m() {}", "// comment");
+		FSTNonTerminal commented = newClass("void m() {}", "// another comment");
+		FSTNonTerminal reordered = new FSTNonTerminal("ClassDeclaration", "A");
+		reordered.addChild(child(newClass("void m() {}", "// comment"), 1));
+		reordered.addChild(child(newClass("void m() {}", "// comment"), 0));
+		SubtreeHashes hashes = new SubtreeHashes();
+
+		hashes.addTree(base);
+		hashes.addTree(commented);
+		hashes.addTree(reordered);
+
+		assertThat(hashes.haveSameContent(base, commented)).isFalse();
+		assertThat(hashes.haveSameContent(base, reordered)).isFalse();
+	}
+
+	@Test
+	public void testHashes_givenACopyOfASubtree_shouldTakeItAsIdentical() {
+		FSTNonTerminal base = newClass("void m() {}", "");
+		FSTNonTerminal right = newClass("void m() {}", "");
+		FSTNode copy = base.getDeepClone();
+		SubtreeHashes hashes = new SubtreeHashes();
+
+		hashes.addTree(base);
+		hashes.addTree(right);
+
+		assertThat(hashes.haveSameContent(copy, right)).isFalse(); // unknown hashes
+		hashes.addCopy(base, copy);
+		assertThat(hashes.haveSameContent(copy, right)).isTrue();
+	}
+
+	@Test
+	public void testHashes_givenEqualHashesOfDifferentSubtrees_shouldNotTakeThemAsIdentical() {
+		FSTNonTerminal base = newClass("void m() {}", "");
+		FSTNonTerminal right = newClass("void m() {}", "");
+		FSTNonTerminal changed = (FSTNonTerminal) base.getDeepClone();
+		((FSTTerminal) child(changed, 1)).setBody("void m() { n(); }");
+		SubtreeHashes hashes = new SubtreeHashes();
+
+		hashes.addTree(base);
+		hashes.addTree(right);
+		hashes.addCopy(base, changed); // the same hashes as a collision would give
+
+		assertThat(hashes.haveSameContent(changed, right)).isFalse();
+		assertThat(hashes.haveSameContent(child(changed, 1), child(right, 1))).isFalse();
+		assertThat(hashes.haveSameContent(child(changed, 0), child(right, 0))).isTrue();
+	}
+
+	private static FSTNonTerminal newClass(String methodBody, String methodPrefix) {
+		FSTNonTerminal declaration = new FSTNonTerminal("ClassDeclaration", "A");
+		declaration.addChild(new FSTTerminal("FieldDecl", "x", "int x;", "", "", "Default"));
+		declaration.addChild(new FSTTerminal("MethodDecl", "m()", methodBody, methodPrefix, "", "LineBased"));
+		return declaration;
+	}
+
+	private static FSTNode child(FSTNonTerminal node, int index) {
+		return node.getChildren().get(index);
+	}
+
+}
@@ -15,6 +15,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import br.ufpe.cin.app.JFSTMerge;
+import br.ufpe.cin.files.FilesManager;
 
 public class SuperimpositionTest {
 
@@ -47,6 +48,15 @@ public class SuperimpositionTest {
         assertEquals(mergeResult, FileUtils.readFileToString(files.resolve("merge.java").toFile()));
     }
 
+    @Test
+    public void testWhenCodeContainsTheTextOfInternalMergeMarkers_shouldMergeItAsAnyOtherCode() throws IOException {
+        Path files = TEST_FILES_DIRECTORY.resolve("marker-text");
+
+        String mergeResult = merge(new JFSTMerge(), files);
+        assertEquals(FilesManager.getStringContentIntoSingleLineNoSpacing(mergeResult),
+                FilesManager.getStringContentIntoSingleLineNoSpacing(FileUtils.readFileToString(files.resolve("merge.java").toFile())));
+    }
+
     private String merge(JFSTMerge merger, Path filesPath) {
         return merger.mergeFiles(filesPath.resolve("left/Test.java").toFile(),
                 filesPath.resolve("base/Test.java").toFile(), filesPath.resolve("right/Test.java").toFile(),
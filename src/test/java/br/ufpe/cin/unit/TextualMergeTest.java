@@ -0,0 +1,121 @@
+package br.ufpe.cin.unit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.eclipse.jgit.diff.RawText;
+import org.eclipse.jgit.diff.RawTextComparator;
+import org.eclipse.jgit.merge.MergeAlgorithm;
+import org.eclipse.jgit.merge.MergeFormatter;
+import org.eclipse.jgit.merge.MergeResult;
+import org.junit.Test;
+
+import br.ufpe.cin.exceptions.TextualMergeException;
+import br.ufpe.cin.files.FileSnapshot;
+import br.ufpe.cin.files.FilesEncoding;
+import br.ufpe.cin.mergers.TextualMerge;
+import br.ufpe.cin.mergers.util.MergeOptions;
+
+/**
+ * Tests that merging strings line by line in memory gives the same output as JGit's merge of their bytes.
+ */
+public class TextualMergeTest {
+
+	private static final String[] CONTENTS = {
+			"", "\n", "a", "a\n", "a\nb\n", "a\nb", " a\nb\n", "a\r\nb\r\n", "a\n\nb\n", "b\na\n",
+			"a\nc\nb\n", "\r\n\nx y\n", "\n\r\nx  y", "int x = 1;\n\tint y = 2;\n", "int x = 1;\n int y = 3;\n"
+	};
+
+	@Test
+	public void testMerge_givenAllCombinationsOfContents_shouldMatchJGitOutput() throws Exception {
+		for (String left : CONTENTS) {
+			for (String base : CONTENTS) {
+				for (String right : CONTENTS) {
+					for (boolean ignoreWhiteSpaces : new boolean[] { false, true }) {
+						for (boolean showBase : new boolean[] { false, true }) {
+							assertThat(merge(left, base, right, ignoreWhiteSpaces, showBase))
+									.as("%s|%s|%s ignoring spaces: %s", left, base, right, ignoreWhiteSpaces)
+									.isEqualTo(mergeWithJGit(left, base, right, ignoreWhiteSpaces, showBase));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testMerge_givenNonAsciiContents_shouldKeepCharacters() throws Exception {
+		assertThat(merge("ol\u00E1\n,\nmundo\n", "ola\n,\nmundo\n", "ola\n,\nmund\u00E3o\n", false, false))
+				.isEqualTo("ol\u00E1\n,\nmund\u00E3o\n");
+	}
+
+	@Test
+	public void testMerge_givenSnapshotsOfFilesEndingWithNewline_shouldMatchJGitOutputOfTheirContents() throws Exception {
+		String[] contents = { "a\nb\n", "a\nc\nb\n", "b\na\n", "int x = 1;\n\tint y = 2;\n" };
+		for (String left : contents) {
+			for (String right : contents) {
+				FileSnapshot leftSnapshot = FileSnapshot.read(file(left));
+				FileSnapshot baseSnapshot = FileSnapshot.read(file(contents[0]));
+				FileSnapshot rightSnapshot = FileSnapshot.read(file(right));
+
+				assertThat(TextualMerge.merge(leftSnapshot, baseSnapshot, rightSnapshot, false, MergeOptions.builder().build()))
+						.isEqualTo(mergeWithJGit(leftSnapshot.getContent(), baseSnapshot.getContent(), rightSnapshot.getContent(), false, false));
+			}
+		}
+	}
+
+	@Test
+	public void testMerge_givenSnapshotsMergedOnAnotherThread_shouldKeepTheirEncoding() throws Exception {
+		String utf8 = StandardCharsets.UTF_8.name();
+		File left = file("ol\u00E1\n,\nmundo\n");
+		File base = file("ola\n,\nmundo\n");
+		File right = file("ola\n,\nmund\u00E3o\n");
+		FilesEncoding.setFilesEncoding(left, base, right, Arrays.asList(utf8, utf8, utf8));
+		FileSnapshot[] snapshots = { FileSnapshot.read(left), FileSnapshot.read(base), FileSnapshot.read(right) };
+
+		String merged = CompletableFuture.supplyAsync(() -> {
+			try {
+				return TextualMerge.merge(snapshots[0], snapshots[1], snapshots[2], false, MergeOptions.builder().build());
+			} catch (TextualMergeException e) {
+				throw new IllegalStateException(e);
+			}
+		}).get();
+
+		assertThat(merged).isEqualTo("ol\u00E1\n,\nmund\u00E3o");
+	}
+
+	private static File file(String content) throws IOException {
+		File file = File.createTempFile("textual", ".java");
+		file.deleteOnExit();
+		Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return file;
+	}
+
+	private static String merge(String left, String base, String right, boolean ignoreWhiteSpaces, boolean showBase) throws TextualMergeException {
+		return TextualMerge.merge(left, base, right, ignoreWhiteSpaces, MergeOptions.builder().showBase(showBase).build());
+	}
+
+	private static String mergeWithJGit(String left, String base, String right, boolean ignoreWhiteSpaces, boolean showBase) throws IOException {
+		RawTextComparator comparator = (ignoreWhiteSpaces) ? RawTextComparator.WS_IGNORE_ALL : RawTextComparator.DEFAULT;
+		MergeResult<RawText> result = new MergeAlgorithm().merge(comparator, rawText(base), rawText(left), rawText(right));
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		if (showBase) {
+			new MergeFormatter().formatMergeWriteBaseInConflicts(output, result, "BASE", "MINE", "YOURS", StandardCharsets.UTF_8);
+		} else {
+			new MergeFormatter().formatMerge(output, result, "BASE", "MINE", "YOURS", StandardCharsets.UTF_8);
+		}
+		return new String(output.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static RawText rawText(String content) {
+		return new RawText(content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -0,0 +1,7 @@
+public class Test {
+
+	public String separator() {
+		return "";
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,7 @@
+public class Test {
+
+	public String separator() {
+		return "##FSTMerge##~~FSTMerge~~";
+	}
+
+}
\ No newline at end of file
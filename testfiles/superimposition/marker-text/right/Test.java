@@ -0,0 +1,9 @@
+public class Test {
+
+	public String separator() {
+		return "";
+	}
+
+	int a;
+
+}
\ No newline at end of file